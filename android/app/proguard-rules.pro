@@ -44,6 +44,8 @@
   @**.expo.core.interfaces.ExpoMethod *;
 }
 
+-keep class **$$ExpoMethodDispatcher { <init>(); }
+
 -keep @**.expo.core.interfaces.DoNotStrip class *
 -keepclassmembers class * {
   @**.expo.core.interfaces.DoNotStrip *;
@@ -0,0 +1,202 @@
+package versioned.host.exp.exponent.modules.api.components.svg;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.bridge.DynamicFromMap;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.uimanager.DisplayMetricsHolder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+ * Renders a corpus of masked SVGs into software canvases and reports the time per frame and
+ * the number of GCs. Results are logged and sent as instrumentation status, run with
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=versioned.host.exp.exponent.modules.api.components.svg.MaskedSvgBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class MaskedSvgBenchmark {
+
+  private static final String TAG = MaskedSvgBenchmark.class.getSimpleName();
+
+  private static final int WARMUP_FRAMES = 10;
+  private static final int FRAMES = 100;
+  private static final int[] SIZES = { 64, 256, 1024 };
+
+  private static final String MASK_NAME = "mask";
+
+  private ReactContext mReactContext;
+
+  private interface MaskContent {
+    VirtualView create(ReactContext reactContext);
+  }
+
+  @Before
+  public void before() {
+    Context context = InstrumentationRegistry.getTargetContext();
+    DisplayMetricsHolder.initDisplayMetricsIfNotInitialized(context);
+    mReactContext = new ReactApplicationContext(context);
+  }
+
+  @Test
+  public void masksContent() {
+    SvgView svgView = createMaskedSvg(circleMask(1.0));
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    svgView.layout(0, 0, bitmap.getWidth(), bitmap.getHeight());
+    svgView.draw(new Canvas(bitmap));
+
+    assertEquals(Color.RED, bitmap.getPixel(50, 50));
+    assertEquals(Color.TRANSPARENT, bitmap.getPixel(2, 2));
+  }
+
+  @Test
+  public void benchmarkCircleMask() {
+    benchmark("circle", circleMask(1.0));
+  }
+
+  @Test
+  public void benchmarkTranslucentCircleMask() {
+    benchmark("translucent circle", circleMask(0.5));
+  }
+
+  @Test
+  public void benchmarkRectMask() {
+    benchmark("rect", new MaskContent() {
+      @Override
+      public VirtualView create(ReactContext reactContext) {
+        RectView rect = new RectView(reactContext);
+        rect.setX(length("10%"));
+        rect.setY(length("10%"));
+        rect.setWidth(length("80%"));
+        rect.setHeight(length("40%"));
+        rect.setFill(color(1.0, 1.0, 1.0, 1.0));
+        return rect;
+      }
+    });
+  }
+
+  @Test
+  public void benchmarkGrayRectMask() {
+    benchmark("gray rect", new MaskContent() {
+      @Override
+      public VirtualView create(ReactContext reactContext) {
+        RectView rect = new RectView(reactContext);
+        rect.setX(length("0%"));
+        rect.setY(length("0%"));
+        rect.setWidth(length("100%"));
+        rect.setHeight(length("100%"));
+        rect.setFill(color(0.5, 0.5, 0.5, 1.0));
+        return rect;
+      }
+    });
+  }
+
+  private void benchmark(final String name, final MaskContent maskContent) {
+    for (int size : SIZES) {
+      SvgView svgView = createMaskedSvg(maskContent);
+      svgView.layout(0, 0, size, size);
+      Canvas canvas = new Canvas(Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888));
+
+      for (int i = 0; i < WARMUP_FRAMES; i++) {
+        drawFrame(svgView, canvas);
+      }
+
+      long gcCountBefore = getGcCount();
+      long startTime = System.nanoTime();
+      for (int i = 0; i < FRAMES; i++) {
+        drawFrame(svgView, canvas);
+      }
+      double frameTime = (System.nanoTime() - startTime) / 1e6 / FRAMES;
+      long gcCount = getGcCount() - gcCountBefore;
+
+      String result = String.format("%s mask %dx%d: %.3f ms per frame, %d GCs", name, size, size, frameTime, gcCount);
+      Log.i(TAG, result);
+
+      Bundle status = new Bundle();
+      status.putString("stream", result + "\n");
+      InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+  }
+
+  private static void drawFrame(SvgView svgView, Canvas canvas) {
+    // Invalidating the SVG as a whole draws every element and its mask again
+    svgView.invalidate();
+    canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+    svgView.draw(canvas);
+  }
+
+  // A full size red rect masked by the mask content
+  private SvgView createMaskedSvg(MaskContent maskContent) {
+    SvgView svgView = new SvgView(mReactContext);
+
+    DefsView defs = new DefsView(mReactContext);
+    MaskView mask = new MaskView(mReactContext);
+    mask.setName(MASK_NAME);
+    mask.setX(length("0%"));
+    mask.setY(length("0%"));
+    mask.setWidth(length("100%"));
+    mask.setHeight(length("100%"));
+    mask.addView(maskContent.create(mReactContext));
+    defs.addView(mask);
+    svgView.addView(defs);
+
+    RectView content = new RectView(mReactContext);
+    content.setX(length("0%"));
+    content.setY(length("0%"));
+    content.setWidth(length("100%"));
+    content.setHeight(length("100%"));
+    content.setFill(color(1.0, 0.0, 0.0, 1.0));
+    content.setMask(MASK_NAME);
+    svgView.addView(content);
+
+    return svgView;
+  }
+
+  private static MaskContent circleMask(final double luminance) {
+    return new MaskContent() {
+      @Override
+      public VirtualView create(ReactContext reactContext) {
+        CircleView circle = new CircleView(reactContext);
+        circle.setCx(length("50%"));
+        circle.setCy(length("50%"));
+        circle.setR(length("25%"));
+        circle.setFill(color(luminance, luminance, luminance, 1.0));
+        return circle;
+      }
+    };
+  }
+
+  private static Dynamic length(String value) {
+    return DynamicFromMap.create(JavaOnlyMap.of("value", value), "value");
+  }
+
+  // Brushes are arrays of the brush type (0 for colors) and RGBA components between 0 and 1
+  private static Dynamic color(double r, double g, double b, double a) {
+    return DynamicFromMap.create(JavaOnlyMap.of("value", JavaOnlyArray.of(0, r, g, b, a)), "value");
+  }
+
+  private static long getGcCount() {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+      return 0;
+    }
+    String gcCount = Debug.getRuntimeStat("art.gc.gc-count");
+    return gcCount != null ? Long.parseLong(gcCount) : 0;
+  }
+}
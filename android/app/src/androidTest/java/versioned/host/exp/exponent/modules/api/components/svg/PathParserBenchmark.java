@@ -0,0 +1,73 @@
+package versioned.host.exp.exponent.modules.api.components.svg;
+
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertNotSame;
+
+/*
+ * Parses a corpus of icon paths with and without the cache and reports the time per parsed path.
+ * Results are logged and sent as instrumentation status, run with
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=versioned.host.exp.exponent.modules.api.components.svg.PathParserBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class PathParserBenchmark {
+
+  private static final String TAG = PathParserBenchmark.class.getSimpleName();
+
+  private static final int WARMUP_ITERATIONS = 200;
+  private static final int ITERATIONS = 2000;
+
+  // Icon paths of various lengths and commands
+  private static final String[] CORPUS = {
+      "M12 2C6.48 2 2 6.48 2 12s4.48 10 10 10 10-4.48 10-10S17.52 2 12 2zm-2 15l-5-5 1.41-1.41L10 14.17l7.59-7.59L19 8l-9 9z",
+      "M19 6.41L17.59 5 12 10.59 6.41 5 5 6.41 10.59 12 5 17.59 6.41 19 12 13.41 17.59 19 19 17.59 13.41 12z",
+      "M12 21.35l-1.45-1.32C5.4 15.36 2 12.28 2 8.5 2 5.42 4.42 3 7.5 3c1.74 0 3.41.81 4.5 2.09C13.09 3.81 14.76 3 16.5 3 19.58 3 22 5.42 22 8.5c0 3.78-3.4 6.86-8.55 11.54L12 21.35z",
+      "M10 20v-6h4v6h5v-8h3L12 3 2 12h3v8z",
+      "M15.5 14h-.79l-.28-.27C15.41 12.59 16 11.11 16 9.5 16 5.91 13.09 3 9.5 3S3 5.91 3 9.5 5.91 16 9.5 16c1.61 0 3.09-.59 4.23-1.57l.27.28v.79l5 4.99L20.49 19l-4.99-5zm-6 0C7.01 14 5 11.99 5 9.5S7.01 5 9.5 5 14 7.01 14 9.5 11.99 14 9.5 14z",
+      "M0,0 a25,25 -30 0,1 50,-25 l50,-25 a25,50 -30 0,1 50,-25 l50,-25 a25,75 -30 0,1 50,-25 l50,-25 a25,100 -30 0,1 50,-25 l50,-25",
+      "M2.5e1 1E1 Q 40.5 1e-1 60 10 T 1.2e2 10 t20 0 S 150 5 160 10 s10 5 20 0",
+  };
+
+  @Test
+  public void benchmarkParsing() {
+    for (String d : CORPUS) {
+      // Every path of the corpus is valid
+      assertNotSame(ParsedPath.EMPTY, PropHelper.PathParser.parseUncached(d));
+    }
+
+    time(WARMUP_ITERATIONS, false);
+    time(WARMUP_ITERATIONS, true);
+
+    report(String.format("uncached: %.2f us per parse", time(ITERATIONS, false) * 1000));
+    report(String.format("cached: %.2f us per parse", time(ITERATIONS, true) * 1000));
+  }
+
+  // Returns the time per parsed path in ms
+  private static double time(int iterations, boolean cached) {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      for (String d : CORPUS) {
+        if (cached) {
+          PropHelper.PathParser.parse(d);
+        } else {
+          PropHelper.PathParser.parseUncached(d);
+        }
+      }
+    }
+    return (System.nanoTime() - startTime) / 1e6 / (iterations * CORPUS.length);
+  }
+
+  private static void report(String result) {
+    Log.i(TAG, result);
+
+    Bundle status = new Bundle();
+    status.putString("stream", result + "\n");
+    InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+  }
+}
@@ -0,0 +1,152 @@
+package expo.modules.taskManager;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.PersistableBundle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TaskJournalTest {
+
+  private static final String APP_ID = "@test/journal";
+  // About 1 KiB per event, so that a few dozens of them fill the initial 64 KiB of the journal.
+  private static final String PADDING = new String(new char[1024]).replace('\0', 'x');
+
+  private static final int INITIAL_SIZE = 64 * 1024;
+
+  private static int sTaskCounter = 0;
+
+  private String mTaskName;
+  private TaskJournal mJournal;
+
+  @Before
+  public void setUp() {
+    Context context = RuntimeEnvironment.application;
+    // Journals are cached per task, every test gets a fresh one.
+    mTaskName = "task" + (sTaskCounter++);
+    mJournal = TaskJournal.forTask(context, APP_ID, mTaskName);
+  }
+
+  @After
+  public void tearDown() {
+    mJournal.delete();
+  }
+
+  @Test
+  public void readsEventsInOrderUntilCommitted() throws IOException {
+    append(0, 5);
+
+    TaskJournal.Batch batch = mJournal.read(3);
+    assertIndices(batch.events, 0, 3);
+
+    // Not committed yet, so the same events are read again.
+    assertIndices(mJournal.read(3).events, 0, 3);
+
+    mJournal.commit(batch.cursor);
+    TaskJournal.Batch rest = mJournal.read(10);
+    assertIndices(rest.events, 3, 5);
+
+    mJournal.commit(rest.cursor);
+    assertTrue(mJournal.isEmpty());
+  }
+
+  @Test
+  public void commitsBatchReadBeforeCompaction() throws IOException {
+    append(0, 40);
+    mJournal.commit(mJournal.read(35).cursor);
+
+    // The batch is in flight while more events come and the journal runs out of space,
+    // moving the unread records to the front of the file.
+    TaskJournal.Batch inFlight = mJournal.read(5);
+    assertIndices(inFlight.events, 35, 40);
+    append(40, 70);
+    assertEquals(INITIAL_SIZE, getJournalFile().length());
+
+    mJournal.commit(inFlight.cursor);
+
+    assertIndices(mJournal.read(100).events, 40, 70);
+  }
+
+  @Test
+  public void growsInsteadOfOverwritingUnreadRecords() throws IOException {
+    append(0, 40);
+    mJournal.commit(mJournal.read(10).cursor);
+
+    // The unread records don't fit into the space of the committed ones.
+    append(40, 70);
+    assertTrue(getJournalFile().length() > INITIAL_SIZE);
+
+    assertIndices(mJournal.read(100).events, 10, 70);
+  }
+
+  @Test
+  public void ignoresCommitOfAlreadyCommittedBatch() throws IOException {
+    append(0, 4);
+    TaskJournal.Batch first = mJournal.read(2);
+    TaskJournal.Batch all = mJournal.read(4);
+    mJournal.commit(all.cursor);
+
+    append(4, 6);
+    mJournal.commit(first.cursor);
+
+    assertIndices(mJournal.read(10).events, 4, 6);
+  }
+
+  @Test
+  public void deletedJournalIsReplacedAndRefusesIo() throws IOException {
+    TaskJournal deleted = mJournal;
+    append(0, 2);
+    deleted.delete();
+
+    mJournal = TaskJournal.forTask(RuntimeEnvironment.application, APP_ID, mTaskName);
+    assertNotSame(deleted, mJournal);
+    assertTrue(mJournal.isEmpty());
+
+    assertTrue(deleted.isEmpty());
+    try {
+      deleted.read(10);
+      fail("Reading a deleted journal should fail.");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  private void append(int from, int to) throws IOException {
+    for (int i = from; i < to; i++) {
+      PersistableBundle event = new PersistableBundle();
+      event.putInt("index", i);
+      event.putString("padding", PADDING);
+      mJournal.append(event);
+    }
+  }
+
+  private File getJournalFile() {
+    File directory = new File(RuntimeEnvironment.application.getNoBackupFilesDir(), "ExpoTaskJournals");
+    return new File(directory, Uri.encode(APP_ID) + "." + Uri.encode(mTaskName) + ".journal");
+  }
+
+  private static void assertIndices(List<Bundle> events, int from, int to) {
+    assertEquals(to - from, events.size());
+    for (int i = from; i < to; i++) {
+      assertEquals(i, events.get(i - from).getInt("index"));
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package host.exp.exponent;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import expolib_v1.okhttp3.Interceptor;
+import expolib_v1.okhttp3.OkHttpClient;
+import expolib_v1.okhttp3.Protocol;
+import expolib_v1.okhttp3.Request;
+import expolib_v1.okhttp3.Response;
+import host.exp.exponent.kernel.KernelConstants;
+import host.exp.exponent.network.ExponentNetwork;
+import host.exp.exponent.utils.ExpoUnitTestBase;
+import host.exp.exponent.utils.MockExpoHttpClient;
+import host.exp.exponent.utils.MockManifest;
+import host.exp.expoview.Exponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class BundleDeltaTests extends ExpoUnitTestBase {
+
+  private static final String ID = "@test/bundle-delta";
+  private static final String SDK_VERSION = "27.0.0";
+  private static final String BASE_BUNDLE_URL = "https://d1wp6m56sqw74a.cloudfront.net/bundle-delta-base.js";
+  private static final String BUNDLE_URL = "https://d1wp6m56sqw74a.cloudfront.net/bundle-delta-update.js";
+  // Never written to disk, so that a stale bundle file can't stand in for the delta
+  private static final String UNCACHED_BUNDLE_URL = "https://d1wp6m56sqw74a.cloudfront.net/bundle-delta-uncached.js";
+
+  private static final String BASE_BUNDLE = "var a = 1;\nvar b = 2;\nvar c = 3;\n";
+  private static final String UPDATED_BUNDLE = "var a = 1;\nvar b = 5;\nvar c = 3;\n";
+
+  private static class BundleResult implements Exponent.BundleListener {
+    String localBundlePath;
+    Exception error;
+
+    @Override
+    public void onBundleLoaded(String localBundlePath) {
+      this.localBundlePath = localBundlePath;
+    }
+
+    @Override
+    public void onError(Exception e) {
+      this.error = e;
+    }
+  }
+
+  @Before
+  public void before() {
+    baseBefore();
+  }
+
+  @Test
+  public void appliesDeltaAgainstPreviousBundle() throws Exception {
+    MockExpoHttpClient client = new MockExpoHttpClient()
+        .callDefaultCache(MockExpoHttpClient.ResponseType.NORMAL, BASE_BUNDLE);
+    client.use(mExponentNetwork);
+
+    BundleResult base = loadBundle(BASE_BUNDLE_URL, null);
+    assertNull(base.error);
+
+    client
+        .callDefaultCache(MockExpoHttpClient.ResponseType.NORMAL, delta())
+        .responseHeader("Content-Type", KernelConstants.BUNDLE_DELTA_MEDIA_TYPE)
+        .responseHeader(KernelConstants.BUNDLE_HASH_HEADER, sha256(UPDATED_BUNDLE));
+
+    BundleResult update = loadBundle(BUNDLE_URL, BASE_BUNDLE_URL);
+
+    assertEquals(sha256(BASE_BUNDLE), client.getLastRequest().header(KernelConstants.BUNDLE_DELTA_BASE_HASH_HEADER));
+    assertNull(update.error);
+    assertEquals(UPDATED_BUNDLE, FileUtils.readFileToString(new File(update.localBundlePath), "UTF-8"));
+    assertEquals(BASE_BUNDLE, FileUtils.readFileToString(new File(base.localBundlePath), "UTF-8"));
+  }
+
+  @Test
+  public void launchesOfflineFromPatchedBundle() throws Exception {
+    MockExpoHttpClient client = new MockExpoHttpClient()
+        .callDefaultCache(MockExpoHttpClient.ResponseType.NORMAL, BASE_BUNDLE);
+    client.use(mExponentNetwork);
+    assertNull(loadBundle(BASE_BUNDLE_URL, null).error);
+
+    client
+        .callDefaultCache(MockExpoHttpClient.ResponseType.NORMAL, delta())
+        .responseHeader("Content-Type", KernelConstants.BUNDLE_DELTA_MEDIA_TYPE)
+        .responseHeader(KernelConstants.BUNDLE_HASH_HEADER, sha256(UPDATED_BUNDLE));
+    BundleResult update = loadBundle(BUNDLE_URL, BASE_BUNDLE_URL);
+    assertNull(update.error);
+
+    // The delta response was never cached, so neither the cache nor the network can provide the bundle.
+    client
+        .callDefaultCache(MockExpoHttpClient.ResponseType.FAILURE, "offline")
+        .tryForcedCachedResponse(MockExpoHttpClient.ResponseType.FAILURE, "not cached");
+
+    BundleResult offline = loadBundle(BUNDLE_URL, BASE_BUNDLE_URL);
+    assertNull(offline.error);
+    assertEquals(update.localBundlePath, offline.localBundlePath);
+    assertEquals(UPDATED_BUNDLE, FileUtils.readFileToString(new File(offline.localBundlePath), "UTF-8"));
+
+    BundleResult forcedCache = new BundleResult();
+    Exponent.getInstance().loadJSBundle(manifest(), BUNDLE_URL, ID, SDK_VERSION, forcedCache, false, true, BASE_BUNDLE_URL);
+    assertNull(forcedCache.error);
+    assertEquals(update.localBundlePath, forcedCache.localBundlePath);
+  }
+
+  @Test
+  public void rejectsDeltaWithoutBaseBundle() throws Exception {
+    new MockExpoHttpClient()
+        .tryForcedCachedResponse(MockExpoHttpClient.ResponseType.CACHED, delta())
+        .responseHeader("Content-Type", KernelConstants.BUNDLE_DELTA_MEDIA_TYPE)
+        .responseHeader(KernelConstants.BUNDLE_HASH_HEADER, sha256(UPDATED_BUNDLE))
+        .use(mExponentNetwork);
+
+    // Forcing the cache never advertises a base, so a delta can't be applied and the
+    // caller has to fall back to the network.
+    BundleResult result = new BundleResult();
+    Exponent.getInstance().loadJSBundle(manifest(), UNCACHED_BUNDLE_URL, ID, SDK_VERSION, result, false, true, BASE_BUNDLE_URL);
+
+    assertNotNull(result.error);
+    assertNull(result.localBundlePath);
+  }
+
+  @Test
+  public void doesNotCacheDeltaResponses() throws IOException {
+    NetworkInfo networkInfo = mock(NetworkInfo.class);
+    doReturn(true).when(networkInfo).isConnected();
+    ConnectivityManager connectivityManager = mock(ConnectivityManager.class);
+    doReturn(networkInfo).when(connectivityManager).getActiveNetworkInfo();
+    doReturn(connectivityManager).when(mContext).getSystemService(Context.CONNECTIVITY_SERVICE);
+    doReturn(mContext).when(mContext).getApplicationContext();
+
+    OkHttpClient.Builder builder = new OkHttpClient.Builder();
+    new ExponentNetwork(mContext, mExponentSharedPreferences).addInterceptors(builder);
+    Interceptor offlineInterceptor = builder.networkInterceptors().get(0);
+
+    assertEquals("no-store", intercept(offlineInterceptor, KernelConstants.BUNDLE_DELTA_MEDIA_TYPE).header("Cache-Control"));
+    assertEquals("public, max-age=0", intercept(offlineInterceptor, "application/javascript").header("Cache-Control"));
+  }
+
+  private BundleResult loadBundle(final String url, final String baseBundleUrl) throws JSONException {
+    BundleResult result = new BundleResult();
+    Exponent.getInstance().loadJSBundle(manifest(), url, ID, SDK_VERSION, result, false, false, baseBundleUrl);
+    return result;
+  }
+
+  private static JSONObject manifest() throws JSONException {
+    return new JSONObject(new MockManifest().toString());
+  }
+
+  private static Response intercept(final Interceptor interceptor, final String contentType) throws IOException {
+    Request request = new Request.Builder().url(BUNDLE_URL).build();
+    Response response = new Response.Builder()
+        .request(request)
+        .protocol(Protocol.HTTP_1_1)
+        .code(200)
+        .message("OK")
+        .header("Content-Type", contentType)
+        .build();
+
+    Interceptor.Chain chain = mock(Interceptor.Chain.class);
+    doReturn(request).when(chain).request();
+    doReturn(response).when(chain).proceed(Matchers.any(Request.class));
+    return interceptor.intercept(chain);
+  }
+
+  // Turns BASE_BUNDLE into UPDATED_BUNDLE. Every byte is ASCII so it survives being a String body.
+  private static String delta() throws IOException {
+    ByteArrayOutputStream patch = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(patch);
+    out.write(new byte[] { 'E', 'X', 'B', 'D' });
+    out.write(1);
+    out.write(0x01);
+    out.writeLong(0);
+    out.writeInt(11);
+    out.write(0x02);
+    out.writeInt(11);
+    out.write("var b = 5;\n".getBytes("UTF-8"));
+    out.write(0x01);
+    out.writeLong(22);
+    out.writeInt(11);
+    out.write(0x00);
+    return new String(patch.toByteArray(), "US-ASCII");
+  }
+
+  private static String sha256(final String string) throws IOException, NoSuchAlgorithmException {
+    byte[] digest = MessageDigest.getInstance("SHA-256").digest(string.getBytes("UTF-8"));
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,95 @@
+package host.exp.exponent.storage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class BundleDeltaPatcherTest {
+
+  @Rule
+  public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void appliesCopyAndInsertOperations() throws IOException {
+    File base = writeBase("var a = 1;\nvar b = 2;\nvar c = 3;\n");
+
+    ByteArrayOutputStream patch = new ByteArrayOutputStream();
+    DataOutputStream out = header(patch);
+    out.write(0x01);
+    out.writeLong(0);
+    out.writeInt(11);
+    out.write(0x02);
+    out.writeInt(11);
+    out.write("var b = 5;\n".getBytes("UTF-8"));
+    out.write(0x01);
+    out.writeLong(22);
+    out.writeInt(11);
+    out.write(0x00);
+
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    long written = BundleDeltaPatcher.apply(base, new ByteArrayInputStream(patch.toByteArray()), result);
+
+    assertEquals("var a = 1;\nvar b = 5;\nvar c = 3;\n", result.toString("UTF-8"));
+    assertEquals(33, written);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsCopyPastEndOfBase() throws IOException {
+    File base = writeBase("short");
+
+    ByteArrayOutputStream patch = new ByteArrayOutputStream();
+    DataOutputStream out = header(patch);
+    out.write(0x01);
+    out.writeLong(2);
+    out.writeInt(10);
+    out.write(0x00);
+
+    BundleDeltaPatcher.apply(base, new ByteArrayInputStream(patch.toByteArray()), new ByteArrayOutputStream());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsTruncatedDelta() throws IOException {
+    File base = writeBase("var a = 1;\n");
+
+    ByteArrayOutputStream patch = new ByteArrayOutputStream();
+    DataOutputStream out = header(patch);
+    out.write(0x01);
+    out.writeLong(0);
+    out.writeInt(4);
+
+    BundleDeltaPatcher.apply(base, new ByteArrayInputStream(patch.toByteArray()), new ByteArrayOutputStream());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsUnknownFormat() throws IOException {
+    File base = writeBase("var a = 1;\n");
+    BundleDeltaPatcher.apply(base, new ByteArrayInputStream("var a = 1;\n".getBytes("UTF-8")), new ByteArrayOutputStream());
+  }
+
+  private File writeBase(String contents) throws IOException {
+    File base = mTemporaryFolder.newFile();
+    FileOutputStream outputStream = new FileOutputStream(base);
+    try {
+      outputStream.write(contents.getBytes("UTF-8"));
+    } finally {
+      outputStream.close();
+    }
+    return base;
+  }
+
+  private static DataOutputStream header(ByteArrayOutputStream patch) throws IOException {
+    DataOutputStream out = new DataOutputStream(patch);
+    out.write(new byte[] { 'E', 'X', 'B', 'D' });
+    out.write(1);
+    return out;
+  }
+}
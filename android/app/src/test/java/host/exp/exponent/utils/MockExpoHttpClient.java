@@ -6,6 +6,8 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import expolib_v1.okhttp3.Request;
 import expolib_v1.okhttp3.Response;
@@ -24,6 +26,8 @@ import static org.mockito.Mockito.withSettings;
 public class MockExpoHttpClient {
 
   private ExponentHttpClient mClient;
+  private Map<String, String> mResponseHeaders = new HashMap<>();
+  private Request mLastRequest;
 
   public MockExpoHttpClient() {
     this(false);
@@ -72,6 +76,9 @@ public class MockExpoHttpClient {
     if (type != ResponseType.FAILURE) {
       ManualExpoResponse response = new ManualExpoResponse();
       response.setBody(body);
+      for (Map.Entry<String, String> header : mResponseHeaders.entrySet()) {
+        response.setHeader(header.getKey(), header.getValue());
+      }
 
       if (type == ResponseType.NORMAL) {
         // If we're not loaded from cache we should have a network response
@@ -91,6 +98,7 @@ public class MockExpoHttpClient {
     doAnswer(new Answer<Void>() {
       @Override
       public Void answer(InvocationOnMock invocation) throws Throwable {
+        mLastRequest = invocation.getArgumentAt(1, Request.class);
         ExponentHttpClient.SafeCallback safeCallback = invocation.getArgumentAt(2, ExponentHttpClient.SafeCallback.class);
 
         handleSafeCallback(safeCallback, type, body);
@@ -106,7 +114,8 @@ public class MockExpoHttpClient {
     doAnswer(new Answer<Void>() {
       @Override
       public Void answer(InvocationOnMock invocation) throws Throwable {
-        ExponentHttpClient.SafeCallback safeCallback = invocation.getArgumentAt(2, ExponentHttpClient.SafeCallback.class);
+        mLastRequest = invocation.getArgumentAt(0, Request.class);
+        ExponentHttpClient.SafeCallback safeCallback = invocation.getArgumentAt(1, ExponentHttpClient.SafeCallback.class);
 
         handleSafeCallback(safeCallback, type, body);
 
@@ -121,6 +130,7 @@ public class MockExpoHttpClient {
     doAnswer(new Answer<Void>() {
       @Override
       public Void answer(InvocationOnMock invocation) throws Throwable {
+        mLastRequest = invocation.getArgumentAt(0, Request.class);
         ExponentHttpClient.SafeCallback safeCallback = invocation.getArgumentAt(1, ExponentHttpClient.SafeCallback.class);
 
         handleSafeCallback(safeCallback, type, body);
@@ -133,6 +143,16 @@ public class MockExpoHttpClient {
     return this;
   }
 
+  // Headers added to every response handed out from now on
+  public MockExpoHttpClient responseHeader(final String key, final String value) {
+    mResponseHeaders.put(key, value);
+    return this;
+  }
+
+  public Request getLastRequest() {
+    return mLastRequest;
+  }
+
   public MockExpoHttpClient getHardCodedResponse(final String body) {
     doAnswer(new Answer<String>() {
       @Override
@@ -0,0 +1,149 @@
+package versioned.host.exp.exponent.modules.api.components.svg;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static versioned.host.exp.exponent.modules.api.components.svg.ParsedPath.ARC_TO;
+import static versioned.host.exp.exponent.modules.api.components.svg.ParsedPath.CLOSE;
+import static versioned.host.exp.exponent.modules.api.components.svg.ParsedPath.CUBIC_TO;
+import static versioned.host.exp.exponent.modules.api.components.svg.ParsedPath.LINE_TO;
+import static versioned.host.exp.exponent.modules.api.components.svg.ParsedPath.MOVE_TO;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PathParserTest {
+
+  private static final float DELTA = 1e-4f;
+
+  @Test
+  public void parsesAbsoluteCommands() {
+    assertPath(PropHelper.PathParser.parseUncached("M10 20 L30 40 H50 V60 C1 2 3 4 5 6 Z"),
+        new byte[] { MOVE_TO, LINE_TO, LINE_TO, LINE_TO, CUBIC_TO, CLOSE },
+        new float[] { 10, 20, 30, 40, 50, 40, 50, 60, 1, 2, 3, 4, 5, 6 });
+  }
+
+  @Test
+  public void parsesRelativeCommands() {
+    assertPath(PropHelper.PathParser.parseUncached("m10 10 l5 0 h5 v-10 c1 1 2 2 3 3 z m1 1"),
+        new byte[] { MOVE_TO, LINE_TO, LINE_TO, LINE_TO, CUBIC_TO, CLOSE, MOVE_TO },
+        new float[] { 10, 10, 15, 10, 20, 10, 20, 0, 21, 1, 22, 2, 23, 3, 11, 11 });
+  }
+
+  @Test
+  public void repeatsImplicitCommands() {
+    // Coordinates following moveTo are lineTo commands, other commands are repeated
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 10 0 10 10 l-10 0 0-10"),
+        new byte[] { MOVE_TO, LINE_TO, LINE_TO, LINE_TO, LINE_TO },
+        new float[] { 0, 0, 10, 0, 10, 10, 0, 10, 0, 0 });
+  }
+
+  @Test
+  public void convertsQuadraticCurvesToCubicCurves() {
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 q10 10 20 0 t20 0"),
+        new byte[] { MOVE_TO, CUBIC_TO, CUBIC_TO },
+        new float[] {
+            0, 0,
+            20f / 3, 20f / 3, 40f / 3, 20f / 3, 20, 0,
+            80f / 3, -20f / 3, 100f / 3, -20f / 3, 40, 0,
+        });
+  }
+
+  @Test
+  public void parsesExponents() {
+    assertPath(PropHelper.PathParser.parseUncached("M1e2-1.5E-1L.5e1,2e+1 3E0 1e-3"),
+        new byte[] { MOVE_TO, LINE_TO, LINE_TO },
+        new float[] { 100, -0.15f, 5, 20, 3, 0.001f });
+  }
+
+  @Test
+  public void parsesNumbersWithoutSeparators() {
+    assertPath(PropHelper.PathParser.parseUncached("M1.5.5L-1-2.5.5-.5+3-0"),
+        new byte[] { MOVE_TO, LINE_TO, LINE_TO, LINE_TO },
+        new float[] { 1.5f, 0.5f, -1, -2.5f, 0.5f, -0.5f, 3, 0 });
+  }
+
+  @Test
+  public void parsesArcFlags() {
+    ParsedPath path = PropHelper.PathParser.parseUncached("M0 0 A10 10 0 0 1 20 0");
+    assertPath(path,
+        new byte[] { MOVE_TO, ARC_TO },
+        new float[] { 0, 0, 0, -10, 20, 10, 180, 180 });
+
+    // Flags don't need separators
+    assertPath(PropHelper.PathParser.parseUncached("M0 0a10 10 0 0120 0"),
+        path.getCommands(), path.getPoints());
+
+    // The large arc flag set and the sweep flag unset draw the other half of the circle counterclockwise
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 A10 10 0 1 0 20 0"),
+        new byte[] { MOVE_TO, ARC_TO },
+        new float[] { 0, 0, 0, -10, 20, 10, 180, -180 });
+  }
+
+  @Test
+  public void approximatesEllipticalArcsWithCubicCurves() {
+    ParsedPath path = PropHelper.PathParser.parseUncached("M0 0 A20 10 0 0 1 40 0");
+    assertArrayEquals(new byte[] { MOVE_TO, CUBIC_TO, CUBIC_TO }, path.getCommands());
+
+    // Each curve covers a quarter of the ellipse, the first one ends at its top
+    float[] points = path.getPoints();
+    assertEquals(20, points[6], DELTA);
+    assertEquals(-10, points[7], DELTA);
+    assertEquals(40, points[12], DELTA);
+    assertEquals(0, points[13], DELTA);
+  }
+
+  @Test
+  public void rejectsPathsWithoutValidCommands() {
+    assertSame(ParsedPath.EMPTY, PropHelper.PathParser.parse(null));
+    assertSame(ParsedPath.EMPTY, PropHelper.PathParser.parseUncached("10 10"));
+    assertSame(ParsedPath.EMPTY, PropHelper.PathParser.parseUncached("M0"));
+  }
+
+  @Test
+  public void keepsCommandsBeforeTheFirstError() {
+    // A command with missing or invalid parameters is dropped along with everything after it
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 L10"),
+        new byte[] { MOVE_TO },
+        new float[] { 0, 0 });
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 L1 e2 L5 5"),
+        new byte[] { MOVE_TO },
+        new float[] { 0, 0 });
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 L10 10 A10 10 0 2 1 20 0"),
+        new byte[] { MOVE_TO, LINE_TO },
+        new float[] { 0, 0, 10, 10 });
+
+    // Repeated parameters after the last complete command
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 L10 10 20"),
+        new byte[] { MOVE_TO, LINE_TO },
+        new float[] { 0, 0, 10, 10 });
+    assertPath(PropHelper.PathParser.parseUncached("M0 0 L1 1 Z 5"),
+        new byte[] { MOVE_TO, LINE_TO, CLOSE },
+        new float[] { 0, 0, 1, 1 });
+  }
+
+  @Test
+  public void cachesPartiallyInvalidPaths() {
+    String d = "M0 0 L10 10 L#";
+    ParsedPath path = PropHelper.PathParser.parse(d);
+    assertPath(path,
+        new byte[] { MOVE_TO, LINE_TO },
+        new float[] { 0, 0, 10, 10 });
+    assertSame(path, PropHelper.PathParser.parse(d));
+  }
+
+  @Test
+  public void cachesParsedPaths() {
+    String d = "M0 0 L1 1 L2 0 Z";
+    assertSame(PropHelper.PathParser.parse(d), PropHelper.PathParser.parse(d));
+  }
+
+  private static void assertPath(ParsedPath path, byte[] commands, float[] points) {
+    assertArrayEquals(commands, path.getCommands());
+    assertArrayEquals(points, path.getPoints(), DELTA);
+  }
+}
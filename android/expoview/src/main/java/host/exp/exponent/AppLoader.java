@@ -345,7 +345,7 @@ public abstract class AppLoader {
           }
           // forceNetwork fetch the bundle depending on whether or not the bundleUrl has changed
           // since the last version we have cached
-        }, wasUpdated, forceCache);
+        }, wasUpdated, forceCache, finalOldBundleUrl);
 
       } catch (JSONException e) {
         EXL.e(TAG, e);
@@ -59,6 +59,8 @@ public class Analytics {
   private static final long MAX_DURATION = 30000;
 
   private static final Map<TimedEvent, Long> sShellTimedEvents = new HashMap<>();
+  private static Long sBundleSizeBytes = null;
+  private static Long sBundleWriteHeapGrowthBytes = null;
 
   public static void initializeAmplitude(Context context, Application application) {
     if (!Constants.ANALYTICS_ENABLED) {
@@ -127,6 +129,21 @@ public class Analytics {
     sShellTimedEvents.put(event, System.currentTimeMillis());
   }
 
+  // Bundles are streamed to disk, so heap growth while writing one should stay near zero
+  // regardless of its size. Reported alongside the timed events to catch regressions.
+  public static void markBundleWritten(long sizeBytes, long heapGrowthBytes) {
+    sBundleSizeBytes = sizeBytes;
+    sBundleWriteHeapGrowthBytes = heapGrowthBytes;
+  }
+
+  public static Long getBundleSizeBytes() {
+    return sBundleSizeBytes;
+  }
+
+  public static Long getBundleWriteHeapGrowthBytes() {
+    return sBundleWriteHeapGrowthBytes;
+  }
+
   public static void sendTimedEvents(String manifestUrl) {
     if (manifestUrl == null) {
       return;
@@ -147,6 +164,10 @@ public class Analytics {
       addDuration(eventProperties, "BUNDLE_FETCH_DURATION", TimedEvent.FINISHED_FETCHING_BUNDLE, TimedEvent.STARTED_FETCHING_BUNDLE);
       addDuration(eventProperties, "BUNDLE_WRITE_DURATION", TimedEvent.FINISHED_WRITING_BUNDLE, TimedEvent.STARTED_WRITING_BUNDLE);
       addDuration(eventProperties, "REACT_NATIVE_DURATION", TimedEvent.FINISHED_LOADING_REACT_NATIVE, TimedEvent.STARTED_LOADING_REACT_NATIVE);
+      if (sBundleSizeBytes != null) {
+        eventProperties.put("BUNDLE_SIZE_BYTES", sBundleSizeBytes);
+        eventProperties.put("BUNDLE_WRITE_HEAP_GROWTH_BYTES", sBundleWriteHeapGrowthBytes);
+      }
 
       eventProperties.put("MANIFEST_URL", manifestUrl);
 
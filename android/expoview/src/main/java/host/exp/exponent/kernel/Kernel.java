@@ -152,7 +152,8 @@ public class Kernel extends KernelInterface {
   }
 
   private void updateKernelRNOkHttp() {
-    OkHttpClient.Builder client = new OkHttpClient.Builder()
+    // Derived from a shared client so that it reuses the connection pool and dispatcher of ExponentNetwork.
+    OkHttpClient.Builder client = mExponentNetwork.getNoCacheClient().newBuilder()
         .connectTimeout(0, TimeUnit.MILLISECONDS)
         .readTimeout(0, TimeUnit.MILLISECONDS)
         .writeTimeout(0, TimeUnit.MILLISECONDS)
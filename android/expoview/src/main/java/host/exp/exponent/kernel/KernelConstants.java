@@ -25,6 +25,9 @@ public class KernelConstants {
   public static final String BUNDLE_TAG = "BUNDLE";
   public static final String HOME_MODULE_NAME = "main";
   public static final String BUNDLE_FILE_PREFIX = "cached-bundle-";
+  public static final String BUNDLE_DELTA_MEDIA_TYPE = "application/vnd.expo.bundle-delta";
+  public static final String BUNDLE_DELTA_BASE_HASH_HEADER = "Expo-Bundle-Delta-Base";
+  public static final String BUNDLE_HASH_HEADER = "Expo-Bundle-Hash";
   public static final String KERNEL_BUNDLE_ID = "kernel";
   public static final String OPEN_OPTIMISTIC_EXPERIENCE_ACTIVITY_KEY = "openOptimisticExperienceActivity";
   public static final String OPEN_EXPERIENCE_ACTIVITY_KEY = "openExperienceActivity";
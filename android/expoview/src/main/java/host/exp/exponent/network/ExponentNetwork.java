@@ -18,6 +18,8 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import expolib_v1.okhttp3.Cache;
+import expolib_v1.okhttp3.ConnectionPool;
+import expolib_v1.okhttp3.Dispatcher;
 import expolib_v1.okhttp3.Interceptor;
 import expolib_v1.okhttp3.OkHttpClient;
 import expolib_v1.okhttp3.Protocol;
@@ -26,6 +28,7 @@ import expolib_v1.okhttp3.Response;
 import expolib_v1.okhttp3.ResponseBody;
 import expolib_v1.okio.BufferedSource;
 import expolib_v1.okio.Okio;
+import host.exp.exponent.kernel.KernelConstants;
 import host.exp.exponent.storage.ExponentSharedPreferences;
 import host.exp.expoview.ExpoViewBuildConfig;
 
@@ -35,6 +38,7 @@ public class ExponentNetwork {
   public static final String IGNORE_INTERCEPTORS_HEADER = "exponentignoreinterceptors";
 
   private static final String CACHE_DIR = "okhttp";
+  private static final int CACHE_SIZE = 40 * 1024 * 1024; // 40 MiB
   private static final int ONE_YEAR_IN_SECONDS = 60 * 60 * 24 * 365;
 
   private Context mContext;
@@ -42,41 +46,67 @@ public class ExponentNetwork {
   private ExponentHttpClient mLongTimeoutClient;
   private OkHttpClient mNoCacheClient;
 
+  // Every client variant shares these so that manifest, bundle and asset requests reuse
+  // warm connections and there is only ever one DiskLruCache journal open on CACHE_DIR.
+  private final ConnectionPool mConnectionPool = new ConnectionPool();
+  private final Dispatcher mDispatcher = new Dispatcher();
+  private Cache mCache;
+
   // This fixes OkHttp bug where if you don't read a response, it'll never cache that request in the future
   public static void flushResponse(ExpoResponse response) throws IOException {
     response.body().bytes();
   }
 
   public interface OkHttpClientFactory {
-    OkHttpClient getNewClient();
+    OkHttpClient getClient();
+  }
+
+  // Builds its client on first use and hands out the same instance afterwards.
+  private static abstract class LazyOkHttpClientFactory implements OkHttpClientFactory {
+    private OkHttpClient mOkHttpClient;
+
+    protected abstract OkHttpClient buildClient();
+
+    @Override
+    public synchronized OkHttpClient getClient() {
+      if (mOkHttpClient == null) {
+        mOkHttpClient = buildClient();
+      }
+      return mOkHttpClient;
+    }
   }
 
   @Inject
   public ExponentNetwork(Context context, ExponentSharedPreferences exponentSharedPreferences) {
     mContext = context.getApplicationContext();
 
-    mClient = new ExponentHttpClient(mContext, exponentSharedPreferences, new OkHttpClientFactory() {
+    mClient = new ExponentHttpClient(mContext, exponentSharedPreferences, new LazyOkHttpClientFactory() {
       @Override
-      public OkHttpClient getNewClient() {
+      protected OkHttpClient buildClient() {
         return createHttpClientBuilder().build();
       }
     });
 
-    mLongTimeoutClient = new ExponentHttpClient(mContext, exponentSharedPreferences, new OkHttpClientFactory() {
+    mLongTimeoutClient = new ExponentHttpClient(mContext, exponentSharedPreferences, new LazyOkHttpClientFactory() {
       @Override
-      public OkHttpClient getNewClient() {
-        OkHttpClient longTimeoutHttpClient = createHttpClientBuilder()
+      protected OkHttpClient buildClient() {
+        return createHttpClientBuilder()
             .readTimeout(2, TimeUnit.MINUTES)
             .build();
-        return longTimeoutHttpClient;
       }
     });
 
-    mNoCacheClient = new OkHttpClient.Builder().build();
+    mNoCacheClient = createSharedClientBuilder().build();
+  }
+
+  private OkHttpClient.Builder createSharedClientBuilder() {
+    return new OkHttpClient.Builder()
+        .connectionPool(mConnectionPool)
+        .dispatcher(mDispatcher);
   }
 
   private OkHttpClient.Builder createHttpClientBuilder() {
-    OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+    OkHttpClient.Builder clientBuilder = createSharedClientBuilder()
         .cache(getCache());
     if (ExpoViewBuildConfig.DEBUG) {
       // FIXME: 8/9/17
@@ -100,13 +130,39 @@ public class ExponentNetwork {
     return mNoCacheClient;
   }
 
-  public Cache getCache() {
-    int cacheSize = 40 * 1024 * 1024; // 40 MiB
+  public synchronized Cache getCache() {
+    if (mCache == null) {
+      // Use getFilesDir() because it gives us much more space than getCacheDir()
+      final File directory = new File(mContext.getFilesDir(), CACHE_DIR);
+      mCache = new Cache(directory, CACHE_SIZE);
+    }
+    return mCache;
+  }
+
+  public ConnectionPool getConnectionPool() {
+    return mConnectionPool;
+  }
+
+  public int getCacheHitCount() {
+    return getCache().hitCount();
+  }
+
+  public int getCacheNetworkCount() {
+    return getCache().networkCount();
+  }
+
+  public int getCacheRequestCount() {
+    return getCache().requestCount();
+  }
+
+  public int getPooledConnectionCount() {
+    return mConnectionPool.connectionCount();
+  }
 
-    // Use getFilesDir() because it gives us much more space than getCacheDir()
-    final File directory = new File(mContext.getFilesDir(), CACHE_DIR);
-    return new Cache(directory, cacheSize);
+  public int getIdlePooledConnectionCount() {
+    return mConnectionPool.idleConnectionCount();
   }
+
   public boolean isNetworkAvailable() {
     return isNetworkAvailable(mContext);
   }
@@ -195,6 +251,13 @@ public class ExponentNetwork {
           responseCacheHeaderValue = "public, only-if-cached";
         }
 
+        String contentType = response.header("Content-Type");
+        if (contentType != null && contentType.startsWith(KernelConstants.BUNDLE_DELTA_MEDIA_TYPE)) {
+          // A bundle delta only applies to the base bundle it was requested against, which isn't
+          // part of the cache key. Never cache it so it can't be served for a plain bundle request.
+          responseCacheHeaderValue = "no-store";
+        }
+
         return response.newBuilder()
             .removeHeader("Pragma")
             .removeHeader("Cache-Control")
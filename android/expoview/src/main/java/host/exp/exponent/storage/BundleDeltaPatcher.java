@@ -0,0 +1,109 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package host.exp.exponent.storage;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+// Applies a bundle delta against a bundle we already have on disk.
+//
+// A delta is a 4 byte magic ("EXBD"), a version byte and a list of operations:
+//   COPY   (0x01) <int64 offset> <int32 length>  copy length bytes of the base bundle at offset
+//   INSERT (0x02) <int32 length> <length bytes>  write the given bytes as-is
+//   END    (0x00)
+// All integers are big endian. This is the output of a chunked rolling-hash diff: unchanged modules
+// turn into COPY ranges and only the modules that changed are sent over the wire.
+public class BundleDeltaPatcher {
+
+  private static final byte[] MAGIC = new byte[] { 'E', 'X', 'B', 'D' };
+  private static final int VERSION = 1;
+
+  private static final int OP_END = 0x00;
+  private static final int OP_COPY = 0x01;
+  private static final int OP_INSERT = 0x02;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // Reads the delta from patchStream and writes the patched bundle to outputStream.
+  // Returns the number of bytes written. Neither stream is closed.
+  public static long apply(final File baseFile, final InputStream patchStream, final OutputStream outputStream) throws IOException {
+    DataInputStream patch = new DataInputStream(patchStream);
+    readHeader(patch);
+
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long written = 0;
+    RandomAccessFile base = new RandomAccessFile(baseFile, "r");
+    try {
+      long baseLength = base.length();
+      while (true) {
+        int op = patch.read();
+        if (op == OP_END) {
+          return written;
+        }
+
+        if (op == OP_COPY) {
+          long offset = patch.readLong();
+          int length = readLength(patch);
+          if (offset < 0 || offset + length > baseLength) {
+            throw new IOException("Bundle delta copies past the end of the base bundle");
+          }
+          base.seek(offset);
+          int remaining = length;
+          while (remaining > 0) {
+            int count = Math.min(remaining, buffer.length);
+            base.readFully(buffer, 0, count);
+            outputStream.write(buffer, 0, count);
+            remaining -= count;
+          }
+          written += length;
+        } else if (op == OP_INSERT) {
+          int length = readLength(patch);
+          int remaining = length;
+          while (remaining > 0) {
+            int count = patch.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (count == -1) {
+              throw new EOFException("Bundle delta ended in the middle of an insert");
+            }
+            outputStream.write(buffer, 0, count);
+            remaining -= count;
+          }
+          written += length;
+        } else if (op == -1) {
+          throw new EOFException("Bundle delta is missing its end marker");
+        } else {
+          throw new IOException("Unknown bundle delta operation " + op);
+        }
+      }
+    } finally {
+      base.close();
+    }
+  }
+
+  private static void readHeader(final DataInputStream patch) throws IOException {
+    byte[] magic = new byte[MAGIC.length];
+    patch.readFully(magic);
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (magic[i] != MAGIC[i]) {
+        throw new IOException("Not a bundle delta");
+      }
+    }
+
+    int version = patch.read();
+    if (version != VERSION) {
+      throw new IOException("Unsupported bundle delta version " + version);
+    }
+  }
+
+  private static int readLength(final DataInputStream patch) throws IOException {
+    int length = patch.readInt();
+    if (length < 0) {
+      throw new IOException("Negative length in bundle delta");
+    }
+    return length;
+  }
+}
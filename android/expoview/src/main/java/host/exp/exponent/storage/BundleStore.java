@@ -0,0 +1,387 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package host.exp.exponent.storage;
+
+import android.content.Context;
+import android.system.ErrnoException;
+import android.system.Os;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import expolib_v1.okio.BufferedSink;
+import expolib_v1.okio.HashingSink;
+import expolib_v1.okio.Okio;
+import host.exp.exponent.analytics.EXL;
+import host.exp.exponent.kernel.KernelConstants;
+import host.exp.exponent.utils.ExpFileUtils;
+
+// Content-addressed storage for downloaded JS bundles.
+//
+// Bundle bodies live once under files/bundles/<sha256>. The per-url, per-abi paths that we hand
+// to React Native (files/<abiVersion>/cached-bundle-...) are hard links to those blobs, so the
+// same bundle fetched for several urls or SDK versions only takes up disk space once. An index
+// tracks when each path was last used and collect() evicts the least recently used paths until
+// the blobs fit in MAX_SIZE_BYTES.
+public class BundleStore {
+
+  private static final String TAG = BundleStore.class.getSimpleName();
+
+  private static final String STORE_DIR = "bundles";
+  private static final String INDEX_FILE = "index.json";
+  private static final String HASH_KEY = "hash";
+  private static final String LAST_USED_KEY = "lastUsed";
+  private static final long MAX_SIZE_BYTES = 100 * 1024 * 1024; // 100 MiB
+
+  private static class Entry {
+    // null for bundle files written before the store existed
+    String hash;
+    long lastUsed;
+
+    Entry(String hash, long lastUsed) {
+      this.hash = hash;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  private final File mFilesDir;
+  private final File mStoreDir;
+  private final Map<String, Entry> mEntries = new HashMap<>();
+  private boolean mIsIndexLoaded = false;
+  // Bundle files written after the store exists are always indexed, so untracked ones
+  // only have to be looked for once per process.
+  private boolean mHasAdoptedUntrackedBundleFiles = false;
+
+  public BundleStore(Context context) {
+    mFilesDir = context.getFilesDir();
+    mStoreDir = new File(mFilesDir, STORE_DIR);
+  }
+
+  // Streams inputStream into the store and makes bundleFile point at the resulting blob.
+  // Returns the number of bytes read.
+  public synchronized long write(final InputStream inputStream, final File bundleFile) throws IOException {
+    loadIndexIfNeeded();
+    ExpFileUtils.ensureDirExists(mStoreDir);
+
+    final File tempFile = File.createTempFile("bundle", ".tmp", mStoreDir);
+    FileOutputStream fileOutputStream = null;
+    String hash;
+    long byteCount;
+    boolean success = false;
+    try {
+      fileOutputStream = new FileOutputStream(tempFile);
+      HashingSink hashingSink = HashingSink.sha256(Okio.sink(fileOutputStream));
+      BufferedSink sink = Okio.buffer(hashingSink);
+      byteCount = sink.writeAll(Okio.source(inputStream));
+      sink.flush();
+      fileOutputStream.getFD().sync();
+      hash = hashingSink.hash().hex();
+      success = true;
+    } finally {
+      IOUtils.closeQuietly(fileOutputStream);
+      IOUtils.closeQuietly(inputStream);
+      if (!success) {
+        tempFile.delete();
+      }
+    }
+
+    commit(tempFile, hash, bundleFile);
+    return byteCount;
+  }
+
+  // Applies the delta read from patchStream to baseFile and makes bundleFile point at the result.
+  // Throws if the patched bundle doesn't hash to expectedHash. Returns the size of the patched bundle.
+  public synchronized long writePatched(final InputStream patchStream, final File baseFile, final String expectedHash, final File bundleFile) throws IOException {
+    loadIndexIfNeeded();
+    ExpFileUtils.ensureDirExists(mStoreDir);
+
+    final File tempFile = File.createTempFile("bundle", ".tmp", mStoreDir);
+    FileOutputStream fileOutputStream = null;
+    String hash;
+    long byteCount;
+    boolean success = false;
+    try {
+      fileOutputStream = new FileOutputStream(tempFile);
+      HashingSink hashingSink = HashingSink.sha256(Okio.sink(fileOutputStream));
+      BufferedSink sink = Okio.buffer(hashingSink);
+      byteCount = BundleDeltaPatcher.apply(baseFile, patchStream, sink.outputStream());
+      sink.flush();
+      hash = hashingSink.hash().hex();
+      if (!hash.equalsIgnoreCase(expectedHash)) {
+        throw new IOException("Patched bundle hash " + hash + " does not match expected hash " + expectedHash);
+      }
+      fileOutputStream.getFD().sync();
+      success = true;
+    } finally {
+      IOUtils.closeQuietly(fileOutputStream);
+      IOUtils.closeQuietly(patchStream);
+      if (!success) {
+        tempFile.delete();
+      }
+    }
+
+    commit(tempFile, hash, bundleFile);
+    return byteCount;
+  }
+
+  // Returns the SHA-256 of the bundle at bundleFile, or null if the store didn't write it.
+  public synchronized String getHash(final File bundleFile) {
+    loadIndexIfNeeded();
+    Entry entry = mEntries.get(bundleFile.getAbsolutePath());
+    if (entry == null || !bundleFile.exists()) {
+      return null;
+    }
+    return entry.hash;
+  }
+
+  private void commit(final File tempFile, final String hash, final File bundleFile) throws IOException {
+    File blob = blobForHash(hash);
+    if (blob.exists()) {
+      EXL.d(TAG, "Bundle " + hash + " is already stored, reusing it");
+      tempFile.delete();
+    } else if (!tempFile.renameTo(blob)) {
+      tempFile.delete();
+      throw new IOException("Could not move bundle into " + blob.getAbsolutePath());
+    }
+
+    linkBundleFile(blob, bundleFile);
+    mEntries.put(bundleFile.getAbsolutePath(), new Entry(hash, System.currentTimeMillis()));
+    saveIndex();
+  }
+
+  // Records that bundleFile is about to be loaded so it is the last candidate for eviction.
+  public synchronized void markUsed(final File bundleFile) {
+    loadIndexIfNeeded();
+    String path = bundleFile.getAbsolutePath();
+    Entry entry = mEntries.get(path);
+    if (entry == null) {
+      mEntries.put(path, new Entry(null, System.currentTimeMillis()));
+    } else {
+      entry.lastUsed = System.currentTimeMillis();
+    }
+    saveIndex();
+  }
+
+  // Drops index entries whose files are gone, picks up bundle files the index doesn't know about
+  // (on the first call only) and evicts least recently used bundle paths until the store fits in MAX_SIZE_BYTES.
+  // keepFile is never evicted.
+  public synchronized void collect(final File keepFile) {
+    loadIndexIfNeeded();
+
+    adoptUntrackedBundleFiles();
+
+    Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      if (!new File(iterator.next().getKey()).exists()) {
+        iterator.remove();
+      }
+    }
+
+    List<String> paths = new ArrayList<>(mEntries.keySet());
+    Collections.sort(paths, new Comparator<String>() {
+      @Override
+      public int compare(String lhs, String rhs) {
+        return Long.compare(mEntries.get(lhs).lastUsed, mEntries.get(rhs).lastUsed);
+      }
+    });
+
+    long totalSize = totalSize();
+    String keepPath = keepFile == null ? null : keepFile.getAbsolutePath();
+    for (String path : paths) {
+      if (totalSize <= MAX_SIZE_BYTES) {
+        break;
+      }
+      if (path.equals(keepPath)) {
+        continue;
+      }
+
+      Entry entry = mEntries.remove(path);
+      File file = new File(path);
+      long freed = 0;
+      if (entry.hash == null) {
+        freed = file.length();
+      } else if (!isHashReferenced(entry.hash)) {
+        File blob = blobForHash(entry.hash);
+        freed = blob.length();
+        blob.delete();
+      }
+      if (file.delete()) {
+        EXL.d(TAG, "Evicted bundle " + path);
+      }
+      totalSize -= freed;
+    }
+
+    deleteUnreferencedBlobs();
+    saveIndex();
+  }
+
+  private long totalSize() {
+    long size = 0;
+    Set<String> countedHashes = new HashSet<>();
+    for (Map.Entry<String, Entry> entry : mEntries.entrySet()) {
+      String hash = entry.getValue().hash;
+      if (hash == null) {
+        size += new File(entry.getKey()).length();
+      } else if (countedHashes.add(hash)) {
+        size += blobForHash(hash).length();
+      }
+    }
+    return size;
+  }
+
+  private boolean isHashReferenced(final String hash) {
+    for (Entry entry : mEntries.values()) {
+      if (hash.equals(entry.hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void adoptUntrackedBundleFiles() {
+    if (mHasAdoptedUntrackedBundleFiles) {
+      return;
+    }
+    mHasAdoptedUntrackedBundleFiles = true;
+
+    File[] directories = mFilesDir.listFiles();
+    if (directories == null) {
+      return;
+    }
+
+    for (File directory : directories) {
+      if (!directory.isDirectory() || directory.equals(mStoreDir)) {
+        continue;
+      }
+
+      File[] files = directory.listFiles();
+      if (files == null) {
+        continue;
+      }
+
+      for (File file : files) {
+        if (file.getName().startsWith(KernelConstants.BUNDLE_FILE_PREFIX) && !mEntries.containsKey(file.getAbsolutePath())) {
+          mEntries.put(file.getAbsolutePath(), new Entry(null, file.lastModified()));
+        }
+      }
+    }
+  }
+
+  private void deleteUnreferencedBlobs() {
+    File[] blobs = mStoreDir.listFiles();
+    if (blobs == null) {
+      return;
+    }
+
+    Set<String> referencedHashes = new HashSet<>();
+    for (Entry entry : mEntries.values()) {
+      if (entry.hash != null) {
+        referencedHashes.add(entry.hash);
+      }
+    }
+
+    for (File blob : blobs) {
+      if (!blob.getName().equals(INDEX_FILE) && !referencedHashes.contains(blob.getName())) {
+        blob.delete();
+      }
+    }
+  }
+
+  private File blobForHash(final String hash) {
+    return new File(mStoreDir, hash);
+  }
+
+  private void linkBundleFile(final File blob, final File bundleFile) throws IOException {
+    File linkFile = new File(bundleFile.getParentFile(), bundleFile.getName() + ".link");
+    linkFile.delete();
+    try {
+      Os.link(blob.getAbsolutePath(), linkFile.getAbsolutePath());
+    } catch (ErrnoException | RuntimeException e) {
+      // Some filesystems don't support hard links. Fall back to a plain copy.
+      EXL.d(TAG, "Could not link bundle, copying instead: " + e.getMessage());
+      FileUtils.copyFile(blob, linkFile);
+    }
+
+    if (!linkFile.renameTo(bundleFile)) {
+      linkFile.delete();
+      throw new IOException("Could not move bundle into " + bundleFile.getAbsolutePath());
+    }
+  }
+
+  private void loadIndexIfNeeded() {
+    if (mIsIndexLoaded) {
+      return;
+    }
+    mIsIndexLoaded = true;
+
+    File indexFile = new File(mStoreDir, INDEX_FILE);
+    if (!indexFile.exists()) {
+      return;
+    }
+
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(indexFile);
+      JSONObject index = new JSONObject(IOUtils.toString(inputStream, "UTF-8"));
+      Iterator<String> keys = index.keys();
+      while (keys.hasNext()) {
+        String path = keys.next();
+        JSONObject entry = index.getJSONObject(path);
+        mEntries.put(path, new Entry(entry.optString(HASH_KEY, null), entry.optLong(LAST_USED_KEY, 0)));
+      }
+    } catch (IOException | JSONException e) {
+      EXL.e(TAG, "Could not read bundle index, starting over: " + e.getMessage());
+      mEntries.clear();
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  private void saveIndex() {
+    FileOutputStream outputStream = null;
+    try {
+      ExpFileUtils.ensureDirExists(mStoreDir);
+
+      JSONObject index = new JSONObject();
+      for (Map.Entry<String, Entry> entry : mEntries.entrySet()) {
+        JSONObject entryJson = new JSONObject();
+        if (entry.getValue().hash != null) {
+          entryJson.put(HASH_KEY, entry.getValue().hash);
+        }
+        entryJson.put(LAST_USED_KEY, entry.getValue().lastUsed);
+        index.put(entry.getKey(), entryJson);
+      }
+
+      File tempFile = new File(mStoreDir, INDEX_FILE + ".tmp");
+      outputStream = new FileOutputStream(tempFile);
+      outputStream.write(index.toString().getBytes("UTF-8"));
+      outputStream.getFD().sync();
+      outputStream.close();
+      outputStream = null;
+      if (!tempFile.renameTo(new File(mStoreDir, INDEX_FILE))) {
+        EXL.e(TAG, "Could not save bundle index");
+      }
+    } catch (IOException | JSONException e) {
+      EXL.e(TAG, "Could not save bundle index: " + e.getMessage());
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+}
@@ -16,14 +16,11 @@ import android.provider.Settings;
 import android.util.Log;
 
 import com.crashlytics.android.Crashlytics;
-import com.facebook.common.internal.ByteStreams;
 import com.facebook.drawee.backends.pipeline.Fresco;
 import com.facebook.stetho.Stetho;
 import com.raizlabs.android.dbflow.config.FlowManager;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
-import org.apache.commons.io.output.TeeOutputStream;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -32,7 +29,6 @@ import org.spongycastle.jce.provider.BouncyCastleProvider;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -42,7 +38,6 @@ import java.net.URLEncoder;
 import java.security.Provider;
 import java.security.Security;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -71,6 +66,7 @@ import host.exp.exponent.network.ExpoHttpCallback;
 import host.exp.exponent.network.ExpoResponse;
 import host.exp.exponent.network.ExponentHttpClient;
 import host.exp.exponent.network.ExponentNetwork;
+import host.exp.exponent.storage.BundleStore;
 import host.exp.exponent.storage.ExponentSharedPreferences;
 import host.exp.exponent.utils.PermissionsHelper;
 import versioned.host.exp.exponent.ExponentPackageDelegate;
@@ -85,18 +81,12 @@ public class Exponent {
   private Context mContext;
   private Application mApplication;
   private Activity mActivity;
-  private Map<String, String> mBundleStrings = new HashMap<>();
+  private BundleStore mBundleStore;
 
+  // Bundles are streamed straight to disk and never held on the heap. Returning null tells
+  // CatalystInstanceImpl to load the script from the file, which React Native mmaps natively.
   public String getBundleSource(final String path) {
-    synchronized (mBundleStrings) {
-      if (mBundleStrings.containsKey(path)) {
-        final String result = mBundleStrings.get(path);
-        mBundleStrings.remove(path);
-        return result;
-      } else {
-        return null;
-      }
-    }
+    return null;
   }
 
   @Inject
@@ -126,6 +116,7 @@ public class Exponent {
 
     mContext = context;
     mApplication = application;
+    mBundleStore = new BundleStore(context);
 
     // Ensure Spongy Castle installed so the security providers don't change
     // non-deterministically during the process's lifetime
@@ -329,6 +320,12 @@ public class Exponent {
   }
 
   public boolean loadJSBundle(JSONObject manifest, final String urlString, final String id, String abiVersion, final BundleListener bundleListener, boolean shouldForceNetwork, boolean shouldForceCache) {
+    return loadJSBundle(manifest, urlString, id, abiVersion, bundleListener, shouldForceNetwork, shouldForceCache, null);
+  }
+
+  // If `baseBundleUrl` is the url of a bundle we already have for this experience, the server may
+  // respond with a delta against it instead of the whole bundle.
+  public boolean loadJSBundle(JSONObject manifest, final String urlString, final String id, String abiVersion, final BundleListener bundleListener, boolean shouldForceNetwork, boolean shouldForceCache, final String baseBundleUrl) {
     if (!id.equals(KernelConstants.KERNEL_BUNDLE_ID)) {
       Analytics.markEvent(Analytics.TimedEvent.STARTED_FETCHING_BUNDLE);
     }
@@ -350,13 +347,23 @@ public class Exponent {
     // support that right now so we need to write the response to a file.
     // getCacheDir() doesn't work here! Some phones clean the file up in between when we check
     // file.exists() and when we feed it into React Native!
-    // TODO: clean up files here!
-    final String fileName = KernelConstants.BUNDLE_FILE_PREFIX + id + Integer.toString(urlString.hashCode()) + '-' + abiVersion;
+    // Files are deduplicated and garbage collected by BundleStore.
+    final String fileName = bundleFileName(urlString, id, abiVersion);
     final File directory = new File(mContext.getFilesDir(), abiVersion);
     if (!directory.exists()) {
       directory.mkdir();
     }
 
+    File baseFile = null;
+    String baseHash = null;
+    if (baseBundleUrl != null && !baseBundleUrl.equals(urlString) && !isDeveloping && !shouldForceCache) {
+      baseFile = new File(directory, bundleFileName(baseBundleUrl, id, abiVersion));
+      baseHash = mBundleStore.getHash(baseFile);
+    }
+    final File deltaBaseFile = baseHash != null ? baseFile : null;
+    // Development bundles always come from the packager, never from disk.
+    final boolean canUseStoredBundle = !isDeveloping;
+
     try {
       Request.Builder requestBuilder = KernelConstants.KERNEL_BUNDLE_ID.equals(id)
           // TODO(eric): remove once home bundle is loaded normally
@@ -365,16 +372,29 @@ public class Exponent {
       if (shouldForceNetwork) {
         requestBuilder.cacheControl(CacheControl.FORCE_NETWORK);
       }
+      if (deltaBaseFile != null) {
+        requestBuilder.header(KernelConstants.BUNDLE_DELTA_BASE_HASH_HEADER, baseHash);
+        requestBuilder.header("Accept", KernelConstants.BUNDLE_DELTA_MEDIA_TYPE + ", */*");
+      }
       Request request = requestBuilder.build();
       // Use OkHttpClient with long read timeout for dev bundles
       ExponentHttpClient.SafeCallback callback = new ExponentHttpClient.SafeCallback() {
         @Override
         public void onFailure(IOException e) {
+          if (canUseStoredBundle && loadStoredBundle(new File(directory, fileName), bundleListener)) {
+            return;
+          }
           bundleListener.onError(e);
         }
 
         @Override
         public void onResponse(ExpoResponse response) {
+          // Unsatisfiable only-if-cached requests end up here without a network response.
+          if (!response.isSuccessful() && response.networkResponse() == null && canUseStoredBundle
+              && loadStoredBundle(new File(directory, fileName), bundleListener)) {
+            return;
+          }
+
           if (!response.isSuccessful()) {
             String body = "(could not render body)";
             try {
@@ -403,38 +423,18 @@ public class Exponent {
               EXL.d(TAG, "Got cached OkHttp response for " + urlString);
               if (sourceFile.exists()) {
                 hasCachedSourceFile = true;
+                mBundleStore.markUsed(sourceFile);
                 EXL.d(TAG, "Have cached source file for " + urlString);
               }
             }
 
             if (!hasCachedSourceFile) {
-              InputStream inputStream = null;
-              FileOutputStream fileOutputStream = null;
-              ByteArrayOutputStream byteArrayOutputStream = null;
-              TeeOutputStream teeOutputStream = null;
-
-              try {
-                EXL.d(TAG, "Do not have cached source file for " + urlString);
-                inputStream = response.body().byteStream();
-
-                fileOutputStream = new FileOutputStream(sourceFile);
-                byteArrayOutputStream = new ByteArrayOutputStream();
-
-                // Multiplex the stream. Write both to file and string.
-                teeOutputStream = new TeeOutputStream(fileOutputStream, byteArrayOutputStream);
-
-                ByteStreams.copy(inputStream, teeOutputStream);
-                teeOutputStream.flush();
-
-                mBundleStrings.put(sourceFile.getAbsolutePath(), byteArrayOutputStream.toString());
-
-                fileOutputStream.flush();
-                fileOutputStream.getFD().sync();
-              } finally {
-                IOUtils.closeQuietly(teeOutputStream);
-                IOUtils.closeQuietly(fileOutputStream);
-                IOUtils.closeQuietly(byteArrayOutputStream);
-                IOUtils.closeQuietly(inputStream);
+              EXL.d(TAG, "Do not have cached source file for " + urlString);
+              String contentType = response.headers().get("Content-Type");
+              if (contentType != null && contentType.startsWith(KernelConstants.BUNDLE_DELTA_MEDIA_TYPE)) {
+                writePatchedBundleToFile(response, deltaBaseFile, sourceFile);
+              } else {
+                writeBundleToFile(response.body().byteStream(), sourceFile);
               }
             }
 
@@ -446,6 +446,8 @@ public class Exponent {
               printSourceFile(sourceFile.getAbsolutePath());
             }
 
+            mBundleStore.collect(sourceFile);
+
             mExpoHandler.post(new Runnable() {
               @Override
               public void run() {
@@ -480,6 +482,54 @@ public class Exponent {
     return sourceFile.exists();
   }
 
+  // Bundles patched from a delta have no OkHttp cache entry, delta responses are never stored,
+  // but the complete bundle is in the bundle store. Loads it when OkHttp can't provide the bundle.
+  private boolean loadStoredBundle(final File sourceFile, final BundleListener bundleListener) {
+    if (mBundleStore.getHash(sourceFile) == null) {
+      return false;
+    }
+
+    EXL.d(TAG, "Using stored bundle " + sourceFile.getName() + " since the network is unavailable");
+    mBundleStore.markUsed(sourceFile);
+    mExpoHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        bundleListener.onBundleLoaded(sourceFile.getAbsolutePath());
+      }
+    });
+    return true;
+  }
+
+  // Streams the bundle through Okio segments into the bundle store, which renames it into place
+  // once it's complete, so a partially written bundle is never picked up by React Native.
+  private void writeBundleToFile(final InputStream inputStream, final File sourceFile) throws IOException {
+    final Runtime runtime = Runtime.getRuntime();
+    final long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+    long byteCount = mBundleStore.write(inputStream, sourceFile);
+
+    final long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+    Analytics.markBundleWritten(byteCount, Math.max(0, heapAfter - heapBefore));
+  }
+
+  private void writePatchedBundleToFile(final ExpoResponse response, final File baseFile, final File sourceFile) throws IOException {
+    if (baseFile == null || !baseFile.exists()) {
+      throw new IOException("Received a bundle delta but the base bundle is not available");
+    }
+
+    String expectedHash = response.headers().get(KernelConstants.BUNDLE_HASH_HEADER);
+    if (expectedHash == null) {
+      throw new IOException("Received a bundle delta without a " + KernelConstants.BUNDLE_HASH_HEADER + " header");
+    }
+
+    long byteCount = mBundleStore.writePatched(response.body().byteStream(), baseFile, expectedHash, sourceFile);
+    EXL.d(TAG, "Patched " + baseFile.getName() + " into " + sourceFile.getName() + " (" + byteCount + " bytes)");
+  }
+
+  private static String bundleFileName(final String urlString, final String id, final String abiVersion) {
+    return KernelConstants.BUNDLE_FILE_PREFIX + id + Integer.toString(urlString.hashCode()) + '-' + abiVersion;
+  }
+
   private void printSourceFile(String path) {
     EXL.d(KernelConstants.BUNDLE_TAG, "Printing bundle:");
     InputStream inputStream = null;
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2015-present, Horcrux.
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT-style license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+
+package versioned.host.exp.exponent.modules.api.components.svg;
+
+import android.content.res.AssetManager;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide caches of typefaces and text measurements used to lay out text.
+ * Loading a typeface from assets and measuring text are both expensive,
+ * and charts with many labels used to do them for every label on every layout.
+ */
+class FontCache {
+    private static final String FONTS = "fonts/";
+    private static final String OTF = ".otf";
+    private static final String TTF = ".ttf";
+
+    private static final int MAX_MEASUREMENTS = 1024;
+
+    // { "<fontFamily>|<fontStyle>": Typeface }, null values stand for families which couldn't be loaded
+    private static final Map<String, Typeface> sTypefaces = new HashMap<>();
+
+    private static final LruCache<MeasurementKey, Measurement> sMeasurements = new LruCache<>(MAX_MEASUREMENTS);
+    private static final MeasurementKey sLookupKey = new MeasurementKey();
+
+    /**
+     * Returns the typeface of the font family from the app's fonts/ assets, or the system one.
+     * Returns null if the family couldn't be loaded, in which case the default typeface is used.
+     */
+    static synchronized @Nullable Typeface getTypeface(AssetManager assetManager, @Nullable String fontFamily, int fontStyle) {
+        String key = fontFamily + "|" + fontStyle;
+        if (sTypefaces.containsKey(key)) {
+            return sTypefaces.get(key);
+        }
+
+        Typeface typeface = null;
+        try {
+            String path = FONTS + fontFamily + OTF;
+            typeface = Typeface.createFromAsset(assetManager, path);
+        } catch (Exception ignored) {
+            try {
+                String path = FONTS + fontFamily + TTF;
+                typeface = Typeface.createFromAsset(assetManager, path);
+            } catch (Exception ignored2) {
+                try {
+                    typeface = Typeface.create(fontFamily, fontStyle);
+                } catch (Exception ignored3) {
+                }
+            }
+        }
+
+        sTypefaces.put(key, typeface);
+        return typeface;
+    }
+
+    /**
+     * Returns widths of the characters of the text, as {@link Paint#getTextWidths} does.
+     * The returned array is shared and mustn't be modified.
+     */
+    static synchronized float[] getTextWidths(Paint paint, String text) {
+        Measurement measurement = getMeasurement(paint, text);
+        if (measurement.widths == null) {
+            measurement.widths = new float[text.length()];
+            paint.getTextWidths(text, measurement.widths);
+        }
+        return measurement.widths;
+    }
+
+    /**
+     * Returns width of the text, as {@link Paint#measureText} does.
+     */
+    static synchronized float measureText(Paint paint, String text) {
+        Measurement measurement = getMeasurement(paint, text);
+        if (Float.isNaN(measurement.width)) {
+            measurement.width = paint.measureText(text);
+        }
+        return measurement.width;
+    }
+
+    private static Measurement getMeasurement(Paint paint, String text) {
+        sLookupKey.set(paint, text);
+        Measurement measurement = sMeasurements.get(sLookupKey);
+
+        if (measurement == null) {
+            measurement = new Measurement();
+            sMeasurements.put(sLookupKey.copy(), measurement);
+        }
+        return measurement;
+    }
+
+    private static class Measurement {
+        @Nullable float[] widths;
+        float width = Float.NaN;
+    }
+
+    /**
+     * Text along with the state of the paint it's measured with.
+     * Typefaces are compared by identity, which is stable as they come from the cache above.
+     */
+    private static class MeasurementKey {
+        private @Nullable Typeface mTypeface;
+        private float mTextSize;
+        private float mTextScaleX;
+        private int mFlags;
+        private @Nullable String mFontFeatureSettings;
+        private String mText;
+        private int mHashCode;
+
+        void set(Paint paint, String text) {
+            set(paint.getTypeface(), paint.getTextSize(), paint.getTextScaleX(), paint.getFlags(), paint.getFontFeatureSettings(), text);
+        }
+
+        private void set(@Nullable Typeface typeface, float textSize, float textScaleX, int flags, @Nullable String fontFeatureSettings, String text) {
+            mTypeface = typeface;
+            mTextSize = textSize;
+            mTextScaleX = textScaleX;
+            mFlags = flags;
+            mFontFeatureSettings = fontFeatureSettings;
+            mText = text;
+
+            int hashCode = System.identityHashCode(typeface);
+            hashCode = 31 * hashCode + Float.floatToIntBits(textSize);
+            hashCode = 31 * hashCode + Float.floatToIntBits(textScaleX);
+            hashCode = 31 * hashCode + flags;
+            hashCode = 31 * hashCode + (fontFeatureSettings != null ? fontFeatureSettings.hashCode() : 0);
+            mHashCode = 31 * hashCode + text.hashCode();
+        }
+
+        MeasurementKey copy() {
+            MeasurementKey key = new MeasurementKey();
+            key.set(mTypeface, mTextSize, mTextScaleX, mFlags, mFontFeatureSettings, mText);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MeasurementKey)) {
+                return false;
+            }
+            MeasurementKey other = (MeasurementKey) o;
+            return mTypeface == other.mTypeface
+                    && mTextSize == other.mTextSize
+                    && mTextScaleX == other.mTextScaleX
+                    && mFlags == other.mFlags
+                    && (mFontFeatureSettings == null ? other.mFontFeatureSettings == null : mFontFeatureSettings.equals(other.mFontFeatureSettings))
+                    && mText.equals(other.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -39,6 +39,14 @@ class GroupView extends RenderableView {
     public void setFont(@Nullable ReadableMap font) {
         mFont = font;
         invalidate();
+        releaseTextLayout();
+    }
+
+    /**
+     * Releases the laid out glyphs of text within the element, fonts are inherited by descendants.
+     */
+    void releaseTextLayout() {
+        releaseCachedPath();
     }
 
     void setupGlyphContext(Canvas canvas) {
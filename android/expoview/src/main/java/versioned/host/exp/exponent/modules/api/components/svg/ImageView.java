@@ -149,7 +149,7 @@ class ImageView extends RenderableView {
                                      mLoading.set(false);
                                      SvgView view = getSvgView();
                                      if (view != null) {
-                                         view.invalidate();
+                                         view.invalidateNode(ImageView.this);
                                      }
                                  }
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015-present, Horcrux.
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT-style license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+
+package versioned.host.exp.exponent.modules.api.components.svg;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pool of offscreen ARGB_8888 bitmaps keyed by their size.
+ * SVGs are rendered into a bitmap of the view's size on every invalidation, so animated SVGs
+ * would otherwise allocate a full-size bitmap per frame.
+ */
+class LayerPool {
+    private static final int MAX_POOL_SIZE_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_BITMAPS_PER_SIZE = 2;
+
+    private static final Map<Long, ArrayList<Bitmap>> sBitmaps = new HashMap<>();
+    private static int sPoolSizeBytes = 0;
+
+    private static long key(int width, int height) {
+        return ((long) width << 32) | (height & 0xffffffffL);
+    }
+
+    /**
+     * Returns a transparent bitmap of the given size, reusing a released one if there is any.
+     */
+    static synchronized Bitmap acquire(int width, int height) {
+        ArrayList<Bitmap> bitmaps = sBitmaps.get(key(width, height));
+
+        if (bitmaps != null && !bitmaps.isEmpty()) {
+            Bitmap bitmap = bitmaps.remove(bitmaps.size() - 1);
+            sPoolSizeBytes -= bitmap.getByteCount();
+            bitmap.eraseColor(Color.TRANSPARENT);
+            return bitmap;
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Returns the bitmap to the pool, or recycles it if the pool is full.
+     * The bitmap mustn't be used by the caller anymore.
+     */
+    static synchronized void release(Bitmap bitmap) {
+        if (bitmap.isRecycled()) {
+            return;
+        }
+
+        long key = key(bitmap.getWidth(), bitmap.getHeight());
+        ArrayList<Bitmap> bitmaps = sBitmaps.get(key);
+        int byteCount = bitmap.getByteCount();
+
+        if (!bitmap.isMutable()
+                || bitmap.getConfig() != Bitmap.Config.ARGB_8888
+                || sPoolSizeBytes + byteCount > MAX_POOL_SIZE_BYTES
+                || (bitmaps != null && bitmaps.size() >= MAX_BITMAPS_PER_SIZE)) {
+            bitmap.recycle();
+            return;
+        }
+
+        if (bitmaps == null) {
+            bitmaps = new ArrayList<>(MAX_BITMAPS_PER_SIZE);
+            sBitmaps.put(key, bitmaps);
+        }
+        bitmaps.add(bitmap);
+        sPoolSizeBytes += byteCount;
+    }
+
+    /**
+     * Recycles all pooled bitmaps.
+     */
+    static synchronized void clear() {
+        for (ArrayList<Bitmap> bitmaps : sBitmaps.values()) {
+            for (Bitmap bitmap : bitmaps) {
+                bitmap.recycle();
+            }
+        }
+        sBitmaps.clear();
+        sPoolSizeBytes = 0;
+    }
+}
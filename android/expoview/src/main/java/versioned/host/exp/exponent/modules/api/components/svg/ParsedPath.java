@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2015-present, Horcrux.
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT-style license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+
+package versioned.host.exp.exponent.modules.api.components.svg;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import java.util.Arrays;
+
+/**
+ * Immutable result of parsing path data, a list of drawing commands with their points in user units.
+ * Parsed paths are shared between views through the cache in {@link PropHelper.PathParser}
+ * and replayed into an {@link Path} at each view's scale.
+ */
+class ParsedPath {
+    static final byte MOVE_TO = 0;
+    static final byte LINE_TO = 1;
+    static final byte CUBIC_TO = 2;
+    static final byte ARC_TO = 3;
+    static final byte CLOSE = 4;
+
+    static final ParsedPath EMPTY = new ParsedPath(new byte[0], 0, new float[0], 0);
+
+    private final byte[] mCommands;
+    private final float[] mPoints;
+
+    private ParsedPath(byte[] commands, int commandsCount, float[] points, int pointsCount) {
+        mCommands = Arrays.copyOf(commands, commandsCount);
+        mPoints = Arrays.copyOf(points, pointsCount);
+    }
+
+    /**
+     * Returns a copy of the commands, whose points are returned by {@link #getPoints}.
+     */
+    byte[] getCommands() {
+        return mCommands.clone();
+    }
+
+    /**
+     * Returns a copy of the points of all commands in order. moveTo and lineTo take two of them,
+     * cubicTo six, arcTo the oval bounds followed by start and sweep angles, and close none.
+     */
+    float[] getPoints() {
+        return mPoints.clone();
+    }
+
+    /**
+     * Approximate size of the parsed path in bytes.
+     */
+    int getByteCount() {
+        return mCommands.length + mPoints.length * 4;
+    }
+
+    Path toPath(float scale) {
+        Path path = new Path();
+        RectF oval = null;
+        float[] p = mPoints;
+        int i = 0;
+
+        for (byte command : mCommands) {
+            switch (command) {
+                case MOVE_TO:
+                    path.moveTo(p[i] * scale, p[i + 1] * scale);
+                    i += 2;
+                    break;
+                case LINE_TO:
+                    path.lineTo(p[i] * scale, p[i + 1] * scale);
+                    i += 2;
+                    break;
+                case CUBIC_TO:
+                    path.cubicTo(p[i] * scale, p[i + 1] * scale, p[i + 2] * scale, p[i + 3] * scale, p[i + 4] * scale, p[i + 5] * scale);
+                    i += 6;
+                    break;
+                case ARC_TO:
+                    // Oval bounds followed by start and sweep angles in degrees
+                    if (oval == null) {
+                        oval = new RectF();
+                    }
+                    oval.set(p[i] * scale, p[i + 1] * scale, p[i + 2] * scale, p[i + 3] * scale);
+                    path.arcTo(oval, p[i + 4], p[i + 5]);
+                    i += 6;
+                    break;
+                case CLOSE:
+                    path.close();
+                    break;
+            }
+        }
+        return path;
+    }
+
+    static class Builder {
+        private byte[] mCommands = new byte[16];
+        private float[] mPoints = new float[64];
+        private int mCommandsCount = 0;
+        private int mPointsCount = 0;
+
+        void moveTo(float x, float y) {
+            add(MOVE_TO, 2);
+            mPoints[mPointsCount++] = x;
+            mPoints[mPointsCount++] = y;
+        }
+
+        void lineTo(float x, float y) {
+            add(LINE_TO, 2);
+            mPoints[mPointsCount++] = x;
+            mPoints[mPointsCount++] = y;
+        }
+
+        void cubicTo(float c1x, float c1y, float c2x, float c2y, float ex, float ey) {
+            add(CUBIC_TO, 6);
+            mPoints[mPointsCount++] = c1x;
+            mPoints[mPointsCount++] = c1y;
+            mPoints[mPointsCount++] = c2x;
+            mPoints[mPointsCount++] = c2y;
+            mPoints[mPointsCount++] = ex;
+            mPoints[mPointsCount++] = ey;
+        }
+
+        void arcTo(float left, float top, float right, float bottom, float startAngle, float sweepAngle) {
+            add(ARC_TO, 6);
+            mPoints[mPointsCount++] = left;
+            mPoints[mPointsCount++] = top;
+            mPoints[mPointsCount++] = right;
+            mPoints[mPointsCount++] = bottom;
+            mPoints[mPointsCount++] = startAngle;
+            mPoints[mPointsCount++] = sweepAngle;
+        }
+
+        void close() {
+            add(CLOSE, 0);
+        }
+
+        int getCommandsCount() {
+            return mCommandsCount;
+        }
+
+        int getPointsCount() {
+            return mPointsCount;
+        }
+
+        /**
+         * Removes the commands added after the builder had the given number of commands and points.
+         */
+        void truncate(int commandsCount, int pointsCount) {
+            mCommandsCount = commandsCount;
+            mPointsCount = pointsCount;
+        }
+
+        ParsedPath build() {
+            return mCommandsCount == 0 ? EMPTY : new ParsedPath(mCommands, mCommandsCount, mPoints, mPointsCount);
+        }
+
+        private void add(byte command, int pointsCount) {
+            if (mCommandsCount == mCommands.length) {
+                mCommands = Arrays.copyOf(mCommands, mCommands.length * 2);
+            }
+            if (mPointsCount + pointsCount > mPoints.length) {
+                mPoints = Arrays.copyOf(mPoints, Math.max(mPoints.length * 2, mPointsCount + pointsCount));
+            }
+            mCommands[mCommandsCount++] = command;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.facebook.react.uimanager.annotations.ReactProp;
 
 @SuppressLint("ViewConstructor")
 class PathView extends RenderableView {
+    private ParsedPath mD = ParsedPath.EMPTY;
     private Path mPath;
 
     public PathView(ReactContext reactContext) {
@@ -27,13 +28,16 @@ class PathView extends RenderableView {
 
     @ReactProp(name = "d")
     public void setD(String d) {
-        PropHelper.PathParser mD = new PropHelper.PathParser(d, mScale);
-        mPath = mD.getPath();
+        mD = PropHelper.PathParser.parse(d);
+        mPath = null;
         invalidate();
     }
 
     @Override
     Path getPath(Canvas canvas, Paint paint) {
+        if (mPath == null) {
+            mPath = mD.toPath(mScale);
+        }
         return mPath;
     }
 
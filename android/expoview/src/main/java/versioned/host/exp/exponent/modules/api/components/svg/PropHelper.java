@@ -9,16 +9,9 @@
 
 package versioned.host.exp.exponent.modules.api.components.svg;
 
-import android.graphics.Path;
-import android.graphics.RectF;
+import android.util.LruCache;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReadableArray;
-import com.facebook.react.bridge.WritableArray;
-import com.facebook.react.bridge.WritableMap;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Contains static helper methods for accessing props.
@@ -225,175 +218,317 @@ class PropHelper {
         return value * unit * scale + offset;
     }
 
+    /**
+     * Parses path data in a single pass over its characters into a {@link ParsedPath}.
+     * Parsed paths are cached by their path data, as the same icons tend to be rendered many times.
+     */
     static class PathParser {
-        static private final Pattern PATH_REG_EXP = Pattern.compile("[a-df-z]|[\\-+]?(?:[\\d.]e[\\-+]?|[^\\s\\-+,a-z])+", Pattern.CASE_INSENSITIVE);
-        static private final Pattern DECIMAL_REG_EXP = Pattern.compile("(\\.\\d+)(?=-?\\.)");
+        // Approximate size of cached parsed paths in bytes
+        private static final int CACHE_SIZE_BYTES = 1024 * 1024;
+        private static final LruCache<String, ParsedPath> sCache = new LruCache<String, ParsedPath>(CACHE_SIZE_BYTES) {
+            @Override
+            protected int sizeOf(String key, ParsedPath value) {
+                return key.length() * 2 + value.getByteCount();
+            }
+        };
+
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+        };
+        // Digits beyond that don't fit into the mantissa and are too precise for floats anyway
+        private static final int MAX_MANTISSA_DIGITS = 18;
 
-        private Matcher mMatcher;
-        private Path mPath;
         private final String mString;
+        private final int mLength;
+        private int mIndex = 0;
+        private final ParsedPath.Builder mBuilder = new ParsedPath.Builder();
         private float mPenX = 0f;
         private float mPenY = 0f;
         private float mPenDownX;
         private float mPenDownY;
         private float mPivotX = 0f;
         private float mPivotY = 0f;
-        private final float mScale;
         private boolean mValid = true;
         private boolean mPendDownSet = false;
 
-        private String mLastCommand;
-        private String mLastValue;
-        private WritableArray mBezierCurves;
-        private WritableMap mLastStartPoint;
-
-        PathParser(String d, float scale) {
-            mScale = scale;
+        private PathParser(String d) {
             mString = d;
+            mLength = d.length();
+        }
+
+        /**
+         * Returns the parsed path data. Like browsers do, invalid data is rendered up to the command
+         * containing the first error.
+         */
+        static ParsedPath parse(String d) {
+            if (d == null) {
+                return ParsedPath.EMPTY;
+            }
+            ParsedPath path = sCache.get(d);
+            if (path == null) {
+                path = parseUncached(d);
+                sCache.put(d, path);
+            }
+            return path;
+        }
+
+        /**
+         * Parses the path data without looking it up in or adding it to the cache.
+         */
+        static ParsedPath parseUncached(String d) {
+            return new PathParser(d).parsePath();
+        }
+
+        private ParsedPath parsePath() {
+            char command = 0;
+
+            while (mValid) {
+                skipSeparators();
+                if (mIndex >= mLength) {
+                    break;
+                }
+
+                char c = mString.charAt(mIndex);
+                if (isCommand(c)) {
+                    command = c;
+                    mIndex++;
+                } else if (!isNumberStart(c) || command == 0 || command == 'z' || command == 'Z') {
+                    // Numbers may only follow commands with parameters, which are then repeated.
+                    mValid = false;
+                    break;
+                }
+
+                // Drop whatever an invalid command has added, keeping the commands before it.
+                int commandsCount = mBuilder.getCommandsCount();
+                int pointsCount = mBuilder.getPointsCount();
+                executeCommand(command);
+                if (!mValid) {
+                    mBuilder.truncate(commandsCount, pointsCount);
+                    break;
+                }
+
+                // Coordinates following moveTo are implicit lineTo commands.
+                if (command == 'm') {
+                    command = 'l';
+                } else if (command == 'M') {
+                    command = 'L';
+                }
+            }
+            return mBuilder.build();
         }
 
-        private void executeCommand(String command) {
+        private void executeCommand(char command) {
             switch (command) {
                 // moveTo command
-                case "m":
+                case 'm':
                     move(getNextFloat(), getNextFloat());
                     break;
-                case "M":
+                case 'M':
                     moveTo(getNextFloat(), getNextFloat());
                     break;
 
                 // lineTo command
-                case "l":
+                case 'l':
                     line(getNextFloat(), getNextFloat());
                     break;
-                case "L":
+                case 'L':
                     lineTo(getNextFloat(), getNextFloat());
                     break;
 
                 // horizontalTo command
-                case "h":
+                case 'h':
                     line(getNextFloat(), 0);
                     break;
-                case "H":
+                case 'H':
                     lineTo(getNextFloat(), mPenY);
                     break;
 
                 // verticalTo command
-                case "v":
+                case 'v':
                     line(0, getNextFloat());
                     break;
-                case "V":
+                case 'V':
                     lineTo(mPenX, getNextFloat());
                     break;
 
                 // curveTo command
-                case "c":
+                case 'c':
                     curve(getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat());
                     break;
-                case "C":
+                case 'C':
                     curveTo(getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat());
                     break;
 
                 // smoothCurveTo command
-                case "s":
+                case 's':
                     smoothCurve(getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat());
                     break;
-                case "S":
+                case 'S':
                     smoothCurveTo(getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat());
                     break;
 
                 // quadraticBezierCurveTo command
-                case "q":
+                case 'q':
                     quadraticBezierCurve(getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat());
                     break;
-                case "Q":
+                case 'Q':
                     quadraticBezierCurveTo(getNextFloat(), getNextFloat(), getNextFloat(), getNextFloat());
                     break;
 
                 // smoothQuadraticBezierCurveTo command
-                case "t":
+                case 't':
                     smoothQuadraticBezierCurve(getNextFloat(), getNextFloat());
                     break;
-                case "T":
+                case 'T':
                     smoothQuadraticBezierCurveTo(getNextFloat(), getNextFloat());
                     break;
 
                 // arcTo command
-                case "a":
-                    arc(getNextFloat(), getNextFloat(), getNextFloat(), getNextBoolean(), getNextBoolean(), getNextFloat(), getNextFloat());
+                case 'a':
+                    arc(getNextFloat(), getNextFloat(), getNextFloat(), getNextFlag(), getNextFlag(), getNextFloat(), getNextFloat());
                     break;
-                case "A":
-                    arcTo(getNextFloat(), getNextFloat(), getNextFloat(), getNextBoolean(), getNextBoolean(), getNextFloat(), getNextFloat());
+                case 'A':
+                    arcTo(getNextFloat(), getNextFloat(), getNextFloat(), getNextFlag(), getNextFlag(), getNextFloat(), getNextFloat());
                     break;
 
                 // close command
-                case "Z":
-                case "z":
+                case 'Z':
+                case 'z':
                     close();
                     break;
-                default:
-                    mLastValue = command;
-                    executeCommand(mLastCommand);
-                    return;
             }
+        }
 
-            mLastCommand = command;
-
-            if (command.equals("m")) {
-                mLastCommand = "l";
-            } else if (command.equals("M")) {
-                mLastCommand = "L";
+        private static boolean isCommand(char c) {
+            switch (c) {
+                case 'M': case 'm':
+                case 'L': case 'l':
+                case 'H': case 'h':
+                case 'V': case 'v':
+                case 'C': case 'c':
+                case 'S': case 's':
+                case 'Q': case 'q':
+                case 'T': case 't':
+                case 'A': case 'a':
+                case 'Z': case 'z':
+                    return true;
+                default:
+                    return false;
             }
         }
 
-        Path getPath() {
-            mPath = new Path();
-            mBezierCurves = Arguments.createArray();
-            mMatcher = PATH_REG_EXP.matcher(DECIMAL_REG_EXP.matcher(mString).replaceAll("$1,"));
-
-            while (mMatcher.find() && mValid) {
-                executeCommand(mMatcher.group());
-            }
-            return mPath;
+        private static boolean isNumberStart(char c) {
+            return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
         }
 
-        private WritableMap getPointMap(float x, float y) {
-            WritableMap map = Arguments.createMap();
-            map.putDouble("x", x * mScale);
-            map.putDouble("y", y * mScale);
-            return map;
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
         }
 
-        private WritableMap clonePointMap(WritableMap map) {
-            WritableMap cloned = Arguments.createMap();
-            cloned.putDouble("x", map.getDouble("x"));
-            cloned.putDouble("y", map.getDouble("y"));
-            return cloned;
+        private void skipSeparators() {
+            while (mIndex < mLength) {
+                char c = mString.charAt(mIndex);
+                if (c != ' ' && c != ',' && c != '\n' && c != '\r' && c != '\t' && c != '\f') {
+                    return;
+                }
+                mIndex++;
+            }
         }
 
-        private boolean getNextBoolean() {
-            if (mMatcher.find()) {
-                return mMatcher.group().equals("1");
-            } else {
-                mValid = false;
-                mPath = new Path();
-                return false;
+        private boolean getNextFlag() {
+            skipSeparators();
+            // Flags are single characters, so they may be written without separators, e.g. "a1 1 0 00 1 1".
+            if (mIndex < mLength) {
+                char c = mString.charAt(mIndex);
+                if (c == '0' || c == '1') {
+                    mIndex++;
+                    return c == '1';
+                }
             }
+            mValid = false;
+            return false;
         }
 
+        /**
+         * Scans a number, e.g. "-1.5e-3". Like in "0.5.5" or "1-2", a number ends
+         * where a character which can't continue it starts the next one.
+         */
         private float getNextFloat() {
-            if (mLastValue != null) {
-                String lastValue = mLastValue;
-                mLastValue = null;
-                return Float.parseFloat(lastValue);
-            } else if (mMatcher.find()) {
-                return Float.parseFloat(mMatcher.group());
-            } else {
+            skipSeparators();
+
+            String s = mString;
+            int i = mIndex;
+            boolean negative = false;
+
+            if (i < mLength && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negative = s.charAt(i) == '-';
+                i++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean hasDigits = false;
+
+            while (i < mLength && isDigit(s.charAt(i))) {
+                int digit = s.charAt(i++) - '0';
+                hasDigits = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else {
+                    exponent++;
+                }
+            }
+            if (i < mLength && s.charAt(i) == '.') {
+                i++;
+                while (i < mLength && isDigit(s.charAt(i))) {
+                    int digit = s.charAt(i++) - '0';
+                    hasDigits = true;
+                    if (digits < MAX_MANTISSA_DIGITS) {
+                        mantissa = mantissa * 10 + digit;
+                        exponent--;
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                    }
+                }
+            }
+            if (!hasDigits) {
                 mValid = false;
-                mPath = new Path();
                 return 0;
             }
+
+            if (i < mLength && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+                int j = i + 1;
+                boolean negativeExponent = false;
+                if (j < mLength && (s.charAt(j) == '-' || s.charAt(j) == '+')) {
+                    negativeExponent = s.charAt(j) == '-';
+                    j++;
+                }
+                if (j < mLength && isDigit(s.charAt(j))) {
+                    int explicitExponent = 0;
+                    while (j < mLength && isDigit(s.charAt(j))) {
+                        explicitExponent = Math.min(explicitExponent * 10 + (s.charAt(j++) - '0'), 1000);
+                    }
+                    exponent += negativeExponent ? -explicitExponent : explicitExponent;
+                    i = j;
+                }
+            }
+            mIndex = i;
+
+            double value = mantissa;
+            if (mantissa != 0 && exponent != 0) {
+                int absExponent = Math.abs(exponent);
+                double power = absExponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[absExponent] : Math.pow(10, absExponent);
+                value = exponent < 0 ? value / power : value * power;
+            }
+            return (float) (negative ? -value : value);
         }
+
         private void move(float x, float y) {
             moveTo(x + mPenX, y + mPenY);
         }
@@ -401,12 +536,7 @@ class PropHelper {
         private void moveTo(float x, float y) {
             mPenDownX = mPivotX = mPenX = x;
             mPenDownY = mPivotY = mPenY = y;
-            mPath.moveTo(x * mScale, y * mScale);
-
-            mLastStartPoint = getPointMap(x ,y);
-            WritableArray points = Arguments.createArray();
-            points.pushMap(getPointMap(x, y));
-            mBezierCurves.pushArray(points);
+            mBuilder.moveTo(x, y);
         }
 
         private void line(float x, float y) {
@@ -417,13 +547,7 @@ class PropHelper {
             setPenDown();
             mPivotX = mPenX = x;
             mPivotY = mPenY = y;
-            mPath.lineTo(x * mScale, y * mScale);
-
-            WritableArray points = Arguments.createArray();
-            points.pushMap(getPointMap(x, y));
-            points.pushMap(getPointMap(x, y));
-            points.pushMap(getPointMap(x, y));
-            mBezierCurves.pushArray(points);
+            mBuilder.lineTo(x, y);
         }
 
         private void curve(float c1x, float c1y, float c2x, float c2y, float ex, float ey) {
@@ -440,13 +564,7 @@ class PropHelper {
             setPenDown();
             mPenX = ex;
             mPenY = ey;
-            mPath.cubicTo(c1x * mScale, c1y * mScale, c2x * mScale, c2y * mScale, ex * mScale, ey * mScale);
-
-            WritableArray points = Arguments.createArray();
-            points.pushMap(getPointMap(c1x, c1y));
-            points.pushMap(getPointMap(c2x, c2y));
-            points.pushMap(getPointMap(ex, ey));
-            mBezierCurves.pushArray(points);
+            mBuilder.cubicTo(c1x, c1y, c2x, c2y, ex, ey);
         }
 
         private void smoothCurve(float c1x, float c1y, float ex, float ey) {
@@ -581,13 +699,7 @@ class PropHelper {
                     sweep = -sweep;
                 }
 
-                RectF oval = new RectF(
-                        (cx - rx) * mScale,
-                        (cy - rx) * mScale,
-                        (cx + rx) * mScale,
-                        (cy + rx) * mScale);
-
-                mPath.arcTo(oval, start, sweep);
+                mBuilder.arcTo(cx - rx, cy - rx, cx + rx, cy + rx, start, sweep);
             }
         }
 
@@ -596,13 +708,7 @@ class PropHelper {
                 mPenX = mPenDownX;
                 mPenY = mPenDownY;
                 mPendDownSet = false;
-                mPath.close();
-
-                WritableArray points = Arguments.createArray();
-                points.pushMap(clonePointMap(mLastStartPoint));
-                points.pushMap(clonePointMap(mLastStartPoint));
-                points.pushMap(clonePointMap(mLastStartPoint));
-                mBezierCurves.pushArray(points);
+                mBuilder.close();
             }
         }
 
@@ -649,7 +755,7 @@ class PropHelper {
                 float ex = (cx + xx * x + yx * y);
                 float ey = (cy + xy * x + yy * y);
 
-                mPath.cubicTo(c1x * mScale, c1y * mScale, c2x * mScale, c2y * mScale, ex * mScale, ey * mScale);
+                mBuilder.cubicTo(c1x, c1y, c2x, c2y, ex, ey);
             }
         }
 
@@ -9,15 +9,15 @@
 
 package versioned.host.exp.exponent.modules.api.components.svg;
 
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorMatrixColorFilter;
 import android.graphics.DashPathEffect;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
-import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Region;
 
@@ -86,6 +86,19 @@ abstract public class RenderableView extends VirtualView {
 
     private static final Pattern regex = Pattern.compile("[0-9.-]+");
 
+    // Applies luminanceToAlpha filter primitive https://www.w3.org/TR/SVG11/filters.html#feColorMatrixElement
+    // to the mask layer and keeps the content only where the mask is.
+    private static final Paint sMaskLayerPaint = new Paint();
+    static {
+        sMaskLayerPaint.setColorFilter(new ColorMatrixColorFilter(new float[] {
+                0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0,
+                0.299f, 0.587f, 0.144f, 0, 0,
+        }));
+        sMaskLayerPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
+    }
+
     @ReactProp(name = "fill")
     public void setFill(@Nullable Dynamic fill) {
         if (fill == null || fill.isNull()) {
@@ -243,10 +256,6 @@ abstract public class RenderableView extends VirtualView {
         invalidate();
     }
 
-    private static double saturate(double v) {
-        return v <= 0 ? 0 : (v >= 1 ? 1 : v);
-    }
-
     void render(Canvas canvas, Paint paint, float opacity) {
         MaskView mask = null;
         if (mMask != null) {
@@ -254,59 +263,39 @@ abstract public class RenderableView extends VirtualView {
             mask = (MaskView) root.getDefinedMask(mMask);
         }
         if (mask != null) {
-            Rect clipBounds = canvas.getClipBounds();
-            int height = clipBounds.height();
-            int width = clipBounds.width();
-
-            Bitmap maskBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-            Bitmap original = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-            Bitmap result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            // Render content of current SVG Renderable into an offscreen layer
+            int count = canvas.saveLayer(null, null);
+            draw(canvas, paint, opacity);
 
-            Canvas originalCanvas = new Canvas(original);
-            Canvas maskCanvas = new Canvas(maskBitmap);
-            Canvas resultCanvas = new Canvas(result);
+            // Render the mask into another layer, which is converted to alpha and blended
+            // with the content by the layer paint when restored
+            canvas.saveLayer(null, sMaskLayerPaint);
 
             // Clip to mask bounds and render the mask
             float maskX = (float) relativeOnWidth(mask.mX);
             float maskY = (float) relativeOnWidth(mask.mY);
             float maskWidth = (float) relativeOnWidth(mask.mW);
             float maskHeight = (float) relativeOnWidth(mask.mH);
-            maskCanvas.clipRect(maskX, maskY, maskWidth, maskHeight);
+            canvas.clipRect(maskX, maskY, maskWidth, maskHeight);
 
+            // Over opaque black, mask colors end up premultiplied by their alpha,
+            // so the color matrix yields luminance times alpha.
+            canvas.drawColor(Color.BLACK);
             Paint maskPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            mask.draw(maskCanvas, maskPaint, 1);
-
-            // Apply luminanceToAlpha filter primitive https://www.w3.org/TR/SVG11/filters.html#feColorMatrixElement
-            int nPixels = width * height;
-            int[] pixels = new int[nPixels];
-            maskBitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            mask.draw(canvas, maskPaint, 1);
 
-            for (int i = 0; i < nPixels; i++) {
-                int color = pixels[i];
-
-                int r = (color >> 16) & 0xFF;
-                int g = (color >> 8) & 0xFF;
-                int b = color & 0xFF;
-                int a = color >>> 24;
+            // Blend current element and mask
+            canvas.restore();
 
-                double luminance = saturate(((0.299 * r) + (0.587 * g) + (0.144 * b)) / 255);
-                int alpha = (int) (a * luminance);
-                int pixel = (alpha << 24);
-                pixels[i] = pixel;
+            // The masked result is composited with the paint the element has been drawn with.
+            // draw() resets that paint, so its alpha is the only property left to apply.
+            int alpha = paint.getAlpha();
+            if (alpha != 0xFF) {
+                canvas.drawColor(Color.argb(alpha, 0, 0, 0), PorterDuff.Mode.DST_IN);
             }
 
-            maskBitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-
-            // Render content of current SVG Renderable to image
-            draw(originalCanvas, paint, opacity);
-
-            // Blend current element and mask
-            maskPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
-            resultCanvas.drawBitmap(original, 0, 0, null);
-            resultCanvas.drawBitmap(maskBitmap, 0, 0, maskPaint);
-
-            // Render composited result into current render context
-            canvas.drawBitmap(result, 0, 0, paint);
+            // Render the result into current render context
+            canvas.restoreToCount(count);
         } else {
             draw(canvas, paint, opacity);
         }
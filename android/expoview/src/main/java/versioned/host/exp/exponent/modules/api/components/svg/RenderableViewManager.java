@@ -1049,7 +1049,10 @@ class RenderableViewManager extends ViewGroupManager<VirtualView> {
     @Override
     protected void onAfterUpdateTransaction(VirtualView node) {
         super.onAfterUpdateTransaction(node);
-        invalidateSvgView(node);
+        SvgView view = node.getSvgView();
+        if (view != null) {
+            view.invalidateNode(node);
+        }
     }
 
     @Override
@@ -14,6 +14,7 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.Picture;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Typeface;
@@ -21,7 +22,9 @@ import android.util.Base64;
 import android.view.View;
 import android.view.ViewParent;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.uimanager.DisplayMetricsHolder;
 import com.facebook.react.uimanager.ReactCompoundView;
 import com.facebook.react.uimanager.ReactCompoundViewGroup;
@@ -29,6 +32,7 @@ import com.facebook.react.uimanager.annotations.ReactProp;
 import com.facebook.react.views.view.ReactViewGroup;
 
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -61,6 +65,25 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
     }
 
     private @Nullable Bitmap mBitmap;
+    // Output bitmaps which have been replaced. Display lists recorded by previous draws may still
+    // reference them, so they're only returned to the pool once those are done, see onDraw.
+    private final ArrayList<Bitmap> mRetiredBitmaps = new ArrayList<>();
+    private final ArrayList<Bitmap> mReleasableBitmaps = new ArrayList<>();
+    // Whether the bitmap has to be composed again from recordings of the children
+    private boolean mOutputInvalid = false;
+    // Size of the canvas children have been recorded for
+    private int mRecordingWidth = 0;
+    private int mRecordingHeight = 0;
+
+    // Rendering stats for profiling, see getRenderStats
+    private int mRenderCount = 0;
+    private int mRecordedNodeCount = 0;
+    private int mReusedNodeCount = 0;
+    private int mLastRecordedNodeCount = 0;
+    private int mLastNodeCount = 0;
+    private double mLastRenderTime = 0;
+    private int mFullInvalidationCount = 0;
+    private int mNodeInvalidationCount = 0;
 
     public SvgView(ReactContext reactContext) {
         super(reactContext);
@@ -76,17 +99,103 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
     @Override
     public void invalidate() {
         super.invalidate();
+        mOutputInvalid = true;
+        releaseRecordings();
+        mFullInvalidationCount++;
+    }
+
+    /**
+     * Invalidates only the recording of the direct child containing the node, the other children
+     * are composed from their recordings. As elements may reference definitions (e.g. masks, gradients
+     * or templates of use elements), changes of named elements and their descendants invalidate everything.
+     */
+    void invalidateNode(VirtualView node) {
+        ViewParent parent = getParent();
+        if (parent instanceof VirtualView) {
+            // Nested SVGs are recorded as a part of the parent SVG.
+            VirtualView parentNode = (VirtualView) parent;
+            SvgView root = parentNode.getSvgView();
+            if (root != null) {
+                root.invalidateNode(parentNode);
+            }
+            return;
+        }
+
+        View child = node;
+        boolean affectsOthers = false;
+        while (true) {
+            if (child instanceof DefinitionView || (child instanceof VirtualView && ((VirtualView) child).mName != null)) {
+                affectsOthers = true;
+            }
+            ViewParent childParent = child.getParent();
+            if (childParent == this) {
+                break;
+            }
+            if (!(childParent instanceof View)) {
+                // Not attached to this SVG.
+                return;
+            }
+            child = (View) childParent;
+        }
+
+        if (affectsOthers || !(child instanceof VirtualView)) {
+            invalidate();
+            return;
+        }
+
+        ((VirtualView) child).mPicture = null;
+        mOutputInvalid = true;
+        mNodeInvalidationCount++;
+        super.invalidate();
+    }
+
+    private void releaseRecordings() {
+        for (int i = 0; i < getChildCount(); i++) {
+            View node = getChildAt(i);
+            if (node instanceof VirtualView) {
+                ((VirtualView) node).mPicture = null;
+            }
+        }
+    }
+
+    private void retireBitmap() {
         if (mBitmap != null) {
-            mBitmap.recycle();
+            mRetiredBitmaps.add(mBitmap);
         }
         mBitmap = null;
     }
 
+    /**
+     * Forgets the output bitmaps of a dropped view. They're left to the garbage collector rather
+     * than pooled or recycled, as the last frame the view was part of may still be drawing them.
+     */
+    void dropBitmaps() {
+        mBitmap = null;
+        mRetiredBitmaps.clear();
+        mReleasableBitmaps.clear();
+    }
+
+    /**
+     * Returns bitmaps retired before the previous draw to the pool. The display list recorded by
+     * the previous draw doesn't reference them, and the one recorded before has been drawn by the
+     * time the render thread accepted the previous one.
+     */
+    private void releaseRetiredBitmaps() {
+        for (Bitmap bitmap : mReleasableBitmaps) {
+            LayerPool.release(bitmap);
+        }
+        mReleasableBitmaps.clear();
+        mReleasableBitmaps.addAll(mRetiredBitmaps);
+        mRetiredBitmaps.clear();
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        if (mBitmap == null) {
+        releaseRetiredBitmaps();
+        if (mBitmap == null || mOutputInvalid) {
             mBitmap = drawOutput();
+            mOutputInvalid = false;
         }
         if (mBitmap != null)
             canvas.drawBitmap(mBitmap, 0, 0, null);
@@ -222,12 +331,12 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
             setMeasuredDimension((int)Math.ceil(width), (int)Math.ceil(height));
         }
         if (width == 0 || height == 0) {
+            retireBitmap();
             return null;
         }
-        Bitmap bitmap = Bitmap.createBitmap(
-                (int) width,
-                (int) height,
-                Bitmap.Config.ARGB_8888);
+        // The current bitmap may still be drawn by the render thread, draw into another one.
+        retireBitmap();
+        Bitmap bitmap = LayerPool.acquire((int) width, (int) height);
 
         drawChildren(new Canvas(bitmap));
         return bitmap;
@@ -237,7 +346,24 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
         return mCanvas.getClipBounds();
     }
 
+    /**
+     * Draws children of the SVG. Children of a root SVG are recorded into pictures, which are
+     * recorded again only once invalidated, see {@link #invalidateNode}. Nested SVGs are drawn
+     * directly, as they are recorded along with their parent's children.
+     */
     void drawChildren(final Canvas canvas) {
+        long startTime = System.nanoTime();
+        boolean retained = !(getParent() instanceof VirtualView);
+        int saveCount = canvas.save();
+        Matrix viewBoxMatrix = null;
+
+        if (retained && (canvas.getWidth() != mRecordingWidth || canvas.getHeight() != mRecordingHeight)) {
+            // Percentages are resolved against the canvas size when recorded.
+            releaseRecordings();
+            mRecordingWidth = canvas.getWidth();
+            mRecordingHeight = canvas.getHeight();
+        }
+
         mCanvas = canvas;
         if (mAlign != null) {
             RectF vbRect = getViewBox();
@@ -252,9 +378,9 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
             if (nested) {
                 canvas.clipRect(eRect);
             }
-            Matrix mViewBoxMatrix = ViewBox.getTransform(vbRect, eRect, mAlign, mMeetOrSlice);
-            mInvertible = mViewBoxMatrix.invert(mInvViewBoxMatrix);
-            canvas.concat(mViewBoxMatrix);
+            viewBoxMatrix = ViewBox.getTransform(vbRect, eRect, mAlign, mMeetOrSlice);
+            mInvertible = viewBoxMatrix.invert(mInvViewBoxMatrix);
+            canvas.concat(viewBoxMatrix);
         }
 
         final Paint paint = new Paint();
@@ -271,19 +397,83 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
             }
         }
 
+        int nodeCount = 0;
+        int recordedNodeCount = 0;
+
         for (int i = 0; i < getChildCount(); i++) {
             View lNode = getChildAt(i);
             if (lNode instanceof VirtualView) {
                 VirtualView node = (VirtualView)lNode;
-                int count = node.saveAndSetupCanvas(canvas);
-                node.render(canvas, paint, 1f);
-                node.restoreCanvas(canvas, count);
+                nodeCount++;
+
+                if (!retained) {
+                    int count = node.saveAndSetupCanvas(canvas);
+                    node.render(canvas, paint, 1f);
+                    node.restoreCanvas(canvas, count);
+                } else if (node.mPicture == null) {
+                    recordNode(node, viewBoxMatrix, paint);
+                    mCanvas = canvas;
+                    recordedNodeCount++;
+                }
 
                 if (node.isResponsible() && !mResponsible) {
                     mResponsible = true;
                 }
             }
         }
+
+        canvas.restoreToCount(saveCount);
+
+        if (retained) {
+            // Recordings are in the canvas' own coordinates.
+            for (int i = 0; i < getChildCount(); i++) {
+                View node = getChildAt(i);
+                if (node instanceof VirtualView && ((VirtualView) node).mPicture != null) {
+                    canvas.drawPicture(((VirtualView) node).mPicture);
+                }
+            }
+
+            mRenderCount++;
+            mRecordedNodeCount += recordedNodeCount;
+            mReusedNodeCount += nodeCount - recordedNodeCount;
+            mLastRecordedNodeCount = recordedNodeCount;
+            mLastNodeCount = nodeCount;
+            mLastRenderTime = (System.nanoTime() - startTime) / 1e6;
+        }
+    }
+
+    private void recordNode(VirtualView node, @Nullable Matrix viewBoxMatrix, Paint paint) {
+        Picture picture = new Picture();
+        Canvas recordingCanvas = picture.beginRecording(mRecordingWidth, mRecordingHeight);
+
+        if (viewBoxMatrix != null) {
+            recordingCanvas.concat(viewBoxMatrix);
+        }
+
+        mCanvas = recordingCanvas;
+        int count = node.saveAndSetupCanvas(recordingCanvas);
+        node.render(recordingCanvas, paint, 1f);
+        node.restoreCanvas(recordingCanvas, count);
+        picture.endRecording();
+
+        node.mPicture = picture;
+    }
+
+    /**
+     * Returns rendering stats of the SVG, i.e. how many of its children have been recorded again
+     * rather than reused, and how many times it's been invalidated as a whole or just partially.
+     */
+    WritableMap getRenderStats() {
+        WritableMap stats = Arguments.createMap();
+        stats.putInt("renderCount", mRenderCount);
+        stats.putInt("recordedNodeCount", mRecordedNodeCount);
+        stats.putInt("reusedNodeCount", mReusedNodeCount);
+        stats.putInt("lastRecordedNodeCount", mLastRecordedNodeCount);
+        stats.putInt("lastNodeCount", mLastNodeCount);
+        stats.putDouble("lastRenderTime", mLastRenderTime);
+        stats.putInt("fullInvalidationCount", mFullInvalidationCount);
+        stats.putInt("nodeInvalidationCount", mNodeInvalidationCount);
+        return stats;
     }
 
     private RectF getViewBox() {
@@ -291,15 +481,12 @@ public class SvgView extends ReactViewGroup implements ReactCompoundView, ReactC
     }
 
     String toDataURL() {
-        Bitmap bitmap = Bitmap.createBitmap(
-                getWidth(),
-                getHeight(),
-                Bitmap.Config.ARGB_8888);
+        Bitmap bitmap = LayerPool.acquire(getWidth(), getHeight());
 
         drawChildren(new Canvas(bitmap));
         ByteArrayOutputStream stream = new ByteArrayOutputStream();
         bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
-        bitmap.recycle();
+        LayerPool.release(bitmap);
         byte[] bitmapBytes = stream.toByteArray();
         return Base64.encodeToString(bitmapBytes, Base64.DEFAULT);
     }
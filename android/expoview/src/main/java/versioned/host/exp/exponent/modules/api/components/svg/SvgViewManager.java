@@ -56,6 +56,12 @@ class SvgViewManager extends ReactViewManager {
     public void onDropViewInstance(ReactViewGroup view) {
         super.onDropViewInstance(view);
         mTagToSvgView.remove(view.getId());
+        ((SvgView) view).dropBitmaps();
+
+        if (mTagToSvgView.size() == 0) {
+            // No SVGs left to reuse pooled bitmaps.
+            LayerPool.clear();
+        }
     }
 
     @Override
@@ -40,10 +40,6 @@ class TSpanView extends TextView {
     private static final double tau = 2 * Math.PI;
     private static final double radToDeg = 360 / tau;
 
-    private static final String FONTS = "fonts/";
-    private static final String OTF = ".otf";
-    private static final String TTF = ".ttf";
-
     private Path mCache;
     @Nullable String mContent;
     private TextPathView textPath;
@@ -56,6 +52,7 @@ class TSpanView extends TextView {
     public void setContent(@Nullable String content) {
         mContent = content;
         invalidate();
+        releaseTextLayout();
     }
 
     @Override
@@ -70,8 +67,8 @@ class TSpanView extends TextView {
 
     @Override
     void releaseCachedPath() {
+        super.releaseCachedPath();
         mCache = null;
-        mPath = null;
     }
 
     @Override
@@ -267,8 +264,7 @@ class TSpanView extends TextView {
         // OpenType.js font data
         ReadableMap fontData = font.fontData;
 
-        float[] advances = new float[length];
-        paint.getTextWidths(line, advances);
+        float[] advances = FontCache.getTextWidths(paint, line);
 
         /*
         This would give both advances and textMeasure in one call / looping over the text
@@ -298,7 +294,7 @@ class TSpanView extends TextView {
             attributes, such as a ‘dx’ attribute value on a ‘tspan’ element.
          */
         final TextAnchor textAnchor = font.textAnchor;
-        final double textMeasure = paint.measureText(line);
+        final double textMeasure = FontCache.measureText(paint, line);
         double offset = getTextAnchorOffset(textAnchor, textMeasure);
 
         int side = 1;
@@ -706,7 +702,7 @@ class TSpanView extends TextView {
                     hasLigature = true;
                 }
             }
-            double charWidth = paint.measureText(current) * scaleSpacingAndGlyphs;
+            double charWidth = FontCache.measureText(paint, current) * scaleSpacingAndGlyphs;
 
             /*
                 For each subsequent glyph, set a new startpoint-on-the-path as the previous
@@ -924,22 +920,7 @@ class TSpanView extends TextView {
             fontStyle = Typeface.NORMAL;
         }
 
-        Typeface typeface = null;
-        final String fontFamily = font.fontFamily;
-        try {
-            String path = FONTS + fontFamily + OTF;
-            typeface = Typeface.createFromAsset(assetManager, path);
-        } catch (Exception ignored) {
-            try {
-                String path = FONTS + fontFamily + TTF;
-                typeface = Typeface.createFromAsset(assetManager, path);
-            } catch (Exception ignored2) {
-                try {
-                    typeface = Typeface.create(fontFamily, fontStyle);
-                } catch (Exception ignored3) {
-                }
-            }
-        }
+        Typeface typeface = FontCache.getTypeface(assetManager, font.fontFamily, fontStyle);
 
         // NB: if the font family is null / unsupported, the default one will be used
         paint.setTypeface(typeface);
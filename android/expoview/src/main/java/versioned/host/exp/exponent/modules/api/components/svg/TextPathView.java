@@ -40,36 +40,42 @@ class TextPathView extends TextView {
     public void setHref(String href) {
         mHref = href;
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "startOffset")
     public void setStartOffset(Dynamic startOffset) {
         mStartOffset = getLengthFromDynamic(startOffset);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "method")
     public void setMethod(@Nullable String method) {
         mMethod = TextPathMethod.valueOf(method);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "spacing")
     public void setSpacing(@Nullable String spacing) {
         mSpacing = TextPathSpacing.valueOf(spacing);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "side")
     public void setSide(@Nullable String side) {
         mSide = TextPathSide.valueOf(side);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "midLine")
     public void setSharp(@Nullable String midLine) {
         mMidLine = TextPathMidLine.valueOf(midLine);
         invalidate();
+        releaseTextLayout();
     }
 
     @SuppressWarnings("unused")
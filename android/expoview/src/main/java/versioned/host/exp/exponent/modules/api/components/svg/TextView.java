@@ -43,34 +43,47 @@ class TextView extends GroupView {
         super(reactContext);
     }
 
+    /**
+     * Releases the laid out glyphs of the whole text element, as positions of spans depend on preceding ones.
+     * Only props which affect the layout do so, changes of paint (fill, stroke, opacity) reuse the glyphs.
+     */
     @Override
-    public void invalidate() {
-        super.invalidate();
-        releaseCachedPath();
+    void releaseTextLayout() {
+        TextView text = this;
+        ViewParent parent = getParent();
+        while (parent instanceof TextView) {
+            text = (TextView) parent;
+            parent = parent.getParent();
+        }
+        text.releaseCachedPath();
     }
 
     @ReactProp(name = "textLength")
     public void setTextLength(Dynamic length) {
         mTextLength = getLengthFromDynamic(length);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "lengthAdjust")
     public void setLengthAdjust(@Nullable String adjustment) {
         mLengthAdjust = TextLengthAdjust.valueOf(adjustment);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "alignmentBaseline")
     public void setMethod(@Nullable String alignment) {
         mAlignmentBaseline = AlignmentBaseline.getEnum(alignment);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "baselineShift")
     public void setBaselineShift(Dynamic baselineShift) {
         mBaselineShift = getStringFromDynamic(baselineShift);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "verticalAlign")
@@ -93,36 +106,42 @@ class TextView extends GroupView {
             mBaselineShift = null;
         }
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "rotate")
     public void setRotate(Dynamic rotate) {
         mRotate = getLengthArrayFromDynamic(rotate);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "dx")
     public void setDeltaX(Dynamic deltaX) {
         mDeltaX = getLengthArrayFromDynamic(deltaX);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "dy")
     public void setDeltaY(Dynamic deltaY) {
         mDeltaY = getLengthArrayFromDynamic(deltaY);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "x")
     public void setPositionX(Dynamic positionX) {
         mPositionX = getLengthArrayFromDynamic(positionX);
         invalidate();
+        releaseTextLayout();
     }
 
     @ReactProp(name = "y")
     public void setPositionY(Dynamic positionY) {
         mPositionY = getLengthArrayFromDynamic(positionY);
         invalidate();
+        releaseTextLayout();
     }
 
     @Override
@@ -5,6 +5,7 @@ import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.Picture;
 import android.graphics.RectF;
 import android.graphics.Region;
 import android.view.View;
@@ -91,6 +92,8 @@ abstract public class VirtualView extends ReactViewGroup {
     Region mStrokeRegion;
     Region mClipRegion;
     Path mClipRegionPath;
+    // Recording of the element, kept for direct children of the root SvgView
+    @Nullable Picture mPicture;
 
     @Override
     public void invalidate() {
@@ -204,6 +207,12 @@ abstract public class VirtualView extends ReactViewGroup {
     public void setName(String name) {
         mName = name;
         invalidate();
+
+        // Elements which referenced the old name have to be recorded again.
+        SvgView svg = getSvgView();
+        if (svg != null) {
+            svg.invalidate();
+        }
     }
 
 
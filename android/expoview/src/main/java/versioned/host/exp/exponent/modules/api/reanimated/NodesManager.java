@@ -360,6 +360,17 @@ public class NodesManager implements EventDispatcherListener {
     callback.invoke(mAnimatedNodes.get(nodeID).value());
   }
 
+  /**
+   * Reports how many numbers were boxed while evaluating nodes in the last update loop. Numeric
+   * graphs are evaluated without boxing, so anything above 0 points at a node taking the slow path.
+   */
+  public void getUpdateStats(Callback callback) {
+    WritableMap stats = Arguments.createMap();
+    stats.putDouble("updateLoopID", updateContext.updateLoopID);
+    stats.putInt("boxedValuesCount", updateContext.lastLoopBoxedValuesCount);
+    callback.invoke(stats);
+  }
+
   public void postRunUpdatesAfterAnimation() {
     mWantRunUpdates = true;
     startUpdatingOnAnimationFrame();
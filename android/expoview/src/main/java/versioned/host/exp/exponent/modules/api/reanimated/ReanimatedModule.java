@@ -205,4 +205,14 @@ public class ReanimatedModule extends ReactContextBaseJavaModule implements
       }
     });
   }
+
+  @ReactMethod
+  public void getUpdateStats(final Callback callback) {
+    mOperations.add(new UIThreadOperation() {
+      @Override
+      public void execute(NodesManager nodesManager) {
+        nodesManager.getUpdateStats(callback);
+      }
+    });
+  }
 }
@@ -9,4 +9,9 @@ public class UpdateContext {
   public long updateLoopID = 0;
   public final ArrayList<Node> updatedNodes = new ArrayList<>();
 
+  // Numbers boxed by Node.value() in the current and in the last finished update loop, graphs of
+  // numeric nodes are expected not to box any.
+  public int boxedValuesCount = 0;
+  public int lastLoopBoxedValuesCount = 0;
+
 }
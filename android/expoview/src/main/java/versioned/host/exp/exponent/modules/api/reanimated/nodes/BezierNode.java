@@ -82,8 +82,8 @@ public class BezierNode extends Node {
   }
 
   @Override
-  protected Double evaluate() {
-    Double in = (Double) mNodesManager.getNodeValue(mInputID);
-    return Double.valueOf(mInterpolator.getInterpolation(in.floatValue()));
+  protected Object evaluate() {
+    double in = mNodesManager.findNodeById(mInputID, Node.class).doubleValue();
+    return doubleResult(mInterpolator.getInterpolation((float) in));
   }
 }
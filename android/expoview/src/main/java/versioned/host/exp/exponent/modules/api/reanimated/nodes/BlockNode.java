@@ -15,10 +15,13 @@ public class BlockNode extends Node {
 
   @Override
   protected Object evaluate() {
-    Object res = null;
-    for (int i = 0; i < mBlock.length; i++) {
-      res = mNodesManager.findNodeById(mBlock[i], Node.class).value();
+    if (mBlock.length == 0) {
+      return null;
     }
-    return res;
+    int last = mBlock.length - 1;
+    for (int i = 0; i < last; i++) {
+      mNodesManager.findNodeById(mBlock[i], Node.class).evaluateIfNeeded();
+    }
+    return valueResult(mNodesManager.findNodeById(mBlock[last], Node.class));
   }
 }
@@ -26,8 +26,8 @@ public class ClockNode extends Node implements NodesManager.OnAnimationFrame {
   }
 
   @Override
-  protected Double evaluate() {
-    return mNodesManager.currentFrameTimeMs;
+  protected Object evaluate() {
+    return doubleResult(mNodesManager.currentFrameTimeMs);
   }
 
   @Override
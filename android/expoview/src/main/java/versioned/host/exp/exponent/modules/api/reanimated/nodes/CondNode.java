@@ -14,13 +14,21 @@ public class CondNode extends Node {
     mElseBlockID = config.hasKey("elseBlock") ? config.getInt("elseBlock") : -1;
   }
 
+  private boolean isConditionMet() {
+    Node condNode = mNodesManager.findNodeById(mCondID, Node.class);
+    // This is not a good way to compare doubles but in this case it is what we want
+    if (condNode.hasDoubleValue()) {
+      return condNode.doubleValue() != 0.0;
+    }
+    Object cond = mNodesManager.getNodeValue(mCondID);
+    return cond instanceof Number && ((Number) cond).doubleValue() != 0.0;
+  }
+
   @Override
   protected Object evaluate() {
-    Object cond = mNodesManager.getNodeValue(mCondID);
-    if (cond instanceof Number && ((Number) cond).doubleValue() != 0.0) {
-      // This is not a good way to compare doubles but in this case it is what we want
-      return mIfBlockID != -1 ? mNodesManager.getNodeValue(mIfBlockID) : ZERO;
+    if (isConditionMet()) {
+      return mIfBlockID != -1 ? nodeValueResult(mIfBlockID) : ZERO;
     }
-    return mElseBlockID != -1 ? mNodesManager.getNodeValue(mElseBlockID) : ZERO;
+    return mElseBlockID != -1 ? nodeValueResult(mElseBlockID) : ZERO;
   }
 }
@@ -18,6 +18,9 @@ public abstract class Node {
   public static final Double ZERO = Double.valueOf(0);
   public static final Double ONE = Double.valueOf(1);
 
+  // Returned by evaluate() of nodes which evaluated to a number, see doubleResult()
+  private static final Object DOUBLE_RESULT = new Object();
+
   protected final int mNodeID;
   protected final NodesManager mNodesManager;
 
@@ -25,6 +28,9 @@ public abstract class Node {
 
   private long mLastLoopID = -1;
   private @Nullable Object mMemoizedValue;
+  private double mMemoizedDouble;
+  private boolean mMemoizedIsDouble; /* when set mMemoizedValue is null until the number gets boxed */
+  private double mEvaluatedDouble;
   private @Nullable List<Node> mChildren; /* lazy-initialized when a child is added */
 
   public Node(int nodeID, @Nullable ReadableMap config, NodesManager nodesManager) {
@@ -33,31 +39,90 @@ public abstract class Node {
     mUpdateContext = nodesManager.updateContext;
   }
 
+  /**
+   * Nodes which evaluate to a number should return {@link #doubleResult(double)} instead of a boxed
+   * number. Graphs of such nodes are then evaluated on every frame without allocating.
+   */
   protected abstract @Nullable Object evaluate();
 
-  public final @Nullable Object value() {
+  protected final Object doubleResult(double value) {
+    mEvaluatedDouble = value;
+    return DOUBLE_RESULT;
+  }
+
+  /**
+   * Evaluates to the value of the given node, passing numbers through without boxing them.
+   */
+  protected final @Nullable Object valueResult(Node node) {
+    if (node.hasDoubleValue()) {
+      return doubleResult(node.doubleValue());
+    }
+    return node.value();
+  }
+
+  /**
+   * Same as {@link #valueResult(Node)}, but missing nodes evaluate to 0 like in
+   * {@link NodesManager#getNodeValue(int)}.
+   */
+  protected final @Nullable Object nodeValueResult(int nodeID) {
+    Node node = mNodesManager.findNodeById(nodeID, Node.class);
+    if (node.hasDoubleValue()) {
+      return doubleResult(node.doubleValue());
+    }
+    return mNodesManager.getNodeValue(nodeID);
+  }
+
+  final void evaluateIfNeeded() {
     if (mLastLoopID < mUpdateContext.updateLoopID) {
       mLastLoopID = mUpdateContext.updateLoopID;
-      return (mMemoizedValue = evaluate());
+      Object value = evaluate();
+      if (value == DOUBLE_RESULT) {
+        mMemoizedValue = null;
+        mMemoizedDouble = mEvaluatedDouble;
+        mMemoizedIsDouble = true;
+      } else {
+        mMemoizedValue = value;
+        mMemoizedIsDouble = false;
+      }
+    }
+  }
+
+  public final @Nullable Object value() {
+    evaluateIfNeeded();
+    if (mMemoizedIsDouble && mMemoizedValue == null) {
+      mMemoizedValue = Double.valueOf(mMemoizedDouble);
+      mUpdateContext.boxedValuesCount++;
     }
     return mMemoizedValue;
   }
 
   /**
-   * This method will never return null. If value is null or of a different type we try to cast and
-   * return 0 if we fail to properly cast the value. This is to match iOS behavior where the node
-   * would not throw even if the value was not set.
+   * Returns whether the node evaluated to a number, which {@link #doubleValue()} returns without
+   * boxing it.
    */
-  public final Double doubleValue() {
-    Object value = value();
+  public final boolean hasDoubleValue() {
+    evaluateIfNeeded();
+    return mMemoizedIsDouble;
+  }
+
+  /**
+   * If value is null or of a different type we try to cast and return 0 if we fail to properly
+   * cast the value. This is to match iOS behavior where the node would not throw even if the value
+   * was not set.
+   */
+  public final double doubleValue() {
+    evaluateIfNeeded();
+    if (mMemoizedIsDouble) {
+      return mMemoizedDouble;
+    }
+
+    Object value = mMemoizedValue;
     if (value == null) {
-      return ZERO;
-    } else if (value instanceof Double) {
-      return (Double) value;
+      return 0;
     } else if (value instanceof Number) {
-      return Double.valueOf(((Number) value).doubleValue());
+      return ((Number) value).doubleValue();
     } else if (value instanceof Boolean) {
-      return ((Boolean) value).booleanValue() ? ONE : ZERO;
+      return ((Boolean) value).booleanValue() ? 1 : 0;
     }
     throw new IllegalStateException("Value of node " + this + " cannot be cast to a number");
   }
@@ -89,6 +154,14 @@ public abstract class Node {
 
   protected final void forceUpdateMemoizedValue(Object value) {
     mMemoizedValue = value;
+    mMemoizedIsDouble = false;
+    markUpdated();
+  }
+
+  protected final void forceUpdateMemoizedDouble(double value) {
+    mMemoizedValue = null;
+    mMemoizedDouble = value;
+    mMemoizedIsDouble = true;
     markUpdated();
   }
 
@@ -125,5 +198,7 @@ public abstract class Node {
     }
     updatedNodes.clear();
     updateContext.updateLoopID++;
+    updateContext.lastLoopBoxedValuesCount = updateContext.boxedValuesCount;
+    updateContext.boxedValuesCount = 0;
   }
 }
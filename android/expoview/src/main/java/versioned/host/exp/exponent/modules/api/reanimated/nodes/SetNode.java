@@ -16,6 +16,13 @@ public class SetNode extends Node {
 
   @Override
   protected Object evaluate() {
+    Node valueNode = mNodesManager.findNodeById(mValueNodeID, Node.class);
+    if (valueNode.hasDoubleValue()) {
+      double newValue = valueNode.doubleValue();
+      mNodesManager.findNodeById(mWhatNodeID, ValueNode.class).setValue(newValue);
+      return doubleResult(newValue);
+    }
+
     Object newValue = mNodesManager.getNodeValue(mValueNodeID);
     ValueNode what = mNodesManager.findNodeById(mWhatNodeID, ValueNode.class);
     what.setValue(newValue);
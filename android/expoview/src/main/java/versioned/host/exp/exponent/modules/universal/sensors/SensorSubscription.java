@@ -5,6 +5,7 @@ import host.exp.exponent.kernel.services.sensors.SensorKernelServiceSubscription
 
 public class SensorSubscription implements SensorServiceSubscription {
   private SensorKernelServiceSubscription mSensorKernelServiceSubscription;
+  private long mMaxReportLatency = 0;
 
   public SensorSubscription(SensorKernelServiceSubscription subscription) {
     mSensorKernelServiceSubscription = subscription;
@@ -30,6 +31,17 @@ public class SensorSubscription implements SensorServiceSubscription {
     mSensorKernelServiceSubscription.setUpdateInterval(updateInterval);
   }
 
+  @Override
+  public long getMaxReportLatency() {
+    return mMaxReportLatency;
+  }
+
+  @Override
+  public void setMaxReportLatency(long maxReportLatency) {
+    // Kernel sensor services don't batch samples, they're delivered as they come.
+    mMaxReportLatency = maxReportLatency;
+  }
+
   @Override
   public void stop() {
     mSensorKernelServiceSubscription.stop();
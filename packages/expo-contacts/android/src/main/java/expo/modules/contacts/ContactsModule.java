@@ -78,61 +78,54 @@ public class ContactsModule extends ExportedModule implements ModuleRegistryCons
   };
 
   // TODO: Evan: Test
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void getContactsAsync(final Map<String, Object> options, final Promise promise) {
     if (isMissingPermissions(promise)) return;
 
-    new Thread(new Runnable() {
-      @Override
-      public void run() {
-
-        String sortOrder = null;
-        if (options.containsKey("sort") && options.get("sort") instanceof String) {
-          sortOrder = (String)options.get("sort");
-        }
+    String sortOrder = null;
+    if (options.containsKey("sort") && options.get("sort") instanceof String) {
+      sortOrder = (String)options.get("sort");
+    }
 
-        ArrayList fields = null;
-        if (options.containsKey("fields") && options.get("fields") instanceof ArrayList) {
-          fields = (ArrayList) options.get("fields");
-        }
+    ArrayList fields = null;
+    if (options.containsKey("fields") && options.get("fields") instanceof ArrayList) {
+      fields = (ArrayList) options.get("fields");
+    }
 
-        Set<String> keysToFetch = getFieldsSet(fields);
-
-        if (options.containsKey("id") && options.get("id") instanceof String) {
-          Contact contact = getContactById((String) options.get("id"), keysToFetch, promise);
-          if (contact == null)
-            return;
-          Collection contacts = new ArrayList();
-          contacts.add(contact);
-          ArrayList data = serializeContacts(contacts, keysToFetch, promise);
-          if (data == null)
-            return;
-          Bundle output = new Bundle();
-          output.putParcelableArrayList("data", data);
-          promise.resolve(output);
-        } else if (options.containsKey("name") && options.get("name") instanceof String) {
-          String predicateMatchingName = (String)options.get("name");
-          HashMap<String, Object> contactData = getContactByName(predicateMatchingName, keysToFetch, sortOrder,
-              promise);
-          Collection<Contact> contacts = (Collection<Contact>) contactData.get("data");
-          ArrayList data = serializeContacts(contacts, keysToFetch, promise);
-          if (data == null)
-            return;
-          Bundle output = new Bundle();
-          output.putParcelableArrayList("data", data);
-          output.putBoolean("hasNextPage", (Boolean) contactData.get("hasNextPage"));
-          output.putBoolean("hasPreviousPage", (Boolean) contactData.get("hasPreviousPage"));
-          promise.resolve(output);
+    Set<String> keysToFetch = getFieldsSet(fields);
 
-        } else {
-          getAllContactsAsync(options, keysToFetch, sortOrder, promise);
-        }
+    if (options.containsKey("id") && options.get("id") instanceof String) {
+      Contact contact = getContactById((String) options.get("id"), keysToFetch, promise);
+      if (contact == null)
+        return;
+      Collection contacts = new ArrayList();
+      contacts.add(contact);
+      ArrayList data = serializeContacts(contacts, keysToFetch, promise);
+      if (data == null)
+        return;
+      Bundle output = new Bundle();
+      output.putParcelableArrayList("data", data);
+      promise.resolve(output);
+    } else if (options.containsKey("name") && options.get("name") instanceof String) {
+      String predicateMatchingName = (String)options.get("name");
+      HashMap<String, Object> contactData = getContactByName(predicateMatchingName, keysToFetch, sortOrder,
+          promise);
+      Collection<Contact> contacts = (Collection<Contact>) contactData.get("data");
+      ArrayList data = serializeContacts(contacts, keysToFetch, promise);
+      if (data == null)
+        return;
+      Bundle output = new Bundle();
+      output.putParcelableArrayList("data", data);
+      output.putBoolean("hasNextPage", (Boolean) contactData.get("hasNextPage"));
+      output.putBoolean("hasPreviousPage", (Boolean) contactData.get("hasPreviousPage"));
+      promise.resolve(output);
 
-      }
-    }).start();
+    } else {
+      getAllContactsAsync(options, keysToFetch, sortOrder, promise);
+    }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void addContactAsync(Map<String, Object> data, String containerId, Promise promise) {
     if (isMissingPermissions(promise) || isMissingWritePermissions(promise)) return;
     Contact contact = mutateContact(null, data);
@@ -154,7 +147,7 @@ public class ContactsModule extends ExportedModule implements ModuleRegistryCons
   }
 
   // TODO: Evan: Test
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void updateContactAsync(Map<String, Object> contact, final Promise promise) {
     if (isMissingPermissions(promise) || isMissingWritePermissions(promise)) return;
 
@@ -180,7 +173,7 @@ public class ContactsModule extends ExportedModule implements ModuleRegistryCons
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void removeContactAsync(String contactId, final Promise promise) {
     if (isMissingPermissions(promise) || isMissingWritePermissions(promise)) return;
 
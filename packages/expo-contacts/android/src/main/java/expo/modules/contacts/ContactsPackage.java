@@ -6,12 +6,18 @@ import android.content.Context;
 import java.util.Collections;
 import java.util.List;
 
-import expo.core.ExportedModule;
 import expo.core.BasePackage;
+import expo.core.ExportedModule;
+import expo.core.ExportedModuleDescriptor;
 
 public class ContactsPackage extends BasePackage {
   @Override
-  public List<ExportedModule> createExportedModules(Context context) {
-    return Collections.<ExportedModule>singletonList(new ContactsModule(context));
+  public List<ExportedModuleDescriptor> getExportedModuleDescriptors() {
+    return Collections.<ExportedModuleDescriptor>singletonList(new ExportedModuleDescriptor("ExpoContacts", ContactsModule.class) {
+      @Override
+      public ExportedModule create(Context context) {
+        return new ContactsModule(context);
+      }
+    });
   }
 }
@@ -0,0 +1,216 @@
+package expo.core.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a `ClassName$$ExpoMethodDispatcher` (extending expo.core.ExportedMethodDispatcher)
+ * for every class declaring methods annotated with expo.core.interfaces.ExpoMethod.
+ * The dispatcher switches on the method name and calls the method directly with typed,
+ * unboxed arguments, so exported methods don't have to be invoked through reflection.
+ * Classes the generated code couldn't call into (eg. private nested classes) are skipped
+ * and keep using the reflective path.
+ */
+public class ExpoMethodDispatcherProcessor extends AbstractProcessor {
+  private static final String EXPO_METHOD_ANNOTATION = "expo.core.interfaces.ExpoMethod";
+  private static final String DISPATCHER_CLASS = "expo.core.ExportedMethodDispatcher";
+  private static final String GENERATED_CLASS_SUFFIX = "$$ExpoMethodDispatcher";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(EXPO_METHOD_ANNOTATION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+    TypeElement annotation = processingEnv.getElementUtils().getTypeElement(EXPO_METHOD_ANNOTATION);
+    if (annotation == null) {
+      return false;
+    }
+
+    Map<TypeElement, List<ExecutableElement>> methodsByClass = new LinkedHashMap<>();
+    for (Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+      if (element.getKind() != ElementKind.METHOD) {
+        continue;
+      }
+      TypeElement enclosingClass = (TypeElement) element.getEnclosingElement();
+      if (!methodsByClass.containsKey(enclosingClass)) {
+        methodsByClass.put(enclosingClass, new ArrayList<ExecutableElement>());
+      }
+      methodsByClass.get(enclosingClass).add((ExecutableElement) element);
+    }
+
+    for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByClass.entrySet()) {
+      if (hasOverloadedMethods(entry.getValue())) {
+        continue;
+      }
+      if (!canGenerateDispatcher(entry.getKey(), entry.getValue())) {
+        continue;
+      }
+      try {
+        writeDispatcher(entry.getKey(), entry.getValue());
+      } catch (IOException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write ExpoMethod dispatcher: " + e.getMessage(), entry.getKey());
+      }
+    }
+
+    return false;
+  }
+
+  // Exported methods are looked up by name only, so every overload after the first one is reported as an error.
+  private boolean hasOverloadedMethods(List<ExecutableElement> methods) {
+    Set<String> methodNames = new HashSet<>();
+    boolean hasOverloadedMethods = false;
+    for (ExecutableElement method : methods) {
+      String methodName = method.getSimpleName().toString();
+      if (!methodNames.add(methodName)) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            "@ExpoMethod methods can't be overloaded, " + methodName + " is already exported by this class", method);
+        hasOverloadedMethods = true;
+      }
+    }
+    return hasOverloadedMethods;
+  }
+
+  private boolean canGenerateDispatcher(TypeElement clazz, List<ExecutableElement> methods) {
+    for (Element element = clazz; element instanceof TypeElement; element = element.getEnclosingElement()) {
+      TypeElement type = (TypeElement) element;
+      if (type.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+      if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+        return false;
+      }
+      if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+        return false;
+      }
+    }
+
+    for (ExecutableElement method : methods) {
+      if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+        return false;
+      }
+      if (!method.getThrownTypes().isEmpty()) {
+        return false;
+      }
+      for (VariableElement parameter : method.getParameters()) {
+        if (parameter.asType().getKind() == TypeKind.CHAR || parameter.asType().getKind() == TypeKind.TYPEVAR) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private void writeDispatcher(TypeElement clazz, List<ExecutableElement> methods) throws IOException {
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(clazz);
+    String packageName = packageElement.getQualifiedName().toString();
+    String binaryName = processingEnv.getElementUtils().getBinaryName(clazz).toString();
+    String dispatcherSimpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + GENERATED_CLASS_SUFFIX;
+    String moduleClassName = processingEnv.getTypeUtils().erasure(clazz.asType()).toString();
+
+    StringBuilder source = new StringBuilder();
+    source.append("// Generated by ").append(getClass().getName()).append(". Do not edit.\n");
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    // Erased types of generic modules and parameters are raw types
+    source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+    source.append("public final class ").append(dispatcherSimpleName)
+        .append(" extends ").append(DISPATCHER_CLASS).append("<").append(moduleClassName).append("> {\n");
+    source.append("  @Override\n");
+    source.append("  public Object dispatch(").append(moduleClassName).append(" module, String methodName, Object[] arguments) throws NoSuchMethodException {\n");
+    source.append("    switch (methodName) {\n");
+
+    for (ExecutableElement method : methods) {
+      String methodName = method.getSimpleName().toString();
+      List<? extends VariableElement> parameters = method.getParameters();
+      source.append("      case \"").append(methodName).append("\": {\n");
+      StringBuilder callArguments = new StringBuilder();
+      for (int i = 0; i < parameters.size(); i++) {
+        TypeMirror type = processingEnv.getTypeUtils().erasure(parameters.get(i).asType());
+        source.append("        ").append(type.toString()).append(" arg").append(i).append(" = ")
+            .append(argumentExpression(type, i)).append(";\n");
+        if (i > 0) {
+          callArguments.append(", ");
+        }
+        callArguments.append("arg").append(i);
+      }
+      boolean returnsVoid = method.getReturnType().getKind() == TypeKind.VOID;
+      source.append("        try {\n");
+      source.append("          ").append(returnsVoid ? "" : "return ")
+          .append("module.").append(methodName).append("(").append(callArguments).append(");\n");
+      source.append("        } catch (RuntimeException e) {\n");
+      source.append("          throw invocationFailed(module, methodName, e);\n");
+      source.append("        }\n");
+      if (returnsVoid) {
+        source.append("        return null;\n");
+      }
+      source.append("      }\n");
+    }
+
+    source.append("      default:\n");
+    source.append("        throw noSuchMethod(module, methodName);\n");
+    source.append("    }\n");
+    source.append("  }\n");
+    source.append("}\n");
+
+    String dispatcherClassName = packageName.isEmpty() ? dispatcherSimpleName : packageName + "." + dispatcherSimpleName;
+    JavaFileObject file = processingEnv.getFiler().createSourceFile(dispatcherClassName, clazz);
+    Writer writer = file.openWriter();
+    try {
+      writer.write(source.toString());
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static String argumentExpression(TypeMirror type, int index) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return "booleanArgument(module, arguments, " + index + ")";
+      case INT:
+        return "intArgument(module, arguments, " + index + ")";
+      case LONG:
+        return "longArgument(module, arguments, " + index + ")";
+      case FLOAT:
+        return "floatArgument(module, arguments, " + index + ")";
+      case DOUBLE:
+        return "doubleArgument(module, arguments, " + index + ")";
+      case SHORT:
+        return "shortArgument(module, arguments, " + index + ")";
+      case BYTE:
+        return "byteArgument(module, arguments, " + index + ")";
+      default:
+        return "objectArgument(module, arguments, " + index + ", " + type.toString() + ".class)";
+    }
+  }
+}
@@ -6,10 +6,10 @@ import java.util.Collections;
 import java.util.List;
 
 import expo.core.interfaces.InternalModule;
-import expo.core.interfaces.Package;
+import expo.core.interfaces.LazyPackage;
 import expo.core.interfaces.SingletonModule;
 
-public class BasePackage implements Package {
+public class BasePackage implements LazyPackage {
   @Override
   public List<InternalModule> createInternalModules(Context context) {
     return Collections.emptyList();
@@ -29,4 +29,14 @@ public class BasePackage implements Package {
   public List<SingletonModule> createSingletonModules(Context context) {
     return Collections.emptyList();
   }
+
+  @Override
+  public List<InternalModuleDescriptor> getInternalModuleDescriptors() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<ExportedModuleDescriptor> getExportedModuleDescriptors() {
+    return Collections.emptyList();
+  }
 }
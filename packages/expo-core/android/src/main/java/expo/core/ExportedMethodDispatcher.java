@@ -0,0 +1,89 @@
+package expo.core;
+
+/**
+ * Base class for dispatchers generated by the expo-core annotation processor.
+ * For every class declaring {@link expo.core.interfaces.ExpoMethod}s the processor emits
+ * a `ClassName$$ExpoMethodDispatcher` which calls the exported methods directly,
+ * so that {@link ExportedModule#invokeExportedMethod(String, java.util.Collection)} doesn't have
+ * to go through {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+ * Like on the reflective path, every argument goes through
+ * {@link ExportedModule#transformArgumentToClass(Object, Class)} first.
+ *
+ * @param <T> class declaring the exported methods
+ */
+public abstract class ExportedMethodDispatcher<T extends ExportedModule> {
+  public static final String GENERATED_CLASS_SUFFIX = "$$ExpoMethodDispatcher";
+
+  /**
+   * Calls exported method `methodName` on `module`.
+   *
+   * @throws NoSuchMethodException if the method is not declared by T
+   */
+  public abstract Object dispatch(T module, String methodName, Object[] arguments) throws NoSuchMethodException;
+
+  protected static <A> A objectArgument(ExportedModule module, Object[] arguments, int index, Class<A> expectedArgumentClass) {
+    Object argument = module.transformArgumentToClass(arguments[index], expectedArgumentClass);
+    if (argument != null && !expectedArgumentClass.isInstance(argument)) {
+      throw incompatibleArgument(argument, expectedArgumentClass);
+    }
+    return expectedArgumentClass.cast(argument);
+  }
+
+  protected static boolean booleanArgument(ExportedModule module, Object[] arguments, int index) {
+    Object argument = module.transformArgumentToClass(arguments[index], boolean.class);
+    if (!(argument instanceof Boolean)) {
+      throw incompatibleArgument(argument, boolean.class);
+    }
+    return (Boolean) argument;
+  }
+
+  protected static int intArgument(ExportedModule module, Object[] arguments, int index) {
+    return numberArgument(module, arguments, index, int.class).intValue();
+  }
+
+  protected static long longArgument(ExportedModule module, Object[] arguments, int index) {
+    return numberArgument(module, arguments, index, long.class).longValue();
+  }
+
+  protected static float floatArgument(ExportedModule module, Object[] arguments, int index) {
+    return numberArgument(module, arguments, index, float.class).floatValue();
+  }
+
+  protected static double doubleArgument(ExportedModule module, Object[] arguments, int index) {
+    return numberArgument(module, arguments, index, double.class).doubleValue();
+  }
+
+  protected static short shortArgument(ExportedModule module, Object[] arguments, int index) {
+    return numberArgument(module, arguments, index, short.class).shortValue();
+  }
+
+  protected static byte byteArgument(ExportedModule module, Object[] arguments, int index) {
+    return numberArgument(module, arguments, index, byte.class).byteValue();
+  }
+
+  protected static RuntimeException invocationFailed(ExportedModule module, String methodName, Throwable cause) {
+    return new RuntimeException("Exception occurred while executing exported method " + methodName
+            + " on module " + module.getName() + ": " + cause.getMessage(), cause);
+  }
+
+  protected static NoSuchMethodException noSuchMethod(ExportedModule module, String methodName) {
+    return new NoSuchMethodException("Module " + module.getName() + " does not export method " + methodName + ".");
+  }
+
+  private static Number numberArgument(ExportedModule module, Object[] arguments, int index, Class<?> expectedArgumentClass) {
+    Object argument = module.transformArgumentToClass(arguments[index], expectedArgumentClass);
+    if (!(argument instanceof Number)) {
+      throw incompatibleArgument(argument, expectedArgumentClass);
+    }
+    return (Number) argument;
+  }
+
+  private static IllegalArgumentException incompatibleArgument(Object argument, Class<?> expectedArgumentClass) {
+    if (argument == null) {
+      return new IllegalArgumentException(
+              "Argument null cannot be passed to an argument to parameter expecting " + expectedArgumentClass + ".");
+    }
+    return new IllegalArgumentException("Argument of an incompatible class: "
+            + argument.getClass() + " cannot be passed as an argument to parameter expecting " + expectedArgumentClass + ".");
+  }
+}
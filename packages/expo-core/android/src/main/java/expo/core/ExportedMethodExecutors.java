@@ -0,0 +1,187 @@
+package expo.core;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import expo.core.interfaces.ExpoMethod;
+
+/**
+ * Named executors {@link ExpoMethod}s can be routed to with {@link ExpoMethod#executor()}.
+ * The shared pools have bounded queues - when one is full {@link #execute(String, String, Runnable)}
+ * throws {@link RejectedExecutionException} instead of letting the backlog grow. Serial queues are
+ * unbounded, like the native modules thread they replace, since rejecting a call there would break
+ * the ordering they are used for. Every executor keeps {@link Metrics} of how long calls wait
+ * in the queue and how long they run.
+ */
+public class ExportedMethodExecutors {
+  private static final int IO_POOL_SIZE = 4;
+  private static final int COMPUTE_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+  private static final int QUEUE_CAPACITY = 256;
+  private static final int KEEP_ALIVE_SECONDS = 30;
+
+  private static final Map<String, MeteredExecutor> sExecutors = new ConcurrentHashMap<>();
+
+  /**
+   * Statistics of a single named executor, since the process started.
+   */
+  public static class Metrics {
+    private final AtomicLong mSubmittedCount = new AtomicLong();
+    private final AtomicLong mRejectedCount = new AtomicLong();
+    private final AtomicLong mCompletedCount = new AtomicLong();
+    private final AtomicLong mTotalQueueLatencyNanos = new AtomicLong();
+    private final AtomicLong mMaxQueueLatencyNanos = new AtomicLong();
+    private final AtomicLong mTotalRunTimeNanos = new AtomicLong();
+
+    public long getSubmittedCount() {
+      return mSubmittedCount.get();
+    }
+
+    public long getRejectedCount() {
+      return mRejectedCount.get();
+    }
+
+    public long getCompletedCount() {
+      return mCompletedCount.get();
+    }
+
+    public long getAverageQueueLatencyNanos() {
+      long completed = mCompletedCount.get();
+      return completed == 0 ? 0 : mTotalQueueLatencyNanos.get() / completed;
+    }
+
+    public long getMaxQueueLatencyNanos() {
+      return mMaxQueueLatencyNanos.get();
+    }
+
+    public long getAverageRunTimeNanos() {
+      long completed = mCompletedCount.get();
+      return completed == 0 ? 0 : mTotalRunTimeNanos.get() / completed;
+    }
+
+    private void recordCompletion(long queueLatencyNanos, long runTimeNanos) {
+      mTotalQueueLatencyNanos.addAndGet(queueLatencyNanos);
+      mTotalRunTimeNanos.addAndGet(runTimeNanos);
+      mCompletedCount.incrementAndGet();
+      long max = mMaxQueueLatencyNanos.get();
+      while (queueLatencyNanos > max && !mMaxQueueLatencyNanos.compareAndSet(max, queueLatencyNanos)) {
+        max = mMaxQueueLatencyNanos.get();
+      }
+    }
+  }
+
+  /**
+   * Runs `runnable` on the executor named `executorName`. {@link ExpoMethod#CALLER_EXECUTOR}
+   * (and {@link ExpoMethod#MODULE_DEFAULT_EXECUTOR}) run it synchronously on the calling thread,
+   * {@link ExpoMethod#SERIAL_EXECUTOR} uses a serial queue of module `moduleName`.
+   *
+   * @throws RejectedExecutionException if the queue of a shared pool is full
+   * @throws IllegalArgumentException if there is no executor of such name
+   */
+  public static void execute(String executorName, String moduleName, Runnable runnable) {
+    if (executorName == null
+        || ExpoMethod.CALLER_EXECUTOR.equals(executorName)
+        || ExpoMethod.MODULE_DEFAULT_EXECUTOR.equals(executorName)) {
+      runnable.run();
+      return;
+    }
+    getExecutor(executorName, moduleName).execute(runnable);
+  }
+
+  /**
+   * Returns metrics of the executor with given name (for serial queues: "serial:ModuleName"),
+   * or null if nothing has been executed on it yet.
+   */
+  public static Metrics getMetrics(String executorName) {
+    MeteredExecutor executor = sExecutors.get(executorName);
+    return executor != null ? executor.mMetrics : null;
+  }
+
+  private static MeteredExecutor getExecutor(String executorName, String moduleName) {
+    String key = ExpoMethod.SERIAL_EXECUTOR.equals(executorName) ? ExpoMethod.SERIAL_EXECUTOR + ":" + moduleName : executorName;
+    MeteredExecutor executor = sExecutors.get(key);
+    if (executor != null) {
+      return executor;
+    }
+
+    synchronized (sExecutors) {
+      executor = sExecutors.get(key);
+      if (executor == null) {
+        BlockingQueue<Runnable> queue = ExpoMethod.SERIAL_EXECUTOR.equals(executorName)
+            ? new LinkedBlockingQueue<Runnable>()
+            : new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY);
+        executor = new MeteredExecutor(key, poolSizeFor(executorName), queue);
+        sExecutors.put(key, executor);
+      }
+      return executor;
+    }
+  }
+
+  private static int poolSizeFor(String executorName) {
+    switch (executorName) {
+      case ExpoMethod.IO_EXECUTOR:
+        return IO_POOL_SIZE;
+      case ExpoMethod.COMPUTE_EXECUTOR:
+        return COMPUTE_POOL_SIZE;
+      case ExpoMethod.SERIAL_EXECUTOR:
+        return 1;
+      default:
+        throw new IllegalArgumentException("Unknown ExpoMethod executor: " + executorName + ".");
+    }
+  }
+
+  private static class MeteredExecutor implements Executor {
+    private final ThreadPoolExecutor mExecutor;
+    private final Metrics mMetrics = new Metrics();
+
+    MeteredExecutor(final String name, int poolSize, BlockingQueue<Runnable> queue) {
+      mExecutor = new ThreadPoolExecutor(
+          poolSize,
+          poolSize,
+          KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS,
+          queue,
+          new ThreadFactory() {
+            private final AtomicInteger mThreadsCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+              return new Thread(runnable, "expo-" + name + "-" + mThreadsCount.incrementAndGet());
+            }
+          });
+      // Serial queues are created per module, don't keep their threads around when idle.
+      mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(final Runnable runnable) {
+      final long enqueuedAt = System.nanoTime();
+      try {
+        mExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            long startedAt = System.nanoTime();
+            try {
+              runnable.run();
+            } finally {
+              mMetrics.recordCompletion(startedAt - enqueuedAt, System.nanoTime() - startedAt);
+            }
+          }
+        });
+        mMetrics.mSubmittedCount.incrementAndGet();
+      } catch (RejectedExecutionException e) {
+        mMetrics.mRejectedCount.incrementAndGet();
+        throw e;
+      }
+    }
+  }
+}
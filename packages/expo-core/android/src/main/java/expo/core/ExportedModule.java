@@ -11,6 +11,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import expo.core.interfaces.ExpoMethod;
 
@@ -23,15 +24,40 @@ import expo.core.interfaces.ExpoMethod;
 public abstract class ExportedModule {
   public class MethodInfo {
     private Class<?>[] mParameterTypes;
+    private String mExecutor;
 
     MethodInfo(Method method) {
       mParameterTypes = method.getParameterTypes();
+      ExpoMethod annotation = method.getAnnotation(ExpoMethod.class);
+      mExecutor = annotation != null ? annotation.executor() : ExpoMethod.MODULE_DEFAULT_EXECUTOR;
+      if (ExpoMethod.MODULE_DEFAULT_EXECUTOR.equals(mExecutor)) {
+        mExecutor = getMethodsExecutor();
+      }
     }
 
     public Class<?>[] getParameterTypes() {
       return mParameterTypes;
     }
+
+    /**
+     * Name of the {@link ExportedMethodExecutors} executor the method should be invoked on.
+     */
+    public String getExecutor() {
+      return mExecutor;
+    }
   }
+
+  // Dispatchers generated by the expo-core annotation processor, by the class declaring the methods.
+  private static final Map<Class, ExportedMethodDispatcher> sDispatchers = new ConcurrentHashMap<>();
+  // Exported methods of lazily registered modules, by module class.
+  private static final Map<Class, Map<String, Method>> sAnnotatedMethods = new ConcurrentHashMap<>();
+  private static final ExportedMethodDispatcher NO_DISPATCHER = new ExportedMethodDispatcher() {
+    @Override
+    public Object dispatch(ExportedModule module, String methodName, Object[] arguments) throws NoSuchMethodException {
+      throw new NoSuchMethodException();
+    }
+  };
+
   private Context mContext;
   private Map<String, Method> mExportedMethods;
   private Map<String, MethodInfo> mExportedMethodInfos;
@@ -50,6 +76,14 @@ public abstract class ExportedModule {
     return mContext;
   }
 
+  /**
+   * Executor for exported methods which don't specify {@link ExpoMethod#executor()}.
+   * Override to move all methods of a module off the calling thread.
+   */
+  public String getMethodsExecutor() {
+    return ExpoMethod.CALLER_EXECUTOR;
+  }
+
   /**
    * Returns a map of { exportedMethodName => methodInfo } so that eg. platform adapter knows
    * what classes of arguments does the method expect.
@@ -68,8 +102,10 @@ public abstract class ExportedModule {
   }
 
   /**
-   * Invokes an exported method
+   * Invokes an exported method. Uses the generated {@link ExportedMethodDispatcher}
+   * of the class declaring the method if there is one and falls back to reflection otherwise.
    */
+  @SuppressWarnings("unchecked")
   public Object invokeExportedMethod(String methodName, Collection<Object> arguments) throws NoSuchMethodException, RuntimeException {
     Method method = mExportedMethods.get(methodName);
 
@@ -84,6 +120,11 @@ public abstract class ExportedModule {
                       + "whereas " + arguments.size() + " arguments have been provided.");
     }
 
+    ExportedMethodDispatcher dispatcher = getDispatcher(method.getDeclaringClass());
+    if (dispatcher != NO_DISPATCHER) {
+      return dispatcher.dispatch(this, methodName, arguments.toArray());
+    }
+
     Class<?>[] expectedArgumentClasses = method.getParameterTypes();
     Iterator<Object> actualArgumentsIterator = arguments.iterator();
     List<Object> transformedArguments = new ArrayList<>(arguments.size());
@@ -101,6 +142,23 @@ public abstract class ExportedModule {
     }
   }
 
+  private static ExportedMethodDispatcher getDispatcher(Class declaringClass) {
+    ExportedMethodDispatcher dispatcher = sDispatchers.get(declaringClass);
+    if (dispatcher != null) {
+      return dispatcher;
+    }
+
+    try {
+      Class dispatcherClass = Class.forName(declaringClass.getName() + ExportedMethodDispatcher.GENERATED_CLASS_SUFFIX, true, declaringClass.getClassLoader());
+      dispatcher = (ExportedMethodDispatcher) dispatcherClass.newInstance();
+    } catch (ClassNotFoundException | IllegalAccessException | InstantiationException | ClassCastException e) {
+      // No generated code for this module, use reflection.
+      dispatcher = NO_DISPATCHER;
+    }
+    sDispatchers.put(declaringClass, dispatcher);
+    return dispatcher;
+  }
+
   protected Object transformArgumentToClass(Object argument, Class<?> expectedArgumentClass) {
     return ArgumentsHelper.validatedArgumentForClass(argument, expectedArgumentClass);
   }
@@ -164,4 +222,31 @@ public abstract class ExportedModule {
 
     return exportedMethods;
   }
+
+  /**
+   * Returns methods of `moduleClass` and its superclasses annotated with {@link ExpoMethod},
+   * without creating the module, so that modules registered with {@link ExportedModuleDescriptor}
+   * can be described to client code before they are used. The methods are validated
+   * by {@link #getExportedMethods()} once the module is created.
+   */
+  public static Map<String, Method> findAnnotatedMethods(Class<? extends ExportedModule> moduleClass) {
+    Map<String, Method> annotatedMethods = sAnnotatedMethods.get(moduleClass);
+    if (annotatedMethods != null) {
+      return annotatedMethods;
+    }
+
+    annotatedMethods = new HashMap<>();
+    Class klass = moduleClass;
+    while (klass != null && ExportedModule.class.isAssignableFrom(klass)) {
+      for (Method method : klass.getDeclaredMethods()) {
+        if (method.getAnnotation(ExpoMethod.class) != null && !annotatedMethods.containsKey(method.getName())) {
+          annotatedMethods.put(method.getName(), method);
+        }
+      }
+      klass = klass.getSuperclass();
+    }
+    annotatedMethods = Collections.unmodifiableMap(annotatedMethods);
+    sAnnotatedMethods.put(moduleClass, annotatedMethods);
+    return annotatedMethods;
+  }
 }
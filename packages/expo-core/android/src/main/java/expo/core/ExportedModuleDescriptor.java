@@ -0,0 +1,30 @@
+package expo.core;
+
+import android.content.Context;
+
+/**
+ * Lightweight description of an {@link ExportedModule} which lets {@link ModuleRegistry}
+ * postpone creating the module until it is first used.
+ * The module has to return {@link #getName()} from {@link ExportedModule#getName()}
+ * and export its methods with {@link expo.core.interfaces.ExpoMethod}, so that
+ * platform adapters can describe it to client code without an instance.
+ */
+public abstract class ExportedModuleDescriptor {
+  private final String mName;
+  private final Class<? extends ExportedModule> mModuleClass;
+
+  public ExportedModuleDescriptor(String name, Class<? extends ExportedModule> moduleClass) {
+    mName = name;
+    mModuleClass = moduleClass;
+  }
+
+  public String getName() {
+    return mName;
+  }
+
+  public Class<? extends ExportedModule> getModuleClass() {
+    return mModuleClass;
+  }
+
+  public abstract ExportedModule create(Context context);
+}
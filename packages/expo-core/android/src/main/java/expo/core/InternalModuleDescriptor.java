@@ -0,0 +1,26 @@
+package expo.core;
+
+import android.content.Context;
+
+import java.util.List;
+
+import expo.core.interfaces.InternalModule;
+
+/**
+ * Lightweight description of an {@link InternalModule} which lets {@link ModuleRegistry}
+ * postpone creating the module until one of its interfaces is first requested.
+ * {@link #getExportedInterfaces()} has to match {@link InternalModule#getExportedInterfaces()}.
+ */
+public abstract class InternalModuleDescriptor {
+  private final List<Class> mExportedInterfaces;
+
+  public InternalModuleDescriptor(List<Class> exportedInterfaces) {
+    mExportedInterfaces = exportedInterfaces;
+  }
+
+  public List<Class> getExportedInterfaces() {
+    return mExportedInterfaces;
+  }
+
+  public abstract InternalModule create(Context context);
+}
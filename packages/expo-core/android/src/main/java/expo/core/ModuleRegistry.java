@@ -1,11 +1,17 @@
 package expo.core;
 
+import android.content.Context;
+
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import expo.core.interfaces.InternalModule;
 import expo.core.interfaces.ModuleRegistryConsumer;
@@ -13,13 +19,28 @@ import expo.core.interfaces.SingletonModule;
 
 public class ModuleRegistry {
   private volatile boolean mIsInitialized = false;
-  private final Map<Class, InternalModule> mInternalModulesMap = new HashMap<>();
+  // Lazily registered modules may get created from any thread calling into the registry.
+  private final Map<Class, InternalModule> mInternalModulesMap = new ConcurrentHashMap<>();
   private final Map<String, ViewManager> mViewManagersMap = new HashMap<>();
-  private final Map<String, ExportedModule> mExportedModulesMap = new HashMap<>();
-  private final Map<Class, ExportedModule> mExportedModulesByClassMap = new HashMap<>();
+  private final Map<String, ExportedModule> mExportedModulesMap = new ConcurrentHashMap<>();
+  private final Map<Class, ExportedModule> mExportedModulesByClassMap = new ConcurrentHashMap<>();
   private final Map<String, SingletonModule> mSingletonModulesMap = new HashMap<>();
 
-  private List<WeakReference<ModuleRegistryConsumer>> mRegistryConsumers = new ArrayList<>();
+  // Modules registered with descriptors which haven't been created yet.
+  private final Map<Class, LazyModule<InternalModuleDescriptor>> mLazyInternalModulesMap = new HashMap<>();
+  private final Map<String, LazyModule<ExportedModuleDescriptor>> mLazyExportedModulesMap = new HashMap<>();
+
+  private static class LazyModule<D> {
+    private final D mDescriptor;
+    private final Context mContext;
+
+    LazyModule(D descriptor, Context context) {
+      mDescriptor = descriptor;
+      mContext = context;
+    }
+  }
+
+  private List<WeakReference<ModuleRegistryConsumer>> mRegistryConsumers = new CopyOnWriteArrayList<>();
 
   public ModuleRegistry(
           Collection<InternalModule> internalModules,
@@ -51,25 +72,84 @@ public class ModuleRegistry {
 
   @SuppressWarnings("unchecked")
   public <T> T getModule(Class<T> interfaceClass) {
-    return (T) mInternalModulesMap.get(interfaceClass);
+    InternalModule module = mInternalModulesMap.get(interfaceClass);
+    if (module == null) {
+      module = createLazyInternalModule(interfaceClass);
+    }
+    return (T) module;
   }
 
   public ExportedModule getExportedModule(String name) {
-    return mExportedModulesMap.get(name);
+    ExportedModule module = mExportedModulesMap.get(name);
+    if (module == null) {
+      module = createLazyExportedModule(name);
+    }
+    return module;
   }
 
   public ExportedModule getExportedModuleOfClass(Class moduleClass) {
-    return mExportedModulesByClassMap.get(moduleClass);
+    ExportedModule module = mExportedModulesByClassMap.get(moduleClass);
+    if (module != null) {
+      return module;
+    }
+
+    String lazyModuleName = null;
+    synchronized (mLazyExportedModulesMap) {
+      for (LazyModule<ExportedModuleDescriptor> lazyModule : mLazyExportedModulesMap.values()) {
+        if (lazyModule.mDescriptor.getModuleClass() == moduleClass) {
+          lazyModuleName = lazyModule.mDescriptor.getName();
+          break;
+        }
+      }
+    }
+    return lazyModuleName != null ? createLazyExportedModule(lazyModuleName) : null;
   }
 
   public Collection<ViewManager> getAllViewManagers() {
     return mViewManagersMap.values();
   }
 
+  /**
+   * Returns all exported modules, creating the lazily registered ones.
+   * Use {@link #getExportedModulesNames()} if you don't need the instances.
+   */
   public Collection<ExportedModule> getAllExportedModules() {
+    for (String name : getLazyExportedModulesNames()) {
+      createLazyExportedModule(name);
+    }
     return mExportedModulesMap.values();
   }
 
+  /**
+   * Returns names of all exported modules, including the ones which haven't been created yet.
+   */
+  public Collection<String> getExportedModulesNames() {
+    Set<String> names = new HashSet<>(mExportedModulesMap.keySet());
+    names.addAll(getLazyExportedModulesNames());
+    return names;
+  }
+
+  /**
+   * Returns class of the exported module, without creating it.
+   */
+  public Class<? extends ExportedModule> getExportedModuleClass(String name) {
+    ExportedModule module = mExportedModulesMap.get(name);
+    if (module != null) {
+      return module.getClass();
+    }
+    synchronized (mLazyExportedModulesMap) {
+      LazyModule<ExportedModuleDescriptor> lazyModule = mLazyExportedModulesMap.get(name);
+      return lazyModule != null ? lazyModule.mDescriptor.getModuleClass() : null;
+    }
+  }
+
+  /**
+   * Returns whether the exported module has already been created.
+   */
+  public boolean isExportedModuleCreated(String name) {
+    return mExportedModulesMap.containsKey(name);
+  }
+
   public <T> T getSingletonModule(String singletonName, Class<T> singletonClass) {
     return (T) mSingletonModulesMap.get(singletonName);
   }
@@ -85,6 +165,10 @@ public class ModuleRegistry {
       mInternalModulesMap.put(exportedInterface, module);
       maybeAddRegistryConsumer(module);
     }
+    // Eagerly registered modules take precedence over the lazy ones.
+    synchronized (mLazyInternalModulesMap) {
+      mLazyInternalModulesMap.keySet().removeAll(module.getExportedInterfaces());
+    }
   }
 
   public InternalModule unregisterInternalModule(Class exportedInterface) {
@@ -97,6 +181,9 @@ public class ModuleRegistry {
     mExportedModulesMap.put(moduleName, module);
     mExportedModulesByClassMap.put(module.getClass(), module);
     maybeAddRegistryConsumer(module);
+    synchronized (mLazyExportedModulesMap) {
+      mLazyExportedModulesMap.remove(moduleName);
+    }
   }
 
   public void registerViewManager(ViewManager manager) {
@@ -112,6 +199,85 @@ public class ModuleRegistry {
     mSingletonModulesMap.put(singletonName, singleton);
   }
 
+  /**
+   * Registers an internal module which will be created when any of its interfaces is first requested.
+   */
+  public void registerLazyInternalModule(InternalModuleDescriptor descriptor, Context context) {
+    LazyModule<InternalModuleDescriptor> lazyModule = new LazyModule<>(descriptor, context);
+    synchronized (mLazyInternalModulesMap) {
+      for (Class exportedInterface : descriptor.getExportedInterfaces()) {
+        mLazyInternalModulesMap.put(exportedInterface, lazyModule);
+      }
+    }
+  }
+
+  /**
+   * Registers an exported module which will be created when it is first requested.
+   */
+  public void registerLazyExportedModule(ExportedModuleDescriptor descriptor, Context context) {
+    synchronized (mLazyExportedModulesMap) {
+      mLazyExportedModulesMap.put(descriptor.getName(), new LazyModule<>(descriptor, context));
+    }
+  }
+
+  private InternalModule createLazyInternalModule(Class interfaceClass) {
+    synchronized (mLazyInternalModulesMap) {
+      InternalModule module = mInternalModulesMap.get(interfaceClass);
+      if (module != null) {
+        return module;
+      }
+      LazyModule<InternalModuleDescriptor> lazyModule = mLazyInternalModulesMap.get(interfaceClass);
+      if (lazyModule == null) {
+        return null;
+      }
+
+      module = lazyModule.mDescriptor.create(lazyModule.mContext);
+      for (Class exportedInterface : lazyModule.mDescriptor.getExportedInterfaces()) {
+        mLazyInternalModulesMap.remove(exportedInterface);
+      }
+      registerInternalModule(module);
+      initializeLazyModule(module);
+      return module;
+    }
+  }
+
+  private ExportedModule createLazyExportedModule(String name) {
+    synchronized (mLazyExportedModulesMap) {
+      ExportedModule module = mExportedModulesMap.get(name);
+      if (module != null) {
+        return module;
+      }
+      LazyModule<ExportedModuleDescriptor> lazyModule = mLazyExportedModulesMap.remove(name);
+      if (lazyModule == null) {
+        return null;
+      }
+
+      module = lazyModule.mDescriptor.create(lazyModule.mContext);
+      if (!name.equals(module.getName())) {
+        throw new IllegalStateException("Exported module " + module.getName() + " has been described as " + name + ".");
+      }
+      registerExportedModule(module);
+      initializeLazyModule(module);
+      return module;
+    }
+  }
+
+  private Collection<String> getLazyExportedModulesNames() {
+    synchronized (mLazyExportedModulesMap) {
+      return new ArrayList<>(mLazyExportedModulesMap.keySet());
+    }
+  }
+
+  /**
+   * Modules created after the registry has been initialized don't get
+   * {@link ModuleRegistryConsumer#setModuleRegistry(ModuleRegistry)} called by {@link #initialize()}.
+   */
+  private void initializeLazyModule(Object module) {
+    if (mIsInitialized && module instanceof ModuleRegistryConsumer) {
+      ((ModuleRegistryConsumer) module).setModuleRegistry(this);
+    }
+  }
+
   /********************************************************
    *
    *  Managing registry consumers
@@ -147,7 +313,9 @@ public class ModuleRegistry {
 
   public void initialize() {
     Collection<WeakReference> emptyReferences = new ArrayList<>();
-    for (WeakReference<ModuleRegistryConsumer> consumerWeakReference : mRegistryConsumers) {
+    // Consumers may request lazily registered modules, which adds them to the list while we iterate.
+    for (int i = 0; i < mRegistryConsumers.size(); i++) {
+      WeakReference<ModuleRegistryConsumer> consumerWeakReference = mRegistryConsumers.get(i);
       ModuleRegistryConsumer consumer = consumerWeakReference.get();
       if (consumer != null) {
         consumer.setModuleRegistry(this);
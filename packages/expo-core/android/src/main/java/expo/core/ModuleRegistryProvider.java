@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.List;
 
 import expo.core.interfaces.InternalModule;
+import expo.core.interfaces.LazyPackage;
 import expo.core.interfaces.Package;
 import expo.core.interfaces.SingletonModule;
 
@@ -26,12 +27,30 @@ public class ModuleRegistryProvider {
   }
 
   public ModuleRegistry get(Context context) {
-    return new ModuleRegistry(
+    ModuleRegistry moduleRegistry = new ModuleRegistry(
             createInternalModules(context),
             createExportedModules(context),
             createViewManagers(context),
             createSingletonModules(context)
     );
+    registerLazyModules(moduleRegistry, context);
+    return moduleRegistry;
+  }
+
+  /**
+   * Registers modules described by {@link LazyPackage}s, which get created on first use.
+   */
+  protected void registerLazyModules(ModuleRegistry moduleRegistry, Context context) {
+    for (Package pkg : getPackages()) {
+      if (pkg instanceof LazyPackage) {
+        for (InternalModuleDescriptor descriptor : ((LazyPackage) pkg).getInternalModuleDescriptors()) {
+          moduleRegistry.registerLazyInternalModule(descriptor, context);
+        }
+        for (ExportedModuleDescriptor descriptor : ((LazyPackage) pkg).getExportedModuleDescriptors()) {
+          moduleRegistry.registerLazyExportedModule(descriptor, context);
+        }
+      }
+    }
   }
 
   public Collection<InternalModule> createInternalModules(Context context) {
@@ -6,7 +6,33 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 /**
  * Methods annotated with {@link ExpoMethod} will get exported to client code realm.
+ * Use {@link #executor()} to choose where the method is invoked.
  */
 @Retention(RUNTIME)
 public @interface ExpoMethod {
+  /**
+   * Use the executor returned by {@link expo.core.ExportedModule#getMethodsExecutor()}.
+   */
+  String MODULE_DEFAULT_EXECUTOR = "";
+  /**
+   * Invoke synchronously on the thread calling the method (on React Native, the native modules thread).
+   */
+  String CALLER_EXECUTOR = "caller";
+  /**
+   * Shared pool for blocking file system, database and network work.
+   * Calls run concurrently, so two calls of one module may run (and complete) out of order -
+   * use {@link #SERIAL_EXECUTOR} for methods which depend on the effects of each other.
+   */
+  String IO_EXECUTOR = "io";
+  /**
+   * Shared pool, sized to the number of cores, for CPU bound work.
+   */
+  String COMPUTE_EXECUTOR = "compute";
+  /**
+   * Per-module serial queue, for methods which have to run one at a time and in order.
+   * The queue is unbounded, so keep long running work off it.
+   */
+  String SERIAL_EXECUTOR = "serial";
+
+  String executor() default MODULE_DEFAULT_EXECUTOR;
 }
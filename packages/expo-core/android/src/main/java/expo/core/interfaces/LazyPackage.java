@@ -0,0 +1,15 @@
+package expo.core.interfaces;
+
+import java.util.List;
+
+import expo.core.ExportedModuleDescriptor;
+import expo.core.InternalModuleDescriptor;
+
+/**
+ * {@link Package} which, in addition to the modules it creates eagerly, describes modules
+ * which should only be created when they are first used.
+ */
+public interface LazyPackage extends Package {
+  List<InternalModuleDescriptor> getInternalModuleDescriptors();
+  List<ExportedModuleDescriptor> getExportedModuleDescriptors();
+}
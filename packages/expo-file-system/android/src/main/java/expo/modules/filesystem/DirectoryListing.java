@@ -0,0 +1,213 @@
+package expo.modules.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+/**
+ * Lists directories for {@link FileSystemModule#readDirectoryPagedAsync} and sums their sizes
+ * for {@link FileSystemModule#directorySizeAsync}.
+ *
+ * Directories are walked depth-first with children sorted by name, so that the order of the entries
+ * is stable and the relative path of the last entry of a page can serve as a cursor for the next one.
+ * When continuing from a cursor, subtrees which lie entirely before it are skipped without being listed.
+ * Symbolic links to directories are listed, but never followed, so links pointing up the tree can't loop.
+ */
+class DirectoryListing {
+  private static final int SIZE_WALK_PARALLELISM = 4;
+  private static ForkJoinPool sSizeWalkPool;
+
+  static class Entry {
+    final String path; // relative to the listed directory, always with '/' separators
+    final File file;
+    final boolean isDirectory;
+    final long size;
+    final long lastModified;
+
+    Entry(String path, File file) {
+      this.path = path;
+      this.file = file;
+      this.isDirectory = file.isDirectory();
+      this.size = isDirectory ? 0 : file.length();
+      this.lastModified = file.lastModified();
+    }
+  }
+
+  static class Page {
+    final List<Entry> entries;
+    final String nextCursor; // null on the last page
+
+    Page(List<Entry> entries, String nextCursor) {
+      this.entries = entries;
+      this.nextCursor = nextCursor;
+    }
+  }
+
+  static class Size {
+    long bytes;
+    long filesCount;
+    long directoriesCount;
+  }
+
+  /**
+   * Returns up to `pageSize` entries of `directory` which come after `cursor` (null for the first page)
+   * and whose relative paths match `glob` (null matches everything).
+   */
+  static Page list(File directory, boolean recursive, String glob, String cursor, int pageSize) {
+    Pattern pattern = glob != null ? globToPattern(glob) : null;
+    String[] cursorSegments = cursor != null ? cursor.split("/") : null;
+    List<Entry> entries = new ArrayList<>(Math.min(pageSize, 256));
+    boolean hasMore = walk(directory, "", 0, recursive, pattern, cursorSegments, pageSize, entries);
+    String nextCursor = hasMore && !entries.isEmpty() ? entries.get(entries.size() - 1).path : null;
+    return new Page(entries, nextCursor);
+  }
+
+  /**
+   * Returns true if the walk stopped because the page is full.
+   */
+  private static boolean walk(File directory, String prefix, int depth, boolean recursive, Pattern pattern,
+                              String[] cursorSegments, int pageSize, List<Entry> entries) {
+    String[] names = directory.list();
+    if (names == null) {
+      return false;
+    }
+    Arrays.sort(names);
+
+    for (String name : names) {
+      // Position of this entry relative to the cursor: < 0 before it, 0 it's the cursor or its ancestor, > 0 after it.
+      int cursorOrder = 1;
+      boolean isCursorAncestor = false;
+      if (cursorSegments != null && depth < cursorSegments.length) {
+        cursorOrder = name.compareTo(cursorSegments[depth]);
+        isCursorAncestor = cursorOrder == 0 && depth < cursorSegments.length - 1;
+      }
+      if (cursorOrder < 0) {
+        // Entry and everything under it has been returned on previous pages.
+        continue;
+      }
+
+      File file = new File(directory, name);
+      String path = prefix + name;
+      if (cursorOrder > 0) {
+        if (entries.size() == pageSize) {
+          return true;
+        }
+        if (pattern == null || pattern.matcher(path).matches()) {
+          entries.add(new Entry(path, file));
+        }
+      }
+
+      if (recursive && file.isDirectory() && !isSymlink(file)) {
+        // Past the cursor's branch everything is new, so the cursor doesn't apply in the subtree.
+        String[] subtreeCursor = cursorOrder == 0 ? cursorSegments : null;
+        if (cursorOrder == 0 && !isCursorAncestor) {
+          // The cursor is this directory itself, its whole subtree comes after it.
+          subtreeCursor = null;
+        }
+        if (walk(file, path + "/", depth + 1, true, pattern, subtreeCursor, pageSize, entries)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sums sizes of all files under `directory`, walking its subdirectories in parallel.
+   */
+  static Size size(File directory) {
+    return getSizeWalkPool().invoke(new SizeTask(directory));
+  }
+
+  private static synchronized ForkJoinPool getSizeWalkPool() {
+    if (sSizeWalkPool == null) {
+      sSizeWalkPool = new ForkJoinPool(SIZE_WALK_PARALLELISM);
+    }
+    return sSizeWalkPool;
+  }
+
+  private static class SizeTask extends RecursiveTask<Size> {
+    private final File mDirectory;
+
+    SizeTask(File directory) {
+      mDirectory = directory;
+    }
+
+    @Override
+    protected Size compute() {
+      Size size = new Size();
+      File[] children = mDirectory.listFiles();
+      if (children == null) {
+        return size;
+      }
+
+      List<SizeTask> subtasks = new ArrayList<>();
+      for (File child : children) {
+        if (child.isDirectory()) {
+          if (isSymlink(child)) {
+            // Its contents are counted where the link points to, if at all.
+            continue;
+          }
+          size.directoriesCount++;
+          SizeTask subtask = new SizeTask(child);
+          subtask.fork();
+          subtasks.add(subtask);
+        } else {
+          size.filesCount++;
+          size.bytes += child.length();
+        }
+      }
+
+      for (SizeTask subtask : subtasks) {
+        Size subtreeSize = subtask.join();
+        size.bytes += subtreeSize.bytes;
+        size.filesCount += subtreeSize.filesCount;
+        size.directoriesCount += subtreeSize.directoriesCount;
+      }
+      return size;
+    }
+  }
+
+  // java.nio.file isn't available before API 26. A file is a link if resolving links changes its path
+  // once its parent is resolved. Files which can't be resolved are treated as links, so they aren't followed.
+  private static boolean isSymlink(File file) {
+    try {
+      File parent = file.getAbsoluteFile().getParentFile();
+      if (parent == null) {
+        return false;
+      }
+      File fileInCanonicalParent = new File(parent.getCanonicalFile(), file.getName());
+      return !fileInCanonicalParent.getCanonicalFile().equals(fileInCanonicalParent.getAbsoluteFile());
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  // `*` and `?` don't match across directories, `**` does.
+  private static Pattern globToPattern(String glob) {
+    StringBuilder regex = new StringBuilder();
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      if (c == '*') {
+        if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+          regex.append(".*");
+          i++;
+        } else {
+          regex.append("[^/]*");
+        }
+      } else if (c == '?') {
+        regex.append("[^/]");
+      } else if ("\\.[]{}()+-^$|".indexOf(c) != -1) {
+        regex.append('\\').append(c);
+      } else {
+        regex.append(c);
+      }
+    }
+    return Pattern.compile(regex.toString());
+  }
+}
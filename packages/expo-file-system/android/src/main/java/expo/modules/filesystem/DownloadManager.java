@@ -0,0 +1,539 @@
+package expo.modules.filesystem;
+
+import android.util.Log;
+
+import org.apache.commons.codec.binary.Hex;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads files for {@link FileSystemModule#downloadAsync}.
+ *
+ * Large files served with `Accept-Ranges: bytes` and a validator - a strong `ETag` or `Last-Modified` - are split into up to {@link #MAX_SEGMENTS} HTTP range
+ * segments which are fetched in parallel and written straight to their offsets in the destination file.
+ * The first segment is read from the response to the initial request, which is also where the length
+ * and the returned headers come from, so no separate probe request is made.
+ * Progress of the segments is saved in `stateDirectory`, in a file named after the hash of the destination path,
+ * so a download interrupted even by process death continues where it stopped the next time the same URL
+ * is downloaded to the same file. Range requests are sent with `If-Range`, so bytes of a file which has changed
+ * in the meantime are never joined with the old ones, the download starts over instead.
+ * Other files are streamed in one request, hashing them on the fly if an MD5 was requested.
+ */
+class DownloadManager {
+  private static final String TAG = DownloadManager.class.getSimpleName();
+
+  private static final long PARALLEL_DOWNLOAD_THRESHOLD = 8 * 1024 * 1024;
+  private static final int MAX_SEGMENTS = 4;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long STATE_SAVE_INTERVAL_MS = 1000;
+  private static final String STATE_FILE_EXTENSION = ".json";
+
+  interface Callback {
+    void onComplete(Result result);
+
+    void onError(Exception e);
+  }
+
+  static class Result {
+    final int status;
+    final Headers headers;
+    final String md5;
+
+    Result(int status, Headers headers, String md5) {
+      this.status = status;
+      this.headers = headers;
+      this.md5 = md5;
+    }
+  }
+
+  private final OkHttpClient mClient;
+  private final File mStateDirectory;
+  private final ExecutorService mExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+    private final AtomicInteger mThreadsCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      return new Thread(runnable, "expo-file-system-download-" + mThreadsCount.incrementAndGet());
+    }
+  });
+
+  DownloadManager(OkHttpClient client, File stateDirectory) {
+    mClient = client;
+    mStateDirectory = stateDirectory;
+  }
+
+  /**
+   * Interrupts running downloads and stops the threads. Segmented downloads keep their saved progress
+   * and continue when they are started again.
+   */
+  void shutdown() {
+    mExecutor.shutdownNow();
+  }
+
+  void download(final String url, final File file, final Map<String, String> headers, final boolean md5, final Callback callback) {
+    mExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          callback.onComplete(downloadSync(url, file, headers, md5));
+        } catch (Exception e) {
+          callback.onError(e);
+        }
+      }
+    });
+  }
+
+  private Result downloadSync(String url, File file, Map<String, String> headers, boolean md5) throws IOException {
+    File stateFile = getStateFile(file);
+    DownloadState state = DownloadState.read(stateFile);
+    if (state != null && (!state.url.equals(url) || !file.exists() || file.length() != state.length)) {
+      state = null;
+    }
+
+    Response response = null;
+    if (state == null) {
+      response = mClient.newCall(buildRequest(url, headers).build()).execute();
+
+      long length = parseLength(response.header("Content-Length"));
+      boolean acceptsRanges = "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
+      String validator = getValidator(response);
+      // Without a validator there is no way to tell whether ranges come from the same version of the file.
+      if (response.code() != 200 || !acceptsRanges || validator == null || length < PARALLEL_DOWNLOAD_THRESHOLD) {
+        return writeResponse(response, file, md5);
+      }
+
+      try {
+        state = DownloadState.create(url, validator, length, response.headers(), MAX_SEGMENTS);
+        if (!mStateDirectory.isDirectory() && !mStateDirectory.mkdirs()) {
+          throw new IOException("Couldn't create directory " + mStateDirectory);
+        }
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+          output.setLength(length);
+        } finally {
+          output.close();
+        }
+        state.write(stateFile);
+      } catch (IOException e) {
+        response.close();
+        throw e;
+      }
+    }
+
+    SegmentsDigest digest = md5 ? new SegmentsDigest(state.segments) : null;
+    try {
+      downloadSegments(url, file, headers, state, stateFile, response, digest);
+    } catch (RangeNotSatisfiedException e) {
+      Log.w(TAG, url + " has changed or the server stopped honoring range requests, downloading it again in one request.");
+      stateFile.delete();
+      return writeResponse(mClient.newCall(buildRequest(url, headers).build()).execute(), file, md5);
+    }
+    stateFile.delete();
+    return new Result(200, state.headers, digest != null ? digest.finish(file) : null);
+  }
+
+  /**
+   * Downloads incomplete segments in parallel. `firstResponse`, if not null, is the response to a plain
+   * request for the whole file, the first segment is read from it. Written bytes are fed to `digest` if it isn't null.
+   */
+  private void downloadSegments(final String url, File file, final Map<String, String> headers, final DownloadState state, final File stateFile, final Response firstResponse, final SegmentsDigest digest) throws IOException {
+    RandomAccessFile output = null;
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      output = new RandomAccessFile(file, "rw");
+      final FileChannel channel = output.getChannel();
+
+      if (firstResponse != null) {
+        final Segment firstSegment = state.segments.get(0);
+        futures.add(mExecutor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            writeSegment(url, firstResponse, state, firstSegment, channel, stateFile, digest);
+            return null;
+          }
+        }));
+      }
+
+      for (final Segment segment : state.segments) {
+        if (segment.isComplete() || (firstResponse != null && segment == state.segments.get(0))) {
+          continue;
+        }
+        futures.add(mExecutor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            downloadSegment(url, headers, state, segment, channel, stateFile, digest);
+            return null;
+          }
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          for (Future<?> other : futures) {
+            other.cancel(true);
+          }
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+          for (Future<?> other : futures) {
+            other.cancel(true);
+          }
+          throw new IOException(e);
+        }
+      }
+    } finally {
+      // Only the first segment is read from the first response, the rest of its body is discarded.
+      if (firstResponse != null) {
+        firstResponse.close();
+      }
+      if (output != null) {
+        state.write(stateFile);
+        output.close();
+      }
+    }
+  }
+
+  private void downloadSegment(String url, Map<String, String> headers, DownloadState state, Segment segment, FileChannel channel, File stateFile, SegmentsDigest digest) throws IOException {
+    Request.Builder requestBuilder = buildRequest(url, headers)
+        .header("Range", "bytes=" + (segment.start + segment.written) + "-" + segment.end)
+        .header("If-Range", state.validator);
+
+    Response response = mClient.newCall(requestBuilder.build()).execute();
+    try {
+      if (response.code() != 206) {
+        if (response.isSuccessful()) {
+          throw new RangeNotSatisfiedException();
+        }
+        throw new IOException("Downloading " + url + " failed with status " + response.code() + ".");
+      }
+      writeSegment(url, response, state, segment, channel, stateFile, digest);
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * Writes the rest of `segment` from the body of `response`, which has to start at the first byte the segment is missing.
+   */
+  private static void writeSegment(String url, Response response, DownloadState state, Segment segment, FileChannel channel, File stateFile, SegmentsDigest digest) throws IOException {
+    InputStream input = response.body().byteStream();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+    long lastSaveTime = System.currentTimeMillis();
+    int count;
+    while (!segment.isComplete() && (count = input.read(buffer, 0, (int) Math.min(buffer.length, segment.remaining()))) != -1) {
+      if (Thread.interrupted()) {
+        throw new IOException("Download of " + url + " has been interrupted.");
+      }
+      byteBuffer.clear();
+      byteBuffer.limit(count);
+      long offset = segment.start + segment.written;
+      long position = offset;
+      while (byteBuffer.hasRemaining()) {
+        position += channel.write(byteBuffer, position);
+      }
+      segment.written += count;
+      if (digest != null) {
+        digest.update(offset, buffer, count, channel);
+      }
+
+      long now = System.currentTimeMillis();
+      if (now - lastSaveTime > STATE_SAVE_INTERVAL_MS) {
+        channel.force(false);
+        state.write(stateFile);
+        lastSaveTime = now;
+      }
+    }
+
+    if (!segment.isComplete()) {
+      throw new IOException("Connection closed before segment " + segment.start + "-" + segment.end + " of " + url + " was downloaded.");
+    }
+  }
+
+  private static Result writeResponse(Response response, File file, boolean md5) throws IOException {
+    try {
+      MessageDigest digest = md5 ? newMd5Digest() : null;
+      file.delete();
+      InputStream input = response.body().byteStream();
+      OutputStream output = new FileOutputStream(file);
+      try {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+          output.write(buffer, 0, count);
+          if (digest != null) {
+            digest.update(buffer, 0, count);
+          }
+        }
+      } finally {
+        output.close();
+      }
+      return new Result(response.code(), response.headers(), digest != null ? new String(Hex.encodeHex(digest.digest())) : null);
+    } finally {
+      response.close();
+    }
+  }
+
+  /**
+   * Returns the validator to send in `If-Range` when requesting ranges of the response's file, or null if it has none.
+   * Weak ETags can't be used with If-Range.
+   */
+  private static String getValidator(Response response) {
+    String etag = response.header("ETag");
+    if (etag != null && !etag.startsWith("W/")) {
+      return etag;
+    }
+    return response.header("Last-Modified");
+  }
+
+  private File getStateFile(File file) throws IOException {
+    MessageDigest digest = newMd5Digest();
+    digest.update(file.getAbsolutePath().getBytes("UTF-8"));
+    return new File(mStateDirectory, new String(Hex.encodeHex(digest.digest())) + STATE_FILE_EXTENSION);
+  }
+
+  private static Request.Builder buildRequest(String url, Map<String, String> headers) {
+    Request.Builder builder = new Request.Builder().url(url);
+    if (headers != null) {
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        builder.addHeader(header.getKey(), header.getValue());
+      }
+    }
+    return builder;
+  }
+
+  private static long parseLength(String contentLength) {
+    try {
+      return contentLength != null ? Long.parseLong(contentLength) : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static MessageDigest newMd5Digest() throws IOException {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static class RangeNotSatisfiedException extends IOException {
+  }
+
+  private static class Segment {
+    final long start;
+    final long end; // inclusive
+    volatile long written;
+
+    Segment(long start, long end, long written) {
+      this.start = start;
+      this.end = end;
+      this.written = written;
+    }
+
+    long remaining() {
+      return end - start + 1 - written;
+    }
+
+    boolean isComplete() {
+      return remaining() <= 0;
+    }
+  }
+
+  /**
+   * MD5 of a file downloaded in segments. Bytes are hashed straight from the download buffers
+   * when they are written at the offset the digest has reached, bytes which land ahead of it
+   * are read back from the file once the segments before them are complete.
+   */
+  private static class SegmentsDigest {
+    private final List<Segment> mSegments;
+    private final MessageDigest mDigest;
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+    private long mPosition = 0;
+
+    SegmentsDigest(List<Segment> segments) throws IOException {
+      mSegments = segments;
+      mDigest = newMd5Digest();
+    }
+
+    /**
+     * Called after `count` bytes of `buffer` have been written at `offset` and the segment's progress has been updated.
+     */
+    synchronized void update(long offset, byte[] buffer, int count, FileChannel channel) throws IOException {
+      if (offset == mPosition) {
+        mDigest.update(buffer, 0, count);
+        mPosition += count;
+      }
+      catchUp(channel);
+    }
+
+    String finish(File file) throws IOException {
+      RandomAccessFile input = new RandomAccessFile(file, "r");
+      try {
+        synchronized (this) {
+          catchUp(input.getChannel());
+          return new String(Hex.encodeHex(mDigest.digest()));
+        }
+      } finally {
+        input.close();
+      }
+    }
+
+    // Hashes bytes which have been written, but not hashed yet, up to the first gap.
+    private void catchUp(FileChannel channel) throws IOException {
+      for (Segment segment : mSegments) {
+        long written = segment.start + segment.written;
+        while (mPosition < written) {
+          ByteBuffer byteBuffer = ByteBuffer.wrap(mBuffer, 0, (int) Math.min(mBuffer.length, written - mPosition));
+          int count = channel.read(byteBuffer, mPosition);
+          if (count <= 0) {
+            throw new IOException("Couldn't read downloaded bytes back at " + mPosition + ".");
+          }
+          mDigest.update(mBuffer, 0, count);
+          mPosition += count;
+        }
+        if (!segment.isComplete()) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static class DownloadState {
+    final String url;
+    // Strong ETag or Last-Modified of the file, sent in If-Range.
+    final String validator;
+    final long length;
+    // Headers of the response to the initial request, returned once the download completes.
+    final Headers headers;
+    final List<Segment> segments;
+
+    private DownloadState(String url, String validator, long length, Headers headers, List<Segment> segments) {
+      this.url = url;
+      this.validator = validator;
+      this.length = length;
+      this.headers = headers;
+      this.segments = segments;
+    }
+
+    static DownloadState create(String url, String validator, long length, Headers headers, int segmentsCount) {
+      List<Segment> segments = new ArrayList<>(segmentsCount);
+      long segmentLength = (length + segmentsCount - 1) / segmentsCount;
+      for (long start = 0; start < length; start += segmentLength) {
+        segments.add(new Segment(start, Math.min(start + segmentLength, length) - 1, 0));
+      }
+      return new DownloadState(url, validator, length, headers, segments);
+    }
+
+    static DownloadState read(File stateFile) {
+      if (!stateFile.exists()) {
+        return null;
+      }
+      try {
+        InputStream input = new FileInputStream(stateFile);
+        byte[] bytes;
+        try {
+          bytes = new byte[(int) stateFile.length()];
+          int offset = 0;
+          int count;
+          while (offset < bytes.length && (count = input.read(bytes, offset, bytes.length - offset)) != -1) {
+            offset += count;
+          }
+        } finally {
+          input.close();
+        }
+
+        JSONObject json = new JSONObject(new String(bytes, "UTF-8"));
+        JSONArray segmentsJson = json.getJSONArray("segments");
+        List<Segment> segments = new ArrayList<>(segmentsJson.length());
+        for (int i = 0; i < segmentsJson.length(); i++) {
+          JSONObject segmentJson = segmentsJson.getJSONObject(i);
+          segments.add(new Segment(segmentJson.getLong("start"), segmentJson.getLong("end"), segmentJson.getLong("written")));
+        }
+        Headers.Builder headers = new Headers.Builder();
+        JSONArray headersJson = json.optJSONArray("headers");
+        if (headersJson != null) {
+          for (int i = 0; i + 1 < headersJson.length(); i += 2) {
+            headers.add(headersJson.getString(i), headersJson.getString(i + 1));
+          }
+        }
+        return new DownloadState(json.getString("url"), json.getString("validator"), json.getLong("length"), headers.build(), segments);
+      } catch (IOException | JSONException e) {
+        Log.w(TAG, "Couldn't read download state " + stateFile + ": " + e.getMessage());
+        stateFile.delete();
+        return null;
+      }
+    }
+
+    synchronized void write(File stateFile) throws IOException {
+      try {
+        JSONObject json = new JSONObject();
+        json.put("url", url);
+        json.put("validator", validator);
+        json.put("length", length);
+        // Names and values alternate, so repeated headers are kept.
+        JSONArray headersJson = new JSONArray();
+        for (int i = 0; i < headers.size(); i++) {
+          headersJson.put(headers.name(i));
+          headersJson.put(headers.value(i));
+        }
+        json.put("headers", headersJson);
+        JSONArray segmentsJson = new JSONArray();
+        for (Segment segment : segments) {
+          JSONObject segmentJson = new JSONObject();
+          segmentJson.put("start", segment.start);
+          segmentJson.put("end", segment.end);
+          segmentJson.put("written", segment.written);
+          segmentsJson.put(segmentJson);
+        }
+        json.put("segments", segmentsJson);
+
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        OutputStream output = new FileOutputStream(tempFile);
+        try {
+          output.write(json.toString().getBytes("UTF-8"));
+        } finally {
+          output.close();
+        }
+        if (!tempFile.renameTo(stateFile)) {
+          throw new IOException("Couldn't save download state to " + stateFile);
+        }
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+}
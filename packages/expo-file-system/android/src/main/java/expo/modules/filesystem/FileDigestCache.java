@@ -0,0 +1,280 @@
+package expo.modules.filesystem;
+
+import android.util.Log;
+
+import org.apache.commons.codec.binary.Hex;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers MD5 and SHA-256 digests of files, keyed by path and valid for as long as
+ * the size and modification time of the file stay the same, so that repeated integrity checks
+ * don't have to hash unchanged files again. {@link FileSystemModule} feeds it digests computed
+ * while writing and downloading files. The cache is saved to `cacheFile` shortly after it changes.
+ * It keeps at most {@link #MAX_ENTRIES} files, the least recently used ones are forgotten first.
+ */
+class FileDigestCache {
+  private static final String TAG = FileDigestCache.class.getSimpleName();
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long SAVE_DELAY_MS = 1000;
+  private static final int MAX_ENTRIES = 1000;
+
+  static class Digests {
+    final String md5;
+    final String sha256;
+
+    Digests(String md5, String sha256) {
+      this.md5 = md5;
+      this.sha256 = sha256;
+    }
+  }
+
+  private static class Entry {
+    final long size;
+    final long lastModified;
+    String md5;
+    String sha256;
+
+    Entry(long size, long lastModified) {
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private final File mCacheFile;
+  private final ScheduledExecutorService mSaveExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "expo-file-system-digest-cache");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  private Map<String, Entry> mEntries;
+  private boolean mIsSaveScheduled = false;
+
+  FileDigestCache(File cacheFile) {
+    mCacheFile = cacheFile;
+  }
+
+  /**
+   * Returns the requested digests of `file`, computing those which aren't cached or whose file
+   * has changed since they were in one pass. Digests which weren't requested may be null.
+   */
+  Digests getDigests(File file, boolean md5, boolean sha256) throws IOException {
+    String path = file.getAbsolutePath();
+    long size = file.length();
+    long lastModified = file.lastModified();
+    String cachedMd5 = null;
+    String cachedSha256 = null;
+    synchronized (this) {
+      Entry entry = getEntries().get(path);
+      if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+        cachedMd5 = entry.md5;
+        cachedSha256 = entry.sha256;
+      }
+    }
+
+    MessageDigest md5Digest = md5 && cachedMd5 == null ? newDigest("MD5") : null;
+    MessageDigest sha256Digest = sha256 && cachedSha256 == null ? newDigest("SHA-256") : null;
+    if (md5Digest == null && sha256Digest == null) {
+      return new Digests(cachedMd5, cachedSha256);
+    }
+
+    InputStream input = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = input.read(buffer)) != -1) {
+        if (md5Digest != null) {
+          md5Digest.update(buffer, 0, count);
+        }
+        if (sha256Digest != null) {
+          sha256Digest.update(buffer, 0, count);
+        }
+      }
+    } finally {
+      input.close();
+    }
+
+    String computedMd5 = md5Digest != null ? hex(md5Digest) : null;
+    String computedSha256 = sha256Digest != null ? hex(sha256Digest) : null;
+    put(file, size, lastModified, computedMd5, computedSha256);
+    return new Digests(computedMd5 != null ? computedMd5 : cachedMd5, computedSha256 != null ? computedSha256 : cachedSha256);
+  }
+
+  /**
+   * Stores digests computed while `file` was written. Either of them may be null.
+   */
+  void put(File file, String md5, String sha256) {
+    put(file, file.length(), file.lastModified(), md5, sha256);
+  }
+
+  /**
+   * Forgets `file` and, if it is a directory, everything inside of it.
+   */
+  synchronized void remove(File file) {
+    String path = file.getAbsolutePath();
+    String directoryPrefix = path + File.separator;
+    Iterator<String> paths = getEntries().keySet().iterator();
+    boolean removed = false;
+    while (paths.hasNext()) {
+      String entryPath = paths.next();
+      if (entryPath.equals(path) || entryPath.startsWith(directoryPrefix)) {
+        paths.remove();
+        removed = true;
+      }
+    }
+    if (removed) {
+      scheduleSave();
+    }
+  }
+
+  static MessageDigest newDigest(String algorithm) throws IOException {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  static String hex(MessageDigest digest) {
+    return new String(Hex.encodeHex(digest.digest()));
+  }
+
+  private synchronized void put(File file, long size, long lastModified, String md5, String sha256) {
+    String path = file.getAbsolutePath();
+    Entry entry = getEntries().get(path);
+    if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+      entry = new Entry(size, lastModified);
+      getEntries().put(path, entry);
+    }
+    if (md5 != null) {
+      entry.md5 = md5;
+    }
+    if (sha256 != null) {
+      entry.sha256 = sha256;
+    }
+    scheduleSave();
+  }
+
+  private Map<String, Entry> getEntries() {
+    if (mEntries == null) {
+      mEntries = load();
+    }
+    return mEntries;
+  }
+
+  private Map<String, Entry> load() {
+    Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > MAX_ENTRIES;
+      }
+    };
+    if (!mCacheFile.exists()) {
+      return entries;
+    }
+
+    try {
+      InputStream input = new FileInputStream(mCacheFile);
+      byte[] bytes = new byte[(int) mCacheFile.length()];
+      try {
+        int offset = 0;
+        int count;
+        while (offset < bytes.length && (count = input.read(bytes, offset, bytes.length - offset)) != -1) {
+          offset += count;
+        }
+      } finally {
+        input.close();
+      }
+
+      JSONObject json = new JSONObject(new String(bytes, "UTF-8"));
+      Iterator<String> paths = json.keys();
+      while (paths.hasNext()) {
+        String path = paths.next();
+        JSONObject entryJson = json.getJSONObject(path);
+        Entry entry = new Entry(entryJson.getLong("size"), entryJson.getLong("lastModified"));
+        entry.md5 = entryJson.optString("md5", null);
+        entry.sha256 = entryJson.optString("sha256", null);
+        entries.put(path, entry);
+      }
+    } catch (IOException | JSONException e) {
+      Log.w(TAG, "Couldn't read digest cache: " + e.getMessage());
+      entries.clear();
+    }
+    return entries;
+  }
+
+  private void scheduleSave() {
+    if (mIsSaveScheduled) {
+      return;
+    }
+    mIsSaveScheduled = true;
+    mSaveExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        save();
+      }
+    }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private void save() {
+    String contents;
+    synchronized (this) {
+      mIsSaveScheduled = false;
+      try {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Entry> mapEntry : getEntries().entrySet()) {
+          Entry entry = mapEntry.getValue();
+          JSONObject entryJson = new JSONObject();
+          entryJson.put("size", entry.size);
+          entryJson.put("lastModified", entry.lastModified);
+          if (entry.md5 != null) {
+            entryJson.put("md5", entry.md5);
+          }
+          if (entry.sha256 != null) {
+            entryJson.put("sha256", entry.sha256);
+          }
+          json.put(mapEntry.getKey(), entryJson);
+        }
+        contents = json.toString();
+      } catch (JSONException e) {
+        Log.w(TAG, "Couldn't serialize digest cache: " + e.getMessage());
+        return;
+      }
+    }
+
+    File tempFile = new File(mCacheFile.getPath() + ".tmp");
+    try {
+      OutputStream output = new FileOutputStream(tempFile);
+      try {
+        output.write(contents.getBytes("UTF-8"));
+      } finally {
+        output.close();
+      }
+      if (!tempFile.renameTo(mCacheFile)) {
+        throw new IOException("Couldn't rename " + tempFile + " to " + mCacheFile);
+      }
+    } catch (IOException e) {
+      Log.w(TAG, "Couldn't save digest cache: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package expo.modules.filesystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file opened with {@link FileSystemModule#openFileHandleAsync}, read and written in chunks
+ * with positional {@link FileChannel} I/O, so that large files never have to be held in memory as a whole.
+ * Operations without an explicit position continue where the previous one ended.
+ * Methods may be called concurrently, every read returns its own {@link Chunk}.
+ */
+class FileHandle implements Closeable {
+  static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private final RandomAccessFile mFile;
+  private final FileChannel mChannel;
+  private final boolean mWritable;
+  private long mPosition = 0;
+
+  /**
+   * Result of a single {@link #read(long, int)}.
+   */
+  static class Chunk {
+    final byte[] bytes;
+    final int length;
+    // Position right after the chunk, where the next read without a position starts
+    final long position;
+
+    Chunk(byte[] bytes, int length, long position) {
+      this.bytes = bytes;
+      this.length = length;
+      this.position = position;
+    }
+  }
+
+  FileHandle(File file, boolean writable, boolean truncate) throws IOException {
+    mFile = new RandomAccessFile(file, writable ? "rw" : "r");
+    mChannel = mFile.getChannel();
+    mWritable = writable;
+    if (writable && truncate) {
+      mChannel.truncate(0);
+    }
+  }
+
+  /**
+   * Reads up to `length` bytes starting at `position` (or the current position if it's negative).
+   * The returned chunk is empty at the end of the file.
+   */
+  synchronized Chunk read(long position, int length) throws IOException {
+    if (length < 0) {
+      throw new IllegalArgumentException("Chunk length can't be negative.");
+    }
+
+    long readPosition = position >= 0 ? position : mPosition;
+    // Don't allocate more than what's left in the file.
+    long remaining = Math.max(0, mChannel.size() - readPosition);
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, remaining));
+    while (buffer.hasRemaining()) {
+      int count = mChannel.read(buffer, readPosition + buffer.position());
+      if (count == -1) {
+        break;
+      }
+    }
+
+    int bytesRead = buffer.position();
+    mPosition = readPosition + bytesRead;
+    return new Chunk(buffer.array(), bytesRead, mPosition);
+  }
+
+  /**
+   * Writes `bytes` at `position` (or the current position if it's negative).
+   * Returns the position right after the written bytes.
+   */
+  synchronized long write(long position, byte[] bytes) throws IOException {
+    if (!mWritable) {
+      throw new IOException("File handle hasn't been opened for writing.");
+    }
+
+    long writePosition = position >= 0 ? position : mPosition;
+    ByteBuffer source = ByteBuffer.wrap(bytes);
+    while (source.hasRemaining()) {
+      mChannel.write(source, writePosition + source.position());
+    }
+    mPosition = writePosition + bytes.length;
+    return mPosition;
+  }
+
+  synchronized long size() throws IOException {
+    return mChannel.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    mFile.close();
+  }
+}
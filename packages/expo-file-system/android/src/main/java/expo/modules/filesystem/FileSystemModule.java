@@ -26,22 +26,27 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.CookieHandler;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import expo.core.ExportedModule;
 import expo.core.interfaces.ExpoMethod;
 import expo.core.ModuleRegistry;
+import expo.core.interfaces.LifecycleEventListener;
 import expo.core.interfaces.ModuleRegistryConsumer;
 import expo.core.Promise;
 import expo.core.interfaces.services.EventEmitter;
+import expo.core.interfaces.services.UIManager;
 import expo.interfaces.filesystem.FilePermissionModuleInterface;
 import expo.interfaces.filesystem.Permission;
 import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.Headers;
 import okhttp3.Interceptor;
 import okhttp3.JavaNetCookieJar;
@@ -51,22 +56,31 @@ import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
-import okio.BufferedSink;
 import okio.BufferedSource;
 import okio.ForwardingSource;
 import okio.Okio;
 import okio.Source;
 
-public class FileSystemModule extends ExportedModule implements ModuleRegistryConsumer {
+public class FileSystemModule extends ExportedModule implements ModuleRegistryConsumer, LifecycleEventListener {
   private static final String NAME = "ExponentFileSystem";
   private static final String TAG = FileSystemModule.class.getSimpleName();
   private static final String EXDownloadProgressEventName = "Exponent.downloadProgress";
   private static final long MIN_EVENT_DT_MS = 100;
   private static final String HEADER_KEY = "headers";
+  private static final int DEFAULT_DIRECTORY_PAGE_SIZE = 500;
+  private static final String DIGEST_CACHE_FILE_NAME = "ExpoFileSystemDigests.json";
+  private static final String DOWNLOAD_STATE_DIRECTORY_NAME = "ExpoFileSystemDownloads";
+
+  // Shared by all instances, paths in it are absolute.
+  private static FileDigestCache sDigestCache;
 
   private ModuleRegistry mModuleRegistry;
 
   private final Map<String, DownloadResumable> mDownloadResumableMap = new HashMap<>();
+  private final Map<Integer, FileHandle> mFileHandles = new ConcurrentHashMap<>();
+  private final AtomicInteger mNextFileHandleId = new AtomicInteger();
+  private OkHttpClient mOkHttpClient;
+  private DownloadManager mDownloadManager;
 
   public FileSystemModule(Context context) {
     super(context);
@@ -81,7 +95,33 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
 
   @Override
   public void setModuleRegistry(ModuleRegistry moduleRegistry) {
+    // Unregister from old UIManager
+    if (mModuleRegistry != null && mModuleRegistry.getModule(UIManager.class) != null) {
+      mModuleRegistry.getModule(UIManager.class).unregisterLifecycleEventListener(this);
+    }
+
     mModuleRegistry = moduleRegistry;
+
+    // Register to new UIManager
+    if (mModuleRegistry != null && mModuleRegistry.getModule(UIManager.class) != null) {
+      mModuleRegistry.getModule(UIManager.class).registerLifecycleEventListener(this);
+    }
+  }
+
+  @Override
+  public void onHostResume() {
+    // noop
+  }
+
+  @Override
+  public void onHostPause() {
+    // noop
+  }
+
+  @Override
+  public void onHostDestroy() {
+    closeFileHandles();
+    shutdownDownloadManager();
   }
 
   @Override
@@ -145,64 +185,95 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     return getContext().getAssets().open(asset);
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void getInfoAsync(String uriStr, Map<String, Object> options, Promise promise) {
     try {
-      Uri uri = Uri.parse(uriStr);
-      ensurePermission(uri, Permission.READ);
-      if ("file".equals(uri.getScheme())) {
-        File file = uriToFile(uri);
-        Bundle result = new Bundle();
-        if (file.exists()) {
-          result.putBoolean("exists", true);
-          result.putBoolean("isDirectory", file.isDirectory());
-          result.putString("uri", Uri.fromFile(file).toString());
-          if (options.containsKey("md5") && (Boolean) options.get("md5")) {
-            result.putString("md5", md5(file));
+      promise.resolve(getInfo(uriStr, options));
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  /**
+   * Bulk variant of {@link #getInfoAsync(String, Map, Promise)}, resolves with infos in the order of `uriStrs`.
+   */
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
+  public void getInfoForPathsAsync(List<String> uriStrs, Map<String, Object> options, Promise promise) {
+    try {
+      ArrayList<Bundle> results = new ArrayList<>(uriStrs.size());
+      for (String uriStr : uriStrs) {
+        results.add(getInfo(uriStr, options));
+      }
+      promise.resolve(results);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  private Bundle getInfo(String uriStr, Map<String, Object> options) throws IOException {
+    Uri uri = Uri.parse(uriStr);
+    ensurePermission(uri, Permission.READ);
+    boolean md5 = options.containsKey("md5") && (Boolean) options.get("md5");
+    boolean sha256 = options.containsKey("sha256") && (Boolean) options.get("sha256");
+    if ("file".equals(uri.getScheme())) {
+      File file = uriToFile(uri);
+      Bundle result = new Bundle();
+      if (file.exists()) {
+        result.putBoolean("exists", true);
+        result.putBoolean("isDirectory", file.isDirectory());
+        result.putString("uri", Uri.fromFile(file).toString());
+        if ((md5 || sha256) && !file.isDirectory()) {
+          FileDigestCache.Digests digests = getDigestCache().getDigests(file, md5, sha256);
+          if (md5) {
+            result.putString("md5", digests.md5);
+          }
+          if (sha256) {
+            result.putString("sha256", digests.sha256);
           }
-          result.putDouble("size", file.length());
-          result.putDouble("modificationTime", 0.001 * file.lastModified());
-          promise.resolve(result);
-        } else {
-          result.putBoolean("exists", false);
-          result.putBoolean("isDirectory", false);
-          promise.resolve(result);
         }
-      } else if ("content".equals(uri.getScheme()) || "asset".equals(uri.getScheme())) {
-        Bundle result = new Bundle();
+        result.putDouble("size", file.length());
+        result.putDouble("modificationTime", 0.001 * file.lastModified());
+      } else {
+        result.putBoolean("exists", false);
+        result.putBoolean("isDirectory", false);
+      }
+      return result;
+    } else if ("content".equals(uri.getScheme()) || "asset".equals(uri.getScheme())) {
+      Bundle result = new Bundle();
+      try {
+        InputStream is = "content".equals(uri.getScheme()) ?
+                getContext().getContentResolver().openInputStream(uri) :
+                openAssetInputStream(uri);
+        if (is == null) {
+          throw new FileNotFoundException();
+        }
         try {
-          InputStream is = "content".equals(uri.getScheme()) ?
-                  getContext().getContentResolver().openInputStream(uri) :
-                  openAssetInputStream(uri);
-          if (is == null) {
-            throw new FileNotFoundException();
-          }
           result.putBoolean("exists", true);
           result.putBoolean("isDirectory", false);
           result.putString("uri", uri.toString());
           // NOTE: `.available()` is supposedly not a reliable source of size info, but it's been
           //       more reliable than querying `OpenableColumns.SIZE` in practice in tests ¯\_(ツ)_/¯
           result.putDouble("size", is.available());
-          if (options.containsKey("md5") && (Boolean) options.get("md5")) {
+          if (md5) {
             byte[] md5bytes = DigestUtils.md5(is);
             result.putString("md5", String.valueOf(Hex.encodeHex(md5bytes)));
           }
-          promise.resolve(result);
-        } catch (FileNotFoundException e)  {
-          result.putBoolean("exists", false);
-          result.putBoolean("isDirectory", false);
-          promise.resolve(result);
+        } finally {
+          is.close();
         }
-      } else {
-        throw new IOException("Unsupported scheme for location '" + uri +  "'.");
+      } catch (FileNotFoundException e)  {
+        result.putBoolean("exists", false);
+        result.putBoolean("isDirectory", false);
       }
-    } catch (Exception e) {
-      Log.e(TAG, e.getMessage());
-      promise.reject(e);
+      return result;
+    } else {
+      throw new IOException("Unsupported scheme for location '" + uri +  "'.");
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void readAsStringAsync(String uriStr, Map<String, Object> options, Promise promise) {
     try {
       Uri uri = Uri.parse(uriStr);
@@ -227,10 +298,22 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
         if (options.containsKey("length") && options.containsKey("position")) {
           int length = ((Number)options.get("length")).intValue();
           int position = ((Number)options.get("position")).intValue();
-          byte[] buffer = new byte[length];
-          inputStream.skip(position);
-          int bytesRead = inputStream.read(buffer, 0, length);
-          contents = Base64.encodeToString(buffer, 0, bytesRead, Base64.NO_WRAP);
+          if ("file".equals(uri.getScheme())) {
+            // Read just the requested range instead of skipping through the stream.
+            inputStream.close();
+            FileHandle handle = new FileHandle(uriToFile(uri), false, false);
+            try {
+              FileHandle.Chunk chunk = handle.read(position, length);
+              contents = Base64.encodeToString(chunk.bytes, 0, chunk.length, Base64.NO_WRAP);
+            } finally {
+              handle.close();
+            }
+          } else {
+            byte[] buffer = new byte[length];
+            inputStream.skip(position);
+            int bytesRead = inputStream.read(buffer, 0, length);
+            contents = Base64.encodeToString(buffer, 0, bytesRead, Base64.NO_WRAP);
+          }
         } else {
           byte[] inputData = getInputStreamBytes(inputStream);
           contents = Base64.encodeToString(inputData, Base64.NO_WRAP);
@@ -251,7 +334,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void writeAsStringAsync(String uriStr, String string, Map<String, Object> options, Promise promise) {
     try {
       Uri uri = Uri.parse(uriStr);
@@ -263,16 +346,24 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
           encoding = ((String)options.get("encoding")).toLowerCase();
         }
 
-        FileOutputStream out = new FileOutputStream(uriToFile(uri));
-        if (encoding.equals("base64")) {
-          byte[] bytes = Base64.decode(string, Base64.DEFAULT);
-          out.write(bytes);
-        } else {
-          OutputStreamWriter writer = new OutputStreamWriter(out);
-          writer.write(string);
-          writer.close();
+        File file = uriToFile(uri);
+        // Hash the contents on their way to the file, so that getInfoAsync doesn't have to read it back.
+        MessageDigest md5Digest = FileDigestCache.newDigest("MD5");
+        MessageDigest sha256Digest = FileDigestCache.newDigest("SHA-256");
+        OutputStream out = new DigestOutputStream(new DigestOutputStream(new FileOutputStream(file), md5Digest), sha256Digest);
+        try {
+          if (encoding.equals("base64")) {
+            byte[] bytes = Base64.decode(string, Base64.DEFAULT);
+            out.write(bytes);
+          } else {
+            OutputStreamWriter writer = new OutputStreamWriter(out);
+            writer.write(string);
+            writer.flush();
+          }
+        } finally {
+          out.close();
         }
-        out.close();
+        getDigestCache().put(file, FileDigestCache.hex(md5Digest), FileDigestCache.hex(sha256Digest));
         promise.resolve(null);
       } else {
         throw new IOException("Unsupported scheme for location '" + uri +  "'.");
@@ -283,7 +374,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void deleteAsync(String uriStr, Map<String, Object> options, Promise promise) {
     try {
       Uri uri = Uri.parse(uriStr);
@@ -293,6 +384,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
         File file = uriToFile(uri);
         if (file.exists()) {
           FileUtils.forceDelete(file);
+          getDigestCache().remove(file);
           promise.resolve(null);
         } else {
           if (options.containsKey("idempotent") && (Boolean) options.get("idempotent")) {
@@ -311,7 +403,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void moveAsync(Map<String, Object> options, Promise promise) {
     try {
       if (!options.containsKey("from")) {
@@ -331,6 +423,8 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
         File from = uriToFile(fromUri);
         File to = uriToFile(toUri);
         if (from.renameTo(to)) {
+          getDigestCache().remove(from);
+          getDigestCache().remove(to);
           promise.resolve(null);
         } else {
           promise.reject("E_FILE_NOT_MOVED",
@@ -345,7 +439,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void copyAsync(Map<String, Object> options, Promise promise) {
     try {
       if (!options.containsKey("from")) {
@@ -390,7 +484,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void makeDirectoryAsync(String uriStr, Map<String, Object> options, Promise promise) {
     try {
       Uri uri = Uri.parse(uriStr);
@@ -415,7 +509,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void readDirectoryAsync(String uriStr, Map<String, Object> options, Promise promise) {
     try {
       Uri uri = Uri.parse(uriStr);
@@ -442,37 +536,231 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  /**
+   * Lists a directory, optionally recursively, a page at a time. Every entry comes with its size,
+   * modification time and whether it's a directory, so callers don't need a getInfoAsync per entry.
+   * Resolves with `{ entries, cursor }`; pass `cursor` back in the options to get the next page,
+   * it's null on the last one.
+   */
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
+  public void readDirectoryPagedAsync(String uriStr, Map<String, Object> options, Promise promise) {
+    try {
+      Uri uri = Uri.parse(uriStr);
+      ensurePermission(uri, Permission.READ);
+      if ("file".equals(uri.getScheme())) {
+        File directory = uriToFile(uri);
+        if (!directory.isDirectory()) {
+          promise.reject("E_DIRECTORY_NOT_READ", "Directory '" + uri + "' could not be read.");
+          return;
+        }
+
+        boolean recursive = options.containsKey("recursive") && (Boolean) options.get("recursive");
+        String glob = options.get("glob") instanceof String ? (String) options.get("glob") : null;
+        String cursor = options.get("cursor") instanceof String ? (String) options.get("cursor") : null;
+        int pageSize = options.containsKey("pageSize") ? ((Number) options.get("pageSize")).intValue() : DEFAULT_DIRECTORY_PAGE_SIZE;
+        if (pageSize < 1) {
+          throw new IllegalArgumentException("Page size has to be positive.");
+        }
+
+        DirectoryListing.Page page = DirectoryListing.list(directory, recursive, glob, cursor, pageSize);
+        ArrayList<Bundle> entries = new ArrayList<>(page.entries.size());
+        for (DirectoryListing.Entry entry : page.entries) {
+          Bundle entryBundle = new Bundle();
+          entryBundle.putString("path", entry.path);
+          entryBundle.putString("uri", Uri.fromFile(entry.file).toString());
+          entryBundle.putBoolean("isDirectory", entry.isDirectory);
+          entryBundle.putDouble("size", entry.size);
+          entryBundle.putDouble("modificationTime", 0.001 * entry.lastModified);
+          entries.add(entryBundle);
+        }
+
+        Bundle result = new Bundle();
+        result.putParcelableArrayList("entries", entries);
+        result.putString("cursor", page.nextCursor);
+        promise.resolve(result);
+      } else {
+        throw new IOException("Unsupported scheme for location '" + uri +  "'.");
+      }
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  // Walks the whole tree, so it runs on the io pool instead of holding up the serial queue.
+  // It only reads, but may see the effects of calls made after it.
+  @ExpoMethod(executor = ExpoMethod.IO_EXECUTOR)
+  public void directorySizeAsync(String uriStr, Promise promise) {
+    try {
+      Uri uri = Uri.parse(uriStr);
+      ensurePermission(uri, Permission.READ);
+      if ("file".equals(uri.getScheme())) {
+        File directory = uriToFile(uri);
+        if (!directory.isDirectory()) {
+          promise.reject("E_DIRECTORY_NOT_READ", "Directory '" + uri + "' could not be read.");
+          return;
+        }
+
+        DirectoryListing.Size size = DirectoryListing.size(directory);
+        Bundle result = new Bundle();
+        result.putDouble("size", size.bytes);
+        result.putDouble("filesCount", size.filesCount);
+        result.putDouble("directoriesCount", size.directoriesCount);
+        promise.resolve(result);
+      } else {
+        throw new IOException("Unsupported scheme for location '" + uri +  "'.");
+      }
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
+  public void openFileHandleAsync(String uriStr, Map<String, Object> options, Promise promise) {
+    try {
+      Uri uri = Uri.parse(uriStr);
+      boolean writable = Boolean.TRUE.equals(options.get("write"));
+      boolean truncate = Boolean.TRUE.equals(options.get("truncate"));
+      ensurePermission(uri, writable ? Permission.WRITE : Permission.READ);
+      if ("file".equals(uri.getScheme())) {
+        FileHandle handle = new FileHandle(uriToFile(uri), writable, truncate);
+        int handleId = mNextFileHandleId.incrementAndGet();
+        mFileHandles.put(handleId, handle);
+
+        Bundle result = new Bundle();
+        result.putInt("handle", handleId);
+        result.putDouble("size", handle.size());
+        promise.resolve(result);
+      } else {
+        throw new IOException("Unsupported scheme for location '" + uri +  "'.");
+      }
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
+  public void readChunkAsync(int handleId, Map<String, Object> options, Promise promise) {
+    try {
+      FileHandle handle = getFileHandle(handleId);
+      if (!options.containsKey("length")) {
+        promise.reject("E_MISSING_PARAMETER", "`FileSystem.readChunkAsync` needs a `length`.");
+        return;
+      }
+      int length = ((Number) options.get("length")).intValue();
+      long position = options.containsKey("position") ? ((Number) options.get("position")).longValue() : -1;
+      if (length < 0 || length > FileHandle.MAX_CHUNK_SIZE) {
+        throw new IllegalArgumentException("Chunk length has to be between 0 and " + FileHandle.MAX_CHUNK_SIZE + " bytes.");
+      }
+
+      FileHandle.Chunk chunk = handle.read(position, length);
+      Bundle result = new Bundle();
+      result.putString("data", Base64.encodeToString(chunk.bytes, 0, chunk.length, Base64.NO_WRAP));
+      result.putInt("bytesRead", chunk.length);
+      result.putDouble("position", chunk.position);
+      promise.resolve(result);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
+  public void writeChunkAsync(int handleId, String data, Map<String, Object> options, Promise promise) {
+    try {
+      FileHandle handle = getFileHandle(handleId);
+      long position = options.containsKey("position") ? ((Number) options.get("position")).longValue() : -1;
+      byte[] bytes = Base64.decode(data, Base64.DEFAULT);
+      if (bytes.length > FileHandle.MAX_CHUNK_SIZE) {
+        throw new IllegalArgumentException("Chunk can't be longer than " + FileHandle.MAX_CHUNK_SIZE + " bytes.");
+      }
+
+      long endPosition = handle.write(position, bytes);
+      Bundle result = new Bundle();
+      result.putInt("bytesWritten", bytes.length);
+      result.putDouble("position", endPosition);
+      promise.resolve(result);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
+  public void closeFileHandleAsync(int handleId, Promise promise) {
+    try {
+      FileHandle handle = mFileHandles.remove(handleId);
+      if (handle != null) {
+        handle.close();
+      }
+      promise.resolve(null);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  private void closeFileHandles() {
+    for (Integer handleId : mFileHandles.keySet()) {
+      FileHandle handle = mFileHandles.remove(handleId);
+      if (handle != null) {
+        try {
+          handle.close();
+        } catch (IOException e) {
+          Log.e(TAG, "Couldn't close file handle " + handleId + ".", e);
+        }
+      }
+    }
+  }
+
+  private FileHandle getFileHandle(int handleId) throws IOException {
+    FileHandle handle = mFileHandles.get(handleId);
+    if (handle == null) {
+      throw new IOException("No open file handle " + handleId + ".");
+    }
+    return handle;
+  }
+
+  // Downloads are started on the serial queue, so they come after file calls made before them
+  // (a preceding deleteAsync of the destination can't delete the new download). Only starting
+  // holds the queue, the transfer itself runs on the download threads and isn't ordered
+  // against calls made while it is in progress.
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void downloadAsync(String url, final String uriStr, final Map<String, Object> options, final Promise promise) {
     try {
       final Uri uri = Uri.parse(uriStr);
       ensurePermission(uri, Permission.WRITE);
       if ("file".equals(uri.getScheme())) {
-        Request request = new Request.Builder().url(url).build();
-        getOkHttpClientBuilder().build().newCall(request).enqueue(new Callback() {
-          @Override
-          public void onFailure(Call call, IOException e) {
-            Log.e(TAG, e.getMessage());
-            promise.reject(e);
+        Map<String, String> headers = new HashMap<>();
+        if (options != null && options.containsKey(HEADER_KEY)) {
+          Map<String, Object> headersOption = (Map<String, Object>) options.get(HEADER_KEY);
+          for (String key : headersOption.keySet()) {
+            headers.put(key, headersOption.get(key).toString());
           }
-
+        }
+        boolean md5 = options != null && options.containsKey("md5") && (Boolean) options.get("md5");
+        final File file = uriToFile(uri);
+        getDownloadManager().download(url, file, headers, md5, new DownloadManager.Callback() {
           @Override
-          public void onResponse(Call call, Response response) throws IOException {
-            File file = uriToFile(uri);
-            file.delete();
-            BufferedSink sink = Okio.buffer(Okio.sink(file));
-            sink.writeAll(response.body().source());
-            sink.close();
-
+          public void onComplete(DownloadManager.Result downloadResult) {
             Bundle result = new Bundle();
             result.putString("uri", Uri.fromFile(file).toString());
-            if (options != null && options.containsKey("md5") && (Boolean) options.get("md5")) {
-              result.putString("md5", md5(file));
+            if (downloadResult.md5 != null) {
+              result.putString("md5", downloadResult.md5);
+              getDigestCache().put(file, downloadResult.md5, null);
             }
-            result.putInt("status", response.code());
-            result.putBundle("headers", translateHeaders(response.headers()));
+            result.putInt("status", downloadResult.status);
+            result.putBundle("headers", translateHeaders(downloadResult.headers));
             promise.resolve(result);
           }
+
+          @Override
+          public void onError(Exception e) {
+            Log.e(TAG, e.getMessage());
+            promise.reject(e);
+          }
         });
       } else {
         throw new IOException("Unsupported scheme for location '" + uri +  "'.");
@@ -483,7 +771,8 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  // Ordered like downloadAsync.
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void downloadResumableStartAsync(String url, final String fileUriStr, final String uuid, final Map<String, Object> options, final String resumeData, final Promise promise) {
     try {
       final Uri fileUri = Uri.parse(fileUriStr);
@@ -521,7 +810,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
       };
 
       OkHttpClient client =
-              getOkHttpClientBuilder()
+              getOkHttpClient().newBuilder()
                       .addNetworkInterceptor(new Interceptor() {
                         @Override public Response intercept(Chain chain) throws IOException {
                           Response originalResponse = chain.proceed(chain.request());
@@ -559,7 +848,8 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
-  @ExpoMethod
+  // On the serial queue as well, so it always sees the download started before it.
+  @ExpoMethod(executor = ExpoMethod.SERIAL_EXECUTOR)
   public void downloadResumablePauseAsync(final String uuid, final Promise promise) {
     DownloadResumable downloadResumable = this.mDownloadResumableMap.get(uuid);
     if (downloadResumable != null) {
@@ -638,16 +928,21 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
           output = new FileOutputStream(file, false);
         }
 
-        byte[] data = new byte[1024];
+        byte[] data = new byte[64 * 1024];
         int count = 0;
-        while ((count = input.read(data)) != -1) {
-          output.write(data, 0, count);
+        try {
+          while ((count = input.read(data)) != -1) {
+            output.write(data, 0, count);
+          }
+        } finally {
+          output.close();
+          input.close();
         }
 
         Bundle result = new Bundle();
         result.putString("uri", Uri.fromFile(file).toString());
         if (options != null && options.containsKey("md5") && (Boolean) options.get("md5")) {
-          result.putString("md5", md5(file));
+          result.putString("md5", getDigestCache().getDigests(file, true, false).md5);
         }
         result.putInt("status", response.code());
         result.putBundle("headers", translateHeaders(response.headers()));
@@ -739,22 +1034,41 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     void update(long bytesRead, long contentLength, boolean done);
   }
 
-  private OkHttpClient.Builder getOkHttpClientBuilder() {
-    CookieHandler cookieHandler = mModuleRegistry.getModule(CookieHandler.class);
-    OkHttpClient.Builder builder = new OkHttpClient.Builder();
-    if (cookieHandler != null) {
-      builder.cookieJar(new JavaNetCookieJar(cookieHandler));
+  // Shared by all downloads so that they reuse its connection pool and dispatcher.
+  private synchronized OkHttpClient getOkHttpClient() {
+    if (mOkHttpClient == null) {
+      CookieHandler cookieHandler = mModuleRegistry.getModule(CookieHandler.class);
+      OkHttpClient.Builder builder = new OkHttpClient.Builder();
+      if (cookieHandler != null) {
+        builder.cookieJar(new JavaNetCookieJar(cookieHandler));
+      }
+      mOkHttpClient = builder.build();
     }
-    return builder;
+    return mOkHttpClient;
   }
 
-  private String md5(File file) throws IOException {
-    InputStream is = new FileInputStream(file);
-    try {
-      byte[] md5bytes = DigestUtils.md5(is);
-      return String.valueOf(Hex.encodeHex(md5bytes));
-    } finally {
-      is.close();
+  private static synchronized FileDigestCache getDigestCache(Context context) {
+    if (sDigestCache == null) {
+      sDigestCache = new FileDigestCache(new File(context.getApplicationContext().getNoBackupFilesDir(), DIGEST_CACHE_FILE_NAME));
+    }
+    return sDigestCache;
+  }
+
+  private FileDigestCache getDigestCache() {
+    return getDigestCache(getContext());
+  }
+
+  private synchronized DownloadManager getDownloadManager() {
+    if (mDownloadManager == null) {
+      mDownloadManager = new DownloadManager(getOkHttpClient(), new File(getContext().getCacheDir(), DOWNLOAD_STATE_DIRECTORY_NAME));
+    }
+    return mDownloadManager;
+  }
+
+  private synchronized void shutdownDownloadManager() {
+    if (mDownloadManager != null) {
+      mDownloadManager.shutdown();
+      mDownloadManager = null;
     }
   }
 
@@ -105,11 +105,12 @@ public class GeofencingTaskConsumer extends TaskConsumer implements TaskConsumer
         data.putPersistableBundle("region", region);
 
         Context context = getContext().getApplicationContext();
-        getTaskManagerUtils().scheduleJob(context, mTask, data);
+        getTaskManagerUtils().appendToJournal(context, mTask, data);
       }
     }
   }
 
+  // Handles jobs with the event in their extras, scheduled before events were journaled.
   @Override
   public boolean didExecuteJob(JobService jobService, JobParameters params) {
     PersistableBundle data = params.getExtras().getPersistableBundle("data");
@@ -16,6 +16,7 @@ import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -79,33 +80,32 @@ public class LocationTaskConsumer extends TaskConsumer implements TaskConsumerIn
     LocationResult result = LocationResult.extractResult(intent);
 
     if (result != null) {
-      PersistableBundle data = new PersistableBundle();
       List<Location> locations = result.getLocations();
-      int length = 0;
 
       for (Location location : locations) {
         long timestamp = location.getTime();
 
         // Some devices may broadcast the same location multiple times (mostly twice) so we're filtering out these locations,
-        // so only one location at the specific timestamp can schedule a job.
+        // so only one location at the specific timestamp is journaled.
         if (timestamp > sLastTimestamp) {
           PersistableBundle bundle = LocationModule.locationToBundle(location, PersistableBundle.class);
-          data.putPersistableBundle(Integer.valueOf(length).toString(), bundle);
 
+          // Locations are journaled and delivered together by a single job, even if many of them come before it starts.
+          getTaskManagerUtils().appendToJournal(context, mTask, bundle);
           sLastTimestamp = timestamp;
-          ++length;
         }
       }
-
-      data.putInt("length", length);
-
-      if (length > 0) {
-        // Schedule new job.
-        getTaskManagerUtils().scheduleJob(context, mTask, data);
-      }
     }
   }
 
+  @Override
+  public List<Bundle> taskDataFromJournalEvents(List<Bundle> events) {
+    Bundle data = new Bundle();
+    data.putParcelableArrayList("locations", new ArrayList<>(events));
+    return Collections.singletonList(data);
+  }
+
+  // Handles jobs with locations in their extras, scheduled before locations were journaled.
   @Override
   public boolean didExecuteJob(final JobService jobService, final JobParameters params) {
     PersistableBundle data = params.getExtras().getPersistableBundle("data");
@@ -7,10 +7,16 @@ import java.util.List;
 
 import expo.core.BasePackage;
 import expo.core.ExportedModule;
+import expo.core.ExportedModuleDescriptor;
 
 public class MailComposerPackage extends BasePackage {
   @Override
-  public List<ExportedModule> createExportedModules(Context context) {
-    return Collections.singletonList((ExportedModule) new MailComposerModule(context));
+  public List<ExportedModuleDescriptor> getExportedModuleDescriptors() {
+    return Collections.<ExportedModuleDescriptor>singletonList(new ExportedModuleDescriptor("ExpoMailComposer", MailComposerModule.class) {
+      @Override
+      public ExportedModule create(Context context) {
+        return new MailComposerModule(context);
+      }
+    });
   }
 }
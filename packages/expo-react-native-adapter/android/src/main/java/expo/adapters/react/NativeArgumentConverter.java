@@ -0,0 +1,83 @@
+package expo.adapters.react;
+
+import com.facebook.react.bridge.ReadableArray;
+
+import expo.core.arguments.MapArguments;
+import expo.core.arguments.ReadableArguments;
+
+/**
+ * Converts a single {@link ReadableArray} element into the argument expected by an exported method.
+ * Everything that depends only on the expected class is resolved once, when the converter is created,
+ * so per-call work is limited to reading the value out of the array.
+ * Maps and arrays are always copied, the method may run on another thread than the one
+ * the {@link ReadableArray} belongs to.
+ */
+/* package */ class NativeArgumentConverter {
+  private static final int NUMBER_DOUBLE = 0;
+  private static final int NUMBER_BYTE = 1;
+  private static final int NUMBER_SHORT = 2;
+  private static final int NUMBER_INT = 3;
+  private static final int NUMBER_FLOAT = 4;
+  private static final int NUMBER_LONG = 5;
+
+  private final int mNumberType;
+  private final boolean mExpectsReadableArguments;
+
+  /* package */ NativeArgumentConverter(Class<?> expectedArgumentClass) {
+    mExpectsReadableArguments = expectedArgumentClass.isAssignableFrom(ReadableArguments.class);
+
+    if (expectedArgumentClass == byte.class || expectedArgumentClass == Byte.class) {
+      mNumberType = NUMBER_BYTE;
+    } else if (expectedArgumentClass == short.class || expectedArgumentClass == Short.class) {
+      mNumberType = NUMBER_SHORT;
+    } else if (expectedArgumentClass == int.class || expectedArgumentClass == Integer.class) {
+      mNumberType = NUMBER_INT;
+    } else if (expectedArgumentClass == float.class || expectedArgumentClass == Float.class) {
+      mNumberType = NUMBER_FLOAT;
+    } else if (expectedArgumentClass == long.class || expectedArgumentClass == Long.class) {
+      mNumberType = NUMBER_LONG;
+    } else {
+      mNumberType = NUMBER_DOUBLE;
+    }
+  }
+
+  /* package */ Object convert(ReadableArray arguments, int index) {
+    switch (arguments.getType(index)) {
+      case String:
+        return arguments.getString(index);
+      case Map:
+        if (mExpectsReadableArguments) {
+          return new MapArguments(arguments.getMap(index).toHashMap());
+        }
+        return arguments.getMap(index).toHashMap();
+      case Array:
+        return arguments.getArray(index).toArrayList();
+      case Number:
+        // Box straight into the class the method expects instead of going through Double.
+        double value = arguments.getDouble(index);
+        switch (mNumberType) {
+          case NUMBER_BYTE:
+            return (byte) value;
+          case NUMBER_SHORT:
+            return (short) value;
+          case NUMBER_INT:
+            return (int) value;
+          case NUMBER_FLOAT:
+            return (float) value;
+          case NUMBER_LONG:
+            return (long) value;
+          default:
+            return value;
+        }
+      case Boolean:
+        return arguments.getBoolean(index);
+      case Null:
+        return null;
+      default:
+        // JS argument is not null, however we can't recognize the type.
+        throw new RuntimeException(
+            "Don't know how to convert React Native argument of type " + arguments.getType(index) + " to native."
+        );
+    }
+  }
+}
@@ -2,6 +2,7 @@ package expo.adapters.react;
 
 import android.util.SparseArray;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Dynamic;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -13,12 +14,16 @@ import com.facebook.react.bridge.ReadableType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
+import expo.core.ExportedMethodExecutors;
 import expo.core.ExportedModule;
 import expo.core.ModuleRegistry;
 import expo.core.ViewManager;
@@ -41,16 +46,24 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
   private final static String UNEXPECTED_ERROR = "E_UNEXPECTED_ERROR";
   private final static String UNDEFINED_METHOD_ERROR = "E_UNDEFINED_METHOD";
   private final static String ARGS_TYPES_MISMATCH_ERROR = "E_ARGS_TYPES_MISMATCH";
+  private final static String EXECUTOR_SATURATED_ERROR = "E_EXECUTOR_SATURATED";
+
+  private final static String BATCH_RESULT_KEY = "result";
+  private final static String BATCH_ERROR_KEY = "error";
+  private final static String BATCH_ERROR_CODE_KEY = "code";
+  private final static String BATCH_ERROR_MESSAGE_KEY = "message";
 
   private ModuleRegistry mModuleRegistry;
   private Map<String, Map<String, Integer>> mExportedMethodsKeys;
   private Map<String, SparseArray<String>> mExportedMethodsReverseKeys;
+  private Map<String, Map<String, NativeArgumentConverter[]>> mArgumentConverters;
 
   public NativeModulesProxy(ReactApplicationContext context, ModuleRegistry moduleRegistry) {
     super(context);
     mModuleRegistry = moduleRegistry;
     mExportedMethodsKeys = new HashMap<>();
     mExportedMethodsReverseKeys = new HashMap<>();
+    mArgumentConverters = new HashMap<>();
   }
 
   @Override
@@ -62,19 +75,29 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
   @Override
   public Map<String, Object> getConstants() {
     mModuleRegistry.ensureIsInitialized();
-    Collection<ExportedModule> exportedModules = mModuleRegistry.getAllExportedModules();
+    Collection<String> exportedModulesNames = mModuleRegistry.getExportedModulesNames();
     Collection<ViewManager> viewManagers = mModuleRegistry.getAllViewManagers();
 
-    Map<String, Object> modulesConstants = new HashMap<>(exportedModules.size());
-    Map<String, Object> exportedMethodsMap = new HashMap<>(exportedModules.size());
+    Map<String, Object> modulesConstants = new HashMap<>(exportedModulesNames.size());
+    Map<String, Object> exportedMethodsMap = new HashMap<>(exportedModulesNames.size());
     List<String> viewManagersNames = new ArrayList<>(viewManagers.size());
 
-    for (ExportedModule exportedModule : exportedModules) {
-      String moduleName = exportedModule.getName();
-      modulesConstants.put(moduleName, exportedModule.getConstants());
+    for (String moduleName : exportedModulesNames) {
+      Map<String, Method> methods;
+      Class<? extends ExportedModule> moduleClass = mModuleRegistry.getExportedModuleClass(moduleName);
+      if (mModuleRegistry.isExportedModuleCreated(moduleName) || declaresConstants(moduleClass)) {
+        ExportedModule exportedModule = mModuleRegistry.getExportedModule(moduleName);
+        modulesConstants.put(moduleName, exportedModule.getConstants());
+        methods = exportedModule.getExportedMethods();
+      } else {
+        // Lazily registered module without constants, describe it without creating it.
+        modulesConstants.put(moduleName, Collections.emptyMap());
+        methods = ExportedModule.findAnnotatedMethods(moduleClass);
+      }
 
-      List<Map<String, Object>> exportedMethods = transformExportedMethodsMap(exportedModule.getExportedMethods());
+      List<Map<String, Object>> exportedMethods = transformExportedMethodsMap(methods);
       assignExportedMethodsKeys(moduleName, exportedMethods);
+      mArgumentConverters.put(moduleName, createArgumentConverters(methods));
 
       exportedMethodsMap.put(moduleName, exportedMethods);
     }
@@ -91,7 +114,7 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
   }
 
   /**
-   * The only exported {@link ReactMethod}.
+   * The main exported {@link ReactMethod}.
    * JavaScript can call native modules' exported methods ({@link ExpoMethod}) using this method as a proxy.
    * For native {@link ExpoMethod} `void put(String key, int value)` in `NativeDictionary` module
    * JavaScript could call `NativeModulesProxy.callMethod("NativeDictionary", "put", ["key", 42])`
@@ -101,47 +124,219 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
   @ReactMethod
   public void callMethod(String moduleName, Dynamic methodKeyOrName, ReadableArray arguments, final Promise promise) {
     String methodName;
+    try {
+      methodName = getMethodName(moduleName, methodKeyOrName);
+    } catch (IllegalArgumentException e) {
+      promise.reject(UNEXPECTED_ERROR, e.getMessage());
+      return;
+    }
+
+    callMethod(moduleName, methodName, arguments, new PromiseWrapper(promise), false);
+  }
+
+  /**
+   * Batched variant of {@link #callMethod(String, Dynamic, ReadableArray, Promise)}.
+   * Each element of `calls` is an array of `[moduleName, methodKeyOrName, arguments]`.
+   * Resolves with an array with one entry per call, in order: `{ result }` if the call resolved
+   * or `{ error: { code, message } }` if it was rejected, so one failing call doesn't fail the others.
+   * With `parallel` set, methods which would otherwise run on the native modules thread are invoked
+   * concurrently on the compute pool; only use it with methods which are safe to call from any thread.
+   */
+  @ReactMethod
+  public void callMethods(ReadableArray calls, boolean parallel, final Promise promise) {
+    final int callsCount = calls.size();
+    if (callsCount == 0) {
+      promise.resolve(Arguments.createArray());
+      return;
+    }
+
+    final List<Object> results = new ArrayList<>(Collections.nCopies(callsCount, null));
+    final AtomicInteger pendingCallsCount = new AtomicInteger(callsCount);
+
+    for (int i = 0; i < callsCount; i++) {
+      final int index = i;
+      expo.core.Promise callPromise = new expo.core.Promise() {
+        @Override
+        public void resolve(Object value) {
+          Map<String, Object> result = new HashMap<>(1);
+          try {
+            // Bundles and lists have to be converted the same way PromiseWrapper does it.
+            result.put(BATCH_RESULT_KEY, PromiseWrapper.toReactValue(value));
+          } catch (IllegalArgumentException e) {
+            reject(UNEXPECTED_ERROR, "Could not convert the result of call at index " + index + ": " + e.getMessage(), e);
+            return;
+          }
+          settle(result);
+        }
+
+        @Override
+        public void reject(String code, String message, Throwable e) {
+          Map<String, Object> error = new HashMap<>(2);
+          error.put(BATCH_ERROR_CODE_KEY, code);
+          error.put(BATCH_ERROR_MESSAGE_KEY, message);
+          Map<String, Object> result = new HashMap<>(1);
+          result.put(BATCH_ERROR_KEY, error);
+          settle(result);
+        }
+
+        private void settle(Map<String, Object> result) {
+          synchronized (results) {
+            results.set(index, result);
+          }
+          if (pendingCallsCount.decrementAndGet() == 0) {
+            synchronized (results) {
+              promise.resolve(Arguments.makeNativeArray(results));
+            }
+          }
+        }
+      };
+
+      try {
+        ReadableArray call = calls.getArray(i);
+        Dynamic methodKeyOrName = call.getDynamic(1);
+        String methodName = getMethodName(call.getString(0), methodKeyOrName);
+        methodKeyOrName.recycle();
+        callMethod(call.getString(0), methodName, call.getArray(2), callPromise, parallel);
+      } catch (RuntimeException e) {
+        callPromise.reject(UNEXPECTED_ERROR, "Malformed call at index " + i + ": " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Maps a method's constant key or name to the method name.
+   */
+  private String getMethodName(String moduleName, Dynamic methodKeyOrName) {
     if (methodKeyOrName.getType() == ReadableType.String) {
-      methodName = methodKeyOrName.asString();
+      return methodKeyOrName.asString();
     } else if (methodKeyOrName.getType() == ReadableType.Number) {
-      methodName = mExportedMethodsReverseKeys.get(moduleName).get(methodKeyOrName.asInt());
-    } else {
-      promise.reject(UNEXPECTED_ERROR, "Method key is neither a String nor an Integer -- don't know how to map it to method name.");
+      return mExportedMethodsReverseKeys.get(moduleName).get(methodKeyOrName.asInt());
+    }
+    throw new IllegalArgumentException("Method key is neither a String nor an Integer -- don't know how to map it to method name.");
+  }
+
+  /**
+   * Converts the arguments on the calling thread (React Native's readable collections shouldn't be shared
+   * between threads) and then invokes the method on the executor it asked for with {@link ExpoMethod#executor()}.
+   * Methods which run on the calling thread are moved to the compute pool if `inBackground` is set.
+   */
+  private void callMethod(final String moduleName, final String methodName, ReadableArray arguments, final expo.core.Promise promise, boolean inBackground) {
+    final ExportedModule module;
+    final List<Object> nativeArguments;
+    String executor;
+    try {
+      NativeArgumentConverter[] converters = getArgumentConverters(moduleName, methodName);
+      module = mModuleRegistry.getExportedModule(moduleName);
+      ExportedModule.MethodInfo methodInfo = module != null ? module.getExportedMethodInfos().get(methodName) : null;
+      if (methodInfo == null || converters == null) {
+        throw new NoSuchMethodException();
+      }
+
+      executor = methodInfo.getExecutor();
+      nativeArguments = getNativeArgumentsForMethod(arguments, converters);
+      nativeArguments.add(promise);
+    } catch (Exception e) {
+      rejectWithException(moduleName, methodName, promise, e);
       return;
     }
 
+    Runnable invocation = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          module.invokeExportedMethod(methodName, nativeArguments);
+        } catch (Exception e) {
+          rejectWithException(moduleName, methodName, promise, e);
+        }
+      }
+    };
+
+    if (inBackground && ExpoMethod.CALLER_EXECUTOR.equals(executor)) {
+      executor = ExpoMethod.COMPUTE_EXECUTOR;
+    }
+
     try {
-      List<Object> nativeArguments = getNativeArgumentsForMethod(arguments, mModuleRegistry.getExportedModule(moduleName).getExportedMethodInfos().get(methodName));
-      nativeArguments.add(new PromiseWrapper(promise));
+      ExportedMethodExecutors.execute(executor, moduleName, invocation);
+    } catch (RejectedExecutionException e) {
+      promise.reject(
+              EXECUTOR_SATURATED_ERROR,
+              "Could not call method " + methodName + " of Java module " + moduleName + ", its executor (" + executor + ") is saturated.",
+              e
+      );
+    }
+  }
 
-      mModuleRegistry.getExportedModule(moduleName).invokeExportedMethod(methodName, nativeArguments);
-    } catch (IllegalArgumentException e) {
+  private static void rejectWithException(String moduleName, String methodName, expo.core.Promise promise, Exception e) {
+    if (e instanceof IllegalArgumentException) {
       promise.reject(ARGS_TYPES_MISMATCH_ERROR, e.getMessage(), e);
-    } catch (RuntimeException e) {
-      promise.reject(UNEXPECTED_ERROR, "Encountered an exception while calling native method: " + e.getMessage(), e);
-    } catch (NoSuchMethodException e) {
+    } else if (e instanceof NoSuchMethodException) {
       promise.reject(
               UNDEFINED_METHOD_ERROR,
               "Method " + methodName + " of Java module " + moduleName + " is undefined.",
               e
       );
+    } else {
+      promise.reject(UNEXPECTED_ERROR, "Encountered an exception while calling native method: " + e.getMessage(), e);
     }
   }
 
   /**
-   * Converts {@link ReadableArray} of arguments into a list of Java Objects.
-   * Throws {@link RuntimeException} if it can't convert some {@link ReadableType} to Object.
-   * Method is used when converting Double to proper argument.
+   * Converts {@link ReadableArray} of arguments into a list of Java Objects using converters
+   * precomputed by {@link #createArgumentConverters(Map)}.
+   * Leaves room in the list for the promise.
    */
-  private static List<Object> getNativeArgumentsForMethod(ReadableArray arguments, ExportedModule.MethodInfo methodInfo) {
-    List<Object> nativeArguments = new ArrayList<>();
+  private static List<Object> getNativeArgumentsForMethod(ReadableArray arguments, NativeArgumentConverter[] converters) {
+    if (arguments.size() != converters.length) {
+      throw new IllegalArgumentException(
+              "Method expects " + converters.length + " arguments, whereas " + arguments.size() + " arguments have been provided.");
+    }
 
-    for (int i = 0; i < arguments.size(); i++) {
-      nativeArguments.add(ArgumentsHelper.getNativeArgumentForExpectedClass(arguments.getDynamic(i), methodInfo.getParameterTypes()[i]));
+    List<Object> nativeArguments = new ArrayList<>(converters.length + 1);
+    for (int i = 0; i < converters.length; i++) {
+      nativeArguments.add(converters[i].convert(arguments, i));
     }
     return nativeArguments;
   }
 
+  /**
+   * Returns argument converters for a method, or null if the module doesn't export it.
+   */
+  private NativeArgumentConverter[] getArgumentConverters(String moduleName, String methodName) {
+    Map<String, NativeArgumentConverter[]> moduleConverters = mArgumentConverters.get(moduleName);
+    if (moduleConverters == null) {
+      return null;
+    }
+    return moduleConverters.get(methodName);
+  }
+
+  /**
+   * Creates a map of { exportedMethodName => converters for each of its JS arguments }.
+   */
+  private static Map<String, NativeArgumentConverter[]> createArgumentConverters(Map<String, Method> exportedMethods) {
+    Map<String, NativeArgumentConverter[]> converters = new HashMap<>(exportedMethods.size());
+    for (Map.Entry<String, Method> entry : exportedMethods.entrySet()) {
+      Class<?>[] parameterTypes = entry.getValue().getParameterTypes();
+      NativeArgumentConverter[] methodConverters = new NativeArgumentConverter[parameterTypes.length - 1]; // - 1 is for the Promise
+      for (int i = 0; i < methodConverters.length; i++) {
+        methodConverters[i] = new NativeArgumentConverter(parameterTypes[i]);
+      }
+      converters.put(entry.getKey(), methodConverters);
+    }
+    return converters;
+  }
+
+  /**
+   * Whether the module overrides {@link ExportedModule#getConstants()}, in which case
+   * it has to be created to be described to JS.
+   */
+  private static boolean declaresConstants(Class<? extends ExportedModule> moduleClass) {
+    try {
+      return moduleClass.getMethod("getConstants").getDeclaringClass() != ExportedModule.class;
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
+
   /**
    * Transforms exportedMethodsMap to a map of methodInfos
    */
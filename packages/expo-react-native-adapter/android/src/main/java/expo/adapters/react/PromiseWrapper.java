@@ -23,16 +23,22 @@ import expo.core.Promise;
   }
 
   public void resolve(@Nullable Object value) {
-    if (value instanceof Bundle) {
-      mPromise.resolve(Arguments.fromBundle((Bundle) value));
-    } else if (value instanceof List) {
-      mPromise.resolve(Arguments.fromList((List) value));
-    } else {
-      mPromise.resolve(value);
-    }
+    mPromise.resolve(toReactValue(value));
   }
 
   public void reject(String code, String message, Throwable e) {
     mPromise.reject(code, message, e);
   }
+
+  /**
+   * Converts a value an exported method resolved with into a value React Native can pass to JS.
+   */
+  /* package */ static Object toReactValue(@Nullable Object value) {
+    if (value instanceof Bundle) {
+      return Arguments.fromBundle((Bundle) value);
+    } else if (value instanceof List) {
+      return Arguments.fromList((List) value);
+    }
+    return value;
+  }
 }
@@ -44,7 +44,9 @@ public class ReactModuleRegistryProvider extends ModuleRegistryProvider {
       internalModules.addAll(pkg.createInternalModules(context));
       exportedModules.addAll(pkg.createExportedModules(context));
     }
-    return new ModuleRegistry(internalModules, exportedModules, getViewManagers(context), getSingletonModules(context));
+    ModuleRegistry moduleRegistry = new ModuleRegistry(internalModules, exportedModules, getViewManagers(context), getSingletonModules(context));
+    registerLazyModules(moduleRegistry, context);
+    return moduleRegistry;
   }
 
   private Collection<SingletonModule> getSingletonModules(Context context) {
@@ -0,0 +1,19 @@
+package expo.interfaces.sensors;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEventListener2;
+
+/**
+ * A listener which can receive samples reported together by the sensor hardware
+ * in a single call instead of one {@link #onSensorChanged} call per sample.
+ * Services which don't batch samples keep calling {@link #onSensorChanged}.
+ */
+public interface SensorEventBatchListener extends SensorEventListener2 {
+  /**
+   * Receives `count` samples of `sensor`. Values of the i-th sample are stored at
+   * `values[i * valuesPerSample]` through `values[(i + 1) * valuesPerSample - 1]`
+   * and its timestamp (in nanoseconds, like {@link android.hardware.SensorEvent#timestamp}) at `timestamps[i]`.
+   * The arrays are reused once the method returns.
+   */
+  void onSensorEventsBatch(Sensor sensor, float[] values, long[] timestamps, int valuesPerSample, int count);
+}
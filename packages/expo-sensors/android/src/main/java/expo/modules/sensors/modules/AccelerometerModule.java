@@ -32,6 +32,11 @@ public class AccelerometerModule extends BaseSensorModule {
     return getModuleRegistry().getModule(AccelerometerService.class);
   }
 
+  @Override
+  protected float getBatchValueScale() {
+    return 1 / SensorManager.GRAVITY_EARTH;
+  }
+
   protected Bundle eventToMap(SensorEvent sensorEvent) {
     Bundle map = new Bundle();
     map.putDouble("x", sensorEvent.values[0] / SensorManager.GRAVITY_EARTH);
@@ -57,4 +62,10 @@ public class AccelerometerModule extends BaseSensorModule {
     super.setUpdateInterval(updateInterval);
     promise.resolve(null);
   }
+
+  @ExpoMethod
+  public void setBatchInterval(int batchInterval, Promise promise) {
+    super.setBatchInterval(batchInterval);
+    promise.resolve(null);
+  }
 }
@@ -3,9 +3,9 @@ package expo.modules.sensors.modules;
 import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener2;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.Choreographer;
 
 import expo.core.ExportedModule;
 import expo.core.ModuleRegistry;
@@ -13,14 +13,28 @@ import expo.core.interfaces.LifecycleEventListener;
 import expo.core.interfaces.ModuleRegistryConsumer;
 import expo.core.interfaces.services.EventEmitter;
 import expo.core.interfaces.services.UIManager;
+import expo.interfaces.sensors.SensorEventBatchListener;
 import expo.interfaces.sensors.SensorService;
 import expo.interfaces.sensors.SensorServiceSubscription;
 
-public abstract class BaseSensorModule extends ExportedModule implements SensorEventListener2, ModuleRegistryConsumer, LifecycleEventListener {
+public abstract class BaseSensorModule extends ExportedModule implements SensorEventBatchListener, ModuleRegistryConsumer, LifecycleEventListener {
+  private static final int DEFAULT_UPDATE_INTERVAL = 100;
+  private static final int MIN_BATCH_CAPACITY = 64;
+  private static final int MAX_BATCH_CAPACITY = 4096;
+
   private SensorServiceSubscription mSensorServiceSubscription;
   private ModuleRegistry mModuleRegistry;
   private boolean mIsObserving = false;
 
+  private int mUpdateInterval = DEFAULT_UPDATE_INTERVAL;
+  private int mBatchInterval = 0;
+  // Collects samples between flushes while batching, null otherwise
+  private volatile SensorRingBuffer mRingBuffer;
+  // Overruns of previous ring buffers, carried over to new ones
+  private long mOverrunCount = 0;
+  private long mDroppedCount = 0;
+  private final BatchFlushFrameCallback mBatchFlushFrameCallback = new BatchFlushFrameCallback();
+
   protected abstract String getEventName();
   protected abstract SensorService getSensorService();
   protected abstract Bundle eventToMap(SensorEvent sensorEvent);
@@ -33,6 +47,27 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
     return mModuleRegistry;
   }
 
+  /**
+   * Name of the event carrying samples packed by {@link SensorRingBuffer#drain(float)}.
+   */
+  protected String getBatchEventName() {
+    return getEventName() + "Batch";
+  }
+
+  /**
+   * Number of leading values of each sample which are emitted in batches.
+   */
+  protected int getBatchValuesPerSample() {
+    return 3;
+  }
+
+  /**
+   * Factor batched values are multiplied by, so that they're in the same units as values from {@link #eventToMap}.
+   */
+  protected float getBatchValueScale() {
+    return 1;
+  }
+
   @Override
   public void setModuleRegistry(ModuleRegistry moduleRegistry) {
     // Unregister from old UIManager
@@ -50,6 +85,12 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
 
   @Override
   public void onSensorChanged(SensorEvent sensorEvent) {
+    SensorRingBuffer ringBuffer = mRingBuffer;
+    if (ringBuffer != null) {
+      ringBuffer.add(sensorEvent.values, 0, sensorEvent.timestamp);
+      return;
+    }
+
     EventEmitter eventEmitter = mModuleRegistry.getModule(EventEmitter.class);
     if (eventEmitter != null) {
       eventEmitter.emit(getEventName(), eventToMap(sensorEvent));
@@ -58,6 +99,22 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
     }
   }
 
+  @Override
+  public void onSensorEventsBatch(Sensor sensor, float[] values, long[] timestamps, int valuesPerSample, int count) {
+    SensorRingBuffer ringBuffer = mRingBuffer;
+    if (ringBuffer == null) {
+      // Batching has just been turned off, samples reported with the old settings are lost.
+      synchronized (this) {
+        mDroppedCount += count;
+      }
+      return;
+    }
+
+    for (int i = 0; i < count; i++) {
+      ringBuffer.add(values, i * valuesPerSample, timestamps[i]);
+    }
+  }
+
   @Override
   public void onAccuracyChanged(Sensor sensor, int accuracy) {
     // do nothing
@@ -69,7 +126,28 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
   }
 
   public void setUpdateInterval(int updateInterval) {
+    mUpdateInterval = updateInterval;
     getSensorKernelServiceSubscription().setUpdateInterval(updateInterval);
+    if (mBatchInterval > 0) {
+      // The buffer has to hold a different number of samples per window now.
+      resetRingBuffer();
+    }
+  }
+
+  /**
+   * Turns batching on when `batchInterval` (in milliseconds) is positive. Samples are then collected
+   * and emitted together as one {@link #getBatchEventName()} event at most once per frame and once per `batchInterval`,
+   * and the sensor is allowed to hold them in hardware for up to `batchInterval` as well.
+   */
+  public void setBatchInterval(int batchInterval) {
+    mBatchInterval = Math.max(batchInterval, 0);
+    resetRingBuffer();
+    getSensorKernelServiceSubscription().setMaxReportLatency(mBatchInterval);
+    if (mIsObserving && mBatchInterval > 0) {
+      mBatchFlushFrameCallback.start();
+    } else {
+      mBatchFlushFrameCallback.stop();
+    }
   }
 
   private SensorServiceSubscription getSensorKernelServiceSubscription() {
@@ -84,27 +162,121 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
   public void startObserving() {
     mIsObserving = true;
     getSensorKernelServiceSubscription().start();
+    if (mBatchInterval > 0) {
+      mBatchFlushFrameCallback.start();
+    }
   }
 
   public void stopObserving() {
     mIsObserving = false;
     getSensorKernelServiceSubscription().stop();
+    mBatchFlushFrameCallback.stop();
   }
 
   @Override
   public void onHostResume() {
     if (mIsObserving) {
       getSensorKernelServiceSubscription().start();
+      if (mBatchInterval > 0) {
+        mBatchFlushFrameCallback.start();
+      }
     }
   }
 
   @Override
   public void onHostPause() {
     getSensorKernelServiceSubscription().stop();
+    mBatchFlushFrameCallback.stop();
   }
 
   @Override
   public void onHostDestroy() {
     getSensorKernelServiceSubscription().release();
   }
+
+  // Batching
+
+  private synchronized void resetRingBuffer() {
+    // Emit what has been collected with the previous settings first.
+    flushBatch();
+    if (mRingBuffer != null) {
+      mOverrunCount = mRingBuffer.getOverrunCount();
+    }
+    if (mBatchInterval > 0) {
+      mRingBuffer = new SensorRingBuffer(getBatchCapacity(), getBatchValuesPerSample(), mOverrunCount);
+    } else {
+      mRingBuffer = null;
+    }
+  }
+
+  private int getBatchCapacity() {
+    int updateInterval = Math.max(mUpdateInterval, 1);
+    // Room for two windows of samples, in case a frame is late or the sensor reports its FIFO all at once.
+    int capacity = 2 * (mBatchInterval / updateInterval + 1);
+    return Math.min(Math.max(capacity, MIN_BATCH_CAPACITY), MAX_BATCH_CAPACITY);
+  }
+
+  private synchronized void flushBatch() {
+    SensorRingBuffer ringBuffer = mRingBuffer;
+    if (ringBuffer == null || ringBuffer.isEmpty()) {
+      return;
+    }
+
+    EventEmitter eventEmitter = mModuleRegistry.getModule(EventEmitter.class);
+    if (eventEmitter == null) {
+      mDroppedCount += ringBuffer.clear();
+      Log.e("E_SENSOR_MODULE", "Could not emit " + getBatchEventName() + " event, no event emitter present.");
+      return;
+    }
+
+    Bundle batch = ringBuffer.drain(getBatchValueScale());
+    batch.putDouble("droppedCount", mDroppedCount);
+    eventEmitter.emit(getBatchEventName(), batch);
+  }
+
+  private class BatchFlushFrameCallback implements Choreographer.FrameCallback {
+    // Accessed only on the UI thread
+    private boolean mIsPosted = false;
+    private long mLastFlushTime = 0;
+    private volatile boolean mShouldRun = false;
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      if (!mShouldRun) {
+        mIsPosted = false;
+        flushBatch();
+        return;
+      }
+
+      if (frameTimeNanos - mLastFlushTime >= mBatchInterval * 1000000L) {
+        mLastFlushTime = frameTimeNanos;
+        flushBatch();
+      }
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void start() {
+      mShouldRun = true;
+      UIManager uiManager = mModuleRegistry.getModule(UIManager.class);
+      if (uiManager == null) {
+        Log.e("E_SENSOR_MODULE", "Could not schedule " + getBatchEventName() + " events, no UI manager present.");
+        return;
+      }
+
+      uiManager.runOnUiQueueThread(new Runnable() {
+        @Override
+        public void run() {
+          if (!mIsPosted) {
+            mIsPosted = true;
+            Choreographer.getInstance().postFrameCallback(BatchFlushFrameCallback.this);
+          }
+        }
+      });
+    }
+
+    // The callback flushes the remaining samples on the next frame and isn't posted again.
+    void stop() {
+      mShouldRun = false;
+    }
+  }
 }
@@ -0,0 +1,314 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package expo.modules.sensors.modules;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+
+/**
+ * Combines samples of the sensors {@link DeviceMotionModule} listens to into one {@link Record}
+ * per tick of a fixed output clock.
+ *
+ * Samples are timestamped with {@link SensorEvent#timestamp} and every sensor's value is interpolated
+ * to the same point in time, slightly in the past, so that all sensors have samples around it.
+ * Ticks run on a dedicated {@link HandlerThread} and reuse a single record, so fusion doesn't allocate.
+ */
+class DeviceMotionFusion {
+  // The old Choreographer-driven implementation couldn't update more often than once per frame either.
+  private static final long MIN_TICK_INTERVAL_MS = 16;
+  private static final long MAX_OUTPUT_DELAY_NANOS = 50 * 1000000L;
+  /**
+   * Longest interval sensors should be sampled at. Output is delayed by at most MAX_OUTPUT_DELAY_NANOS,
+   * sensors sampled less often would have no sample after the output time and their values would be held
+   * instead of interpolated. Half of the delay leaves room for samples delivered late.
+   */
+  static final long MAX_SAMPLING_INTERVAL_MS = MAX_OUTPUT_DELAY_NANOS / 1000000L / 2;
+
+  interface Listener {
+    /**
+     * Called on the fusion thread. The record is overwritten on the next tick.
+     */
+    void onRecord(Record record);
+  }
+
+  static class Record {
+    // Output time in the sensor clock, in nanoseconds
+    long timestamp;
+
+    final float[] acceleration = new float[3];
+    final float[] accelerationIncludingGravity = new float[3];
+    final float[] rotationRate = new float[3];
+    // Azimuth, pitch and roll, as returned by SensorManager.getOrientation
+    final float[] rotation = new float[3];
+
+    boolean hasAcceleration;
+    boolean hasAccelerationIncludingGravity;
+    boolean hasRotationRate;
+    boolean hasRotation;
+  }
+
+  /**
+   * Last two samples of a sensor, between which values are interpolated.
+   */
+  private static class Track {
+    private final int mSize;
+    private final boolean mIsQuaternion;
+    private final float[] mPreviousValues;
+    private final float[] mValues;
+    private long mPreviousTimestamp;
+    private long mTimestamp;
+    private int mSamplesCount = 0;
+
+    Track(int size) {
+      this(size, false);
+    }
+
+    Track(int size, boolean isQuaternion) {
+      mSize = size;
+      mIsQuaternion = isQuaternion;
+      mPreviousValues = new float[size];
+      mValues = new float[size];
+    }
+
+    synchronized void add(float[] values, long timestamp) {
+      System.arraycopy(mValues, 0, mPreviousValues, 0, mSize);
+      System.arraycopy(values, 0, mValues, 0, Math.min(values.length, mSize));
+      if (mIsQuaternion && mSamplesCount > 0 && dot(mPreviousValues, mValues) < 0) {
+        // q and -q are the same rotation. Keep both samples in the same hemisphere,
+        // otherwise interpolating between them would take the long way around.
+        for (int i = 0; i < mSize; i++) {
+          mValues[i] = -mValues[i];
+        }
+      }
+      mPreviousTimestamp = mTimestamp;
+      mTimestamp = timestamp;
+      mSamplesCount = Math.min(mSamplesCount + 1, 2);
+    }
+
+    synchronized void reset() {
+      mSamplesCount = 0;
+    }
+
+    synchronized long getPeriod() {
+      return mSamplesCount == 2 ? mTimestamp - mPreviousTimestamp : 0;
+    }
+
+    /**
+     * Writes values at `timestamp` into `out`, holding the first or last sample outside of their range.
+     * Returns false if there are no samples yet.
+     */
+    synchronized boolean sample(long timestamp, float[] out) {
+      if (mSamplesCount == 0) {
+        return false;
+      }
+
+      if (mSamplesCount == 1 || timestamp >= mTimestamp || mTimestamp == mPreviousTimestamp) {
+        System.arraycopy(mValues, 0, out, 0, mSize);
+      } else if (timestamp <= mPreviousTimestamp) {
+        System.arraycopy(mPreviousValues, 0, out, 0, mSize);
+      } else {
+        float fraction = (float) (timestamp - mPreviousTimestamp) / (mTimestamp - mPreviousTimestamp);
+        for (int i = 0; i < mSize; i++) {
+          out[i] = mPreviousValues[i] + (mValues[i] - mPreviousValues[i]) * fraction;
+        }
+      }
+      return true;
+    }
+
+    private static float dot(float[] a, float[] b) {
+      float dot = 0;
+      for (int i = 0; i < a.length; i++) {
+        dot += a[i] * b[i];
+      }
+      return dot;
+    }
+  }
+
+  private final Listener mListener;
+  private final Track mAccelerationTrack = new Track(3);
+  private final Track mAccelerationIncludingGravityTrack = new Track(3);
+  private final Track mGravityTrack = new Track(3);
+  private final Track mRotationRateTrack = new Track(3);
+  // Rotation quaternion as (x, y, z, w)
+  private final Track mRotationTrack = new Track(4, true);
+  private final Track[] mTracks = { mAccelerationTrack, mAccelerationIncludingGravityTrack, mGravityTrack, mRotationRateTrack, mRotationTrack };
+  // Used only on the thread sensor events are delivered on
+  private final float[] mRotationSample = new float[4];
+
+  private final Record mRecord = new Record();
+  private final float[] mGravity = new float[3];
+  private final float[] mQuaternion = new float[4];
+  private final float[] mRotationMatrix = new float[9];
+
+  private HandlerThread mThread;
+  private volatile Handler mHandler;
+  private volatile boolean mIsRunning = false;
+  private volatile long mTickInterval = 100;
+  private long mNextTickTime;
+
+  // Smallest difference seen between the elapsed realtime clock and sensor timestamps,
+  // which converts between the two in case the sensors use a different time base.
+  private volatile long mClockOffset = Long.MAX_VALUE;
+
+  private final Runnable mTickRunnable = new Runnable() {
+    @Override
+    public void run() {
+      Handler handler = mHandler;
+      if (!mIsRunning || handler == null) {
+        return;
+      }
+
+      tick();
+
+      long now = SystemClock.uptimeMillis();
+      mNextTickTime += mTickInterval;
+      if (mNextTickTime <= now) {
+        // We've fallen behind, skip the missed ticks instead of running them all at once.
+        mNextTickTime = now + mTickInterval;
+      }
+      handler.postAtTime(this, mNextTickTime);
+    }
+  };
+
+  DeviceMotionFusion(Listener listener) {
+    mListener = listener;
+  }
+
+  /**
+   * Sets the interval of the output clock, in milliseconds.
+   */
+  void setTickInterval(long tickInterval) {
+    mTickInterval = Math.max(tickInterval, MIN_TICK_INTERVAL_MS);
+  }
+
+  synchronized void start() {
+    if (mIsRunning) {
+      return;
+    }
+
+    mThread = new HandlerThread("expo-device-motion");
+    mThread.start();
+    mHandler = new Handler(mThread.getLooper());
+    mClockOffset = Long.MAX_VALUE;
+    for (Track track : mTracks) {
+      track.reset();
+    }
+
+    mIsRunning = true;
+    mNextTickTime = SystemClock.uptimeMillis() + mTickInterval;
+    mHandler.postAtTime(mTickRunnable, mNextTickTime);
+  }
+
+  synchronized void stop() {
+    if (!mIsRunning) {
+      return;
+    }
+
+    mIsRunning = false;
+    mHandler.removeCallbacks(mTickRunnable);
+    mThread.quitSafely();
+    mThread = null;
+    mHandler = null;
+  }
+
+  /**
+   * Stores the sample of `sensorEvent`, can be called from any thread.
+   */
+  void onSensorChanged(SensorEvent sensorEvent) {
+    long clockOffset = SystemClock.elapsedRealtimeNanos() - sensorEvent.timestamp;
+    if (clockOffset < mClockOffset) {
+      mClockOffset = clockOffset;
+    }
+
+    switch (sensorEvent.sensor.getType()) {
+      case Sensor.TYPE_GYROSCOPE:
+        mRotationRateTrack.add(sensorEvent.values, sensorEvent.timestamp);
+        break;
+      case Sensor.TYPE_ACCELEROMETER:
+        mAccelerationIncludingGravityTrack.add(sensorEvent.values, sensorEvent.timestamp);
+        break;
+      case Sensor.TYPE_LINEAR_ACCELERATION:
+        mAccelerationTrack.add(sensorEvent.values, sensorEvent.timestamp);
+        break;
+      case Sensor.TYPE_GRAVITY:
+        mGravityTrack.add(sensorEvent.values, sensorEvent.timestamp);
+        break;
+      case Sensor.TYPE_ROTATION_VECTOR:
+        addRotationSample(sensorEvent);
+        break;
+      default:
+        // not used
+    }
+  }
+
+  private void addRotationSample(SensorEvent sensorEvent) {
+    // Older devices report only the (x, y, z) part of the unit quaternion.
+    float[] values = sensorEvent.values;
+    if (values.length >= 4) {
+      mRotationTrack.add(values, sensorEvent.timestamp);
+    } else {
+      float w = 1 - values[0] * values[0] - values[1] * values[1] - values[2] * values[2];
+      System.arraycopy(values, 0, mRotationSample, 0, 3);
+      mRotationSample[3] = w > 0 ? (float) Math.sqrt(w) : 0;
+      mRotationTrack.add(mRotationSample, sensorEvent.timestamp);
+    }
+  }
+
+  private void tick() {
+    long clockOffset = mClockOffset;
+    if (clockOffset == Long.MAX_VALUE) {
+      // No samples yet.
+      return;
+    }
+
+    Record record = mRecord;
+    record.timestamp = SystemClock.elapsedRealtimeNanos() - clockOffset - getOutputDelay();
+
+    record.hasAcceleration = mAccelerationTrack.sample(record.timestamp, record.acceleration);
+    record.hasRotationRate = mRotationRateTrack.sample(record.timestamp, record.rotationRate);
+
+    record.hasAccelerationIncludingGravity = mAccelerationIncludingGravityTrack.sample(record.timestamp, record.accelerationIncludingGravity)
+        && mGravityTrack.sample(record.timestamp, mGravity);
+    if (record.hasAccelerationIncludingGravity) {
+      for (int i = 0; i < 3; i++) {
+        record.accelerationIncludingGravity[i] -= 2 * mGravity[i];
+      }
+    }
+
+    record.hasRotation = mRotationTrack.sample(record.timestamp, mQuaternion);
+    if (record.hasRotation) {
+      // Interpolating components linearly leaves the quaternion slightly shorter than a unit one.
+      normalize(mQuaternion);
+      SensorManager.getRotationMatrixFromVector(mRotationMatrix, mQuaternion);
+      SensorManager.getOrientation(mRotationMatrix, record.rotation);
+    }
+
+    mListener.onRecord(record);
+  }
+
+  /**
+   * How far behind the current time the output clock runs, so that the slowest sensor
+   * already has a sample after the output time and values can be interpolated rather than held.
+   */
+  private long getOutputDelay() {
+    long delay = 0;
+    for (Track track : mTracks) {
+      delay = Math.max(delay, track.getPeriod());
+    }
+    return Math.min(delay, MAX_OUTPUT_DELAY_NANOS);
+  }
+
+  private static void normalize(float[] quaternion) {
+    float norm = (float) Math.sqrt(quaternion[0] * quaternion[0] + quaternion[1] * quaternion[1]
+        + quaternion[2] * quaternion[2] + quaternion[3] * quaternion[3]);
+    if (norm > 0) {
+      for (int i = 0; i < 4; i++) {
+        quaternion[i] /= norm;
+      }
+    }
+  }
+}
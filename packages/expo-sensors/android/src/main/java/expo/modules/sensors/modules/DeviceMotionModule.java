@@ -4,9 +4,7 @@ import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener2;
-import android.hardware.SensorManager;
 import android.os.Bundle;
-import android.view.Choreographer;
 import android.view.Surface;
 import android.view.WindowManager;
 
@@ -23,7 +21,6 @@ import expo.core.Promise;
 import expo.core.interfaces.ExpoMethod;
 import expo.core.interfaces.ModuleRegistryConsumer;
 import expo.core.interfaces.services.EventEmitter;
-import expo.core.interfaces.services.UIManager;
 import expo.interfaces.sensors.SensorService;
 import expo.interfaces.sensors.SensorServiceSubscription;
 import expo.interfaces.sensors.services.AccelerometerService;
@@ -32,21 +29,21 @@ import expo.interfaces.sensors.services.GyroscopeService;
 import expo.interfaces.sensors.services.LinearAccelerationSensorService;
 import expo.interfaces.sensors.services.RotationVectorSensorService;
 
-public class DeviceMotionModule extends ExportedModule implements SensorEventListener2, ModuleRegistryConsumer {
-  private long mLastUpdate = 0;
+public class DeviceMotionModule extends ExportedModule implements SensorEventListener2, ModuleRegistryConsumer, DeviceMotionFusion.Listener {
   private int mUpdateInterval = 100;
-  private float[] mRotationMatrix = new float[9];
-  private float[] mRotationResult = new float[3];
 
-  private SensorEvent mAccelerationEvent;
-  private SensorEvent mAccelerationIncludingGravityEvent;
-  private SensorEvent mRotationEvent;
-  private SensorEvent mRotationRateEvent;
-  private SensorEvent mGravityEvent;
+  private final DeviceMotionFusion mFusion = new DeviceMotionFusion(this);
+
+  // Reused for every event, EventEmitter converts the bundles before emit returns.
+  private final Bundle mEventMap = new Bundle();
+  private final Bundle mAccelerationMap = new Bundle();
+  private final Bundle mAccelerationIncludingGravityMap = new Bundle();
+  private final Bundle mRotationMap = new Bundle();
+  private final Bundle mRotationRateMap = new Bundle();
 
   private List<SensorServiceSubscription> mServiceSubscriptions = null;
 
-  private UIManager mUiManager = null;
+  private EventEmitter mEventEmitter;
   private ModuleRegistry mModuleRegistry = null;
 
   public DeviceMotionModule(Context context) {
@@ -70,6 +67,12 @@ public class DeviceMotionModule extends ExportedModule implements SensorEventLis
   @ExpoMethod
   public void setUpdateInterval(int updateInterval, Promise promise) {
     mUpdateInterval = updateInterval;
+    mFusion.setTickInterval(updateInterval);
+    if (mServiceSubscriptions != null) {
+      for (SensorServiceSubscription subscription : mServiceSubscriptions) {
+        subscription.setUpdateInterval(getSamplingInterval());
+      }
+    }
     promise.resolve(null);
   }
 
@@ -79,9 +82,9 @@ public class DeviceMotionModule extends ExportedModule implements SensorEventLis
       mServiceSubscriptions = new ArrayList<>();
       for (SensorService kernelService : getSensorKernelServices()) {
         SensorServiceSubscription subscription = kernelService.createSubscriptionForListener(this);
-        // We want handle update interval on our own,
-        // because we need to coordinate updates from multiple sensor services.
-        subscription.setUpdateInterval(0);
+        // Updates are emitted by the fusion clock, sensors only have to sample
+        // often enough for it to interpolate between their samples.
+        subscription.setUpdateInterval(getSamplingInterval());
         mServiceSubscriptions.add(subscription);
       }
     }
@@ -90,27 +93,25 @@ public class DeviceMotionModule extends ExportedModule implements SensorEventLis
       subscription.start();
     }
 
+    mFusion.setTickInterval(mUpdateInterval);
+    mFusion.start();
     promise.resolve(null);
   }
 
   @ExpoMethod
   public void stopObserving(final Promise promise) {
-    mUiManager.runOnUiQueueThread(new Runnable() {
-      @Override
-      public void run() {
-        for (SensorServiceSubscription subscription : mServiceSubscriptions) {
-          subscription.stop();
-        }
-        mCurrentFrameCallback.stop();
-        promise.resolve(null);
+    if (mServiceSubscriptions != null) {
+      for (SensorServiceSubscription subscription : mServiceSubscriptions) {
+        subscription.stop();
       }
-    });
+    }
+    mFusion.stop();
+    promise.resolve(null);
   }
 
   @Override
   public void setModuleRegistry(ModuleRegistry moduleRegistry) {
     mEventEmitter = moduleRegistry.getModule(EventEmitter.class);
-    mUiManager = moduleRegistry.getModule(UIManager.class);
     mModuleRegistry = moduleRegistry;
   }
 
@@ -124,23 +125,13 @@ public class DeviceMotionModule extends ExportedModule implements SensorEventLis
     );
   }
 
+  private long getSamplingInterval() {
+    return Math.min(mUpdateInterval / 2, DeviceMotionFusion.MAX_SAMPLING_INTERVAL_MS);
+  }
+
   @Override
   public void onSensorChanged(SensorEvent sensorEvent) {
-    Sensor sensor = sensorEvent.sensor;
-
-    if (sensor.getType() == Sensor.TYPE_GYROSCOPE) {
-      mRotationRateEvent = sensorEvent;
-    } else if (sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-      mAccelerationIncludingGravityEvent = sensorEvent;
-    } else if (sensor.getType() == Sensor.TYPE_LINEAR_ACCELERATION) {
-      mAccelerationEvent = sensorEvent;
-    } else if (sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
-      mRotationEvent = sensorEvent;
-    } else if (sensor.getType() == Sensor.TYPE_GRAVITY) {
-      mGravityEvent = sensorEvent;
-    }
-
-    mCurrentFrameCallback.maybePostFromNonUI();
+    mFusion.onSensorChanged(sensorEvent);
   }
 
   @Override
@@ -153,100 +144,43 @@ public class DeviceMotionModule extends ExportedModule implements SensorEventLis
     // do nothing
   }
 
-  private ScheduleDispatchFrameCallback mCurrentFrameCallback = new ScheduleDispatchFrameCallback();
-  private DispatchEventRunnable mDispatchEventRunnable = new DispatchEventRunnable();
-  private EventEmitter mEventEmitter;
-
-  private class ScheduleDispatchFrameCallback implements Choreographer.FrameCallback {
-    private volatile boolean mIsPosted = false;
-    private boolean mShouldStop = false;
+  // DeviceMotionFusion.Listener
 
-    public void doFrame(long frameTimeNanos) {
-      if (mShouldStop) {
-        mIsPosted = false;
-      } else {
-        post();
-      }
-
-      long curTime = System.currentTimeMillis();
-      if ((curTime - mLastUpdate) > mUpdateInterval) {
-        mUiManager.runOnClientCodeQueueThread(mDispatchEventRunnable);
-        mLastUpdate = curTime;
-      }
-    }
-
-    public void stop() {
-      mShouldStop = true;
-    }
-
-    public void maybePost() {
-      if (!mIsPosted) {
-        mIsPosted = true;
-        post();
-      }
-    }
-
-    private void post() {
-      Choreographer.getInstance().postFrameCallback(mCurrentFrameCallback);
-    }
-
-    public void maybePostFromNonUI() {
-      if (mIsPosted) {
-        return;
-      }
-
-      mUiManager.runOnUiQueueThread(new Runnable() {
-        @Override
-        public void run() {
-          maybePost();
-        }
-      });
-    }
-  }
-
-  private class DispatchEventRunnable implements Runnable {
-    @Override
-    public void run() {
-      mEventEmitter.emit("deviceMotionDidUpdate", eventsToMap());
-    }
+  @Override
+  public void onRecord(DeviceMotionFusion.Record record) {
+    mEventEmitter.emit("deviceMotionDidUpdate", recordToMap(record));
   }
 
-  private Bundle eventsToMap() {
-    Bundle map = new Bundle();
-    Bundle acceleration = new Bundle();
-    Bundle accelerationIncludingGravity = new Bundle();
-    Bundle rotation = new Bundle();
-    Bundle rotationRate = new Bundle();
-
-    if (mAccelerationEvent != null) {
-      acceleration.putDouble("x", mAccelerationEvent.values[0]);
-      acceleration.putDouble("y", mAccelerationEvent.values[1]);
-      acceleration.putDouble("z", mAccelerationEvent.values[2]);
-      map.putBundle("acceleration", acceleration);
+  private Bundle recordToMap(DeviceMotionFusion.Record record) {
+    Bundle map = mEventMap;
+    map.clear();
 
+    if (record.hasAcceleration) {
+      mAccelerationMap.putDouble("x", record.acceleration[0]);
+      mAccelerationMap.putDouble("y", record.acceleration[1]);
+      mAccelerationMap.putDouble("z", record.acceleration[2]);
+      map.putBundle("acceleration", mAccelerationMap);
     }
 
-    if (mAccelerationIncludingGravityEvent != null && mGravityEvent != null) {
-      accelerationIncludingGravity.putDouble("x", mAccelerationIncludingGravityEvent.values[0] - 2 * mGravityEvent.values[0]);
-      accelerationIncludingGravity.putDouble("y", mAccelerationIncludingGravityEvent.values[1] - 2 * mGravityEvent.values[1]);
-      accelerationIncludingGravity.putDouble("z", mAccelerationIncludingGravityEvent.values[2] - 2 * mGravityEvent.values[2]);
-      map.putBundle("accelerationIncludingGravity", accelerationIncludingGravity);
+    if (record.hasAccelerationIncludingGravity) {
+      mAccelerationIncludingGravityMap.putDouble("x", record.accelerationIncludingGravity[0]);
+      mAccelerationIncludingGravityMap.putDouble("y", record.accelerationIncludingGravity[1]);
+      mAccelerationIncludingGravityMap.putDouble("z", record.accelerationIncludingGravity[2]);
+      map.putBundle("accelerationIncludingGravity", mAccelerationIncludingGravityMap);
     }
 
-    if (mRotationRateEvent != null) {
-      rotationRate.putDouble("alpha", mRotationRateEvent.values[2]);
-      rotationRate.putDouble("beta", mRotationRateEvent.values[0]);
-      rotationRate.putDouble("gamma", mRotationRateEvent.values[1]);
-      map.putBundle("rotationRate", rotationRate);
+    if (record.hasRotationRate) {
+      mRotationRateMap.putDouble("alpha", record.rotationRate[2]);
+      mRotationRateMap.putDouble("beta", record.rotationRate[0]);
+      mRotationRateMap.putDouble("gamma", record.rotationRate[1]);
+      map.putBundle("rotationRate", mRotationRateMap);
     }
 
-    if (mRotationEvent != null) {
-      SensorManager.getRotationMatrixFromVector(mRotationMatrix, mRotationEvent.values);
-      SensorManager.getOrientation(mRotationMatrix, mRotationResult);
-      rotation.putDouble("alpha", -mRotationResult[0]);
-      rotation.putDouble("beta", -mRotationResult[1]);
-      rotation.putDouble("gamma", mRotationResult[2]);
-      map.putBundle("rotation", rotation);
+    if (record.hasRotation) {
+      mRotationMap.putDouble("alpha", -record.rotation[0]);
+      mRotationMap.putDouble("beta", -record.rotation[1]);
+      mRotationMap.putDouble("gamma", record.rotation[2]);
+      map.putBundle("rotation", mRotationMap);
     }
 
     map.putInt("orientation", getOrientation());
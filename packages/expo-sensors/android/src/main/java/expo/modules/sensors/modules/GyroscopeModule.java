@@ -56,4 +56,10 @@ public class GyroscopeModule extends BaseSensorModule {
     super.setUpdateInterval(updateInterval);
     promise.resolve(null);
   }
+
+  @ExpoMethod
+  public void setBatchInterval(int batchInterval, Promise promise) {
+    super.setBatchInterval(batchInterval);
+    promise.resolve(null);
+  }
 }
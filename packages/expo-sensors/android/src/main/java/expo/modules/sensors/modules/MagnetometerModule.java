@@ -56,4 +56,10 @@ public class MagnetometerModule extends BaseSensorModule {
     super.setUpdateInterval(updateInterval);
     promise.resolve(null);
   }
+
+  @ExpoMethod
+  public void setBatchInterval(int batchInterval, Promise promise) {
+    super.setBatchInterval(batchInterval);
+    promise.resolve(null);
+  }
 }
@@ -31,6 +31,12 @@ public class MagnetometerUncalibratedModule extends BaseSensorModule {
     return getModuleRegistry().getModule(MagnetometerUncalibratedService.class);
   }
 
+  // Batches carry whole samples, the uncalibrated field followed by the estimated hard iron bias.
+  @Override
+  protected int getBatchValuesPerSample() {
+    return 6;
+  }
+
   protected Bundle eventToMap(SensorEvent sensorEvent) {
     Bundle map = new Bundle();
     map.putDouble("x", sensorEvent.values[0]);
@@ -56,4 +62,10 @@ public class MagnetometerUncalibratedModule extends BaseSensorModule {
     super.setUpdateInterval(updateInterval);
     promise.resolve(null);
   }
+
+  @ExpoMethod
+  public void setBatchInterval(int batchInterval, Promise promise) {
+    super.setBatchInterval(batchInterval);
+    promise.resolve(null);
+  }
 }
@@ -0,0 +1,90 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package expo.modules.sensors.modules;
+
+import android.os.Bundle;
+
+/**
+ * Fixed-size buffer of sensor samples, stored unboxed in preallocated arrays,
+ * which {@link BaseSensorModule} drains into one packed event per flush.
+ * When it fills up before being drained, the oldest samples are overwritten and counted as overruns.
+ * The count starts at `overrunCount`, so that it keeps growing when the buffer is replaced by one of another size.
+ */
+class SensorRingBuffer {
+  private final int mCapacity;
+  private final int mValuesPerSample;
+  private final float[] mValues;
+  private final long[] mTimestamps;
+  private int mStart = 0;
+  private int mCount = 0;
+  private long mOverrunCount = 0;
+
+  SensorRingBuffer(int capacity, int valuesPerSample, long overrunCount) {
+    mCapacity = capacity;
+    mValuesPerSample = valuesPerSample;
+    mOverrunCount = overrunCount;
+    mValues = new float[capacity * valuesPerSample];
+    mTimestamps = new long[capacity];
+  }
+
+  /**
+   * Stores a sample with values starting at `values[offset]`.
+   */
+  synchronized void add(float[] values, int offset, long timestamp) {
+    int index;
+    if (mCount == mCapacity) {
+      index = mStart;
+      mStart = (mStart + 1) % mCapacity;
+      mOverrunCount += 1;
+    } else {
+      index = (mStart + mCount) % mCapacity;
+      mCount += 1;
+    }
+    System.arraycopy(values, offset, mValues, index * mValuesPerSample, mValuesPerSample);
+    mTimestamps[index] = timestamp;
+  }
+
+  synchronized long getOverrunCount() {
+    return mOverrunCount;
+  }
+
+  synchronized boolean isEmpty() {
+    return mCount == 0;
+  }
+
+  /**
+   * Removes all samples and returns them packed into a bundle of
+   * `values` (`valuesPerSample` consecutive values per sample, multiplied by `valueScale`),
+   * `timestamps` (milliseconds since boot), `valuesPerSample` and `overrunCount`.
+   */
+  synchronized Bundle drain(float valueScale) {
+    double[] values = new double[mCount * mValuesPerSample];
+    double[] timestamps = new double[mCount];
+    for (int i = 0; i < mCount; i++) {
+      int index = (mStart + i) % mCapacity;
+      for (int j = 0; j < mValuesPerSample; j++) {
+        values[i * mValuesPerSample + j] = mValues[index * mValuesPerSample + j] * valueScale;
+      }
+      timestamps[i] = mTimestamps[index] / 1000000.0;
+    }
+    mStart = 0;
+    mCount = 0;
+
+    Bundle batch = new Bundle();
+    batch.putDoubleArray("values", values);
+    batch.putDoubleArray("timestamps", timestamps);
+    batch.putInt("valuesPerSample", mValuesPerSample);
+    batch.putDouble("overrunCount", mOverrunCount);
+    return batch;
+  }
+
+  /**
+   * Removes all samples and returns how many there were.
+   */
+  synchronized int clear() {
+    int count = mCount;
+    mStart = 0;
+    mCount = 0;
+    return count;
+  }
+}
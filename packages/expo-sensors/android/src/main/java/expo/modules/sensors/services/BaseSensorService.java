@@ -6,10 +6,16 @@ import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorEventListener2;
 import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.Looper;
 
 public abstract class BaseSensorService extends BaseService implements SensorEventListener2 {
   private Sensor mSensor;
   private SensorManager mSensorManager;
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private boolean mIsObserving = false;
+  private int mSamplingPeriodUs;
+  private int mMaxReportLatencyUs;
 
   BaseSensorService(Context reactContext) {
     super(reactContext);
@@ -21,13 +27,37 @@ public abstract class BaseSensorService extends BaseService implements SensorEve
 
   // Public API
 
-  protected void startObserving() {
+  /**
+   * Registers for samples every `samplingPeriodUs` microseconds, which the hardware
+   * may hold in its FIFO for up to `maxReportLatencyUs` and then report all at once.
+   * Registers again if already observing with different parameters.
+   */
+  protected void startObserving(int samplingPeriodUs, int maxReportLatencyUs) {
+    if (mIsObserving) {
+      if (mSamplingPeriodUs == samplingPeriodUs && mMaxReportLatencyUs == maxReportLatencyUs) {
+        return;
+      }
+      stopObserving();
+    }
+
     if ((mSensor = mSensorManager.getDefaultSensor(getSensorType())) != null) {
-      mSensorManager.registerListener(this, mSensor, SensorManager.SENSOR_DELAY_FASTEST);
+      // Without a FIFO the sensor can't batch, latency would only delay the samples.
+      int reportLatencyUs = mSensor.getFifoMaxEventCount() > 0 ? maxReportLatencyUs : 0;
+      mIsObserving = mSensorManager.registerListener(this, mSensor, samplingPeriodUs, reportLatencyUs, mHandler);
+      mSamplingPeriodUs = samplingPeriodUs;
+      mMaxReportLatencyUs = maxReportLatencyUs;
     }
   }
 
   protected void stopObserving() {
     mSensorManager.unregisterListener(this);
+    mIsObserving = false;
+  }
+
+  /**
+   * Handler of the thread sensor events are delivered on.
+   */
+  protected Handler getHandler() {
+    return mHandler;
   }
 }
@@ -2,15 +2,32 @@
 
 package expo.modules.sensors.services;
 
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener2;
 
+import expo.interfaces.sensors.SensorEventBatchListener;
+
 public class SensorServiceSubscription implements expo.interfaces.sensors.SensorServiceSubscription {
+  private static final int INITIAL_BATCH_CAPACITY = 16;
+
   private boolean mIsEnabled = false;
   private Long mUpdateInterval = null;
+  private long mMaxReportLatency = 0;
   private boolean mHasBeenReleased = false;
   private final SubscribableSensorService mSubscribableSensorService;
   private final SensorEventListener2 mSensorEventListener;
 
+  // Timestamp (in nanoseconds) the next sample is due at
+  private long mNextSampleTimestamp = 0;
+
+  // Samples waiting to be dispatched to a SensorEventBatchListener
+  private Sensor mBatchSensor;
+  private float[] mBatchValues;
+  private long[] mBatchTimestamps;
+  private int mBatchValuesPerSample;
+  private int mBatchCount = 0;
+
   SensorServiceSubscription(SubscribableSensorService kernelService, SensorEventListener2 listener) {
     mSensorEventListener = listener;
     mSubscribableSensorService = kernelService;
@@ -20,6 +37,7 @@ public class SensorServiceSubscription implements expo.interfaces.sensors.Sensor
     assertSubscriptionIsAlive();
     if (!mIsEnabled) {
       mIsEnabled = true;
+      mNextSampleTimestamp = 0;
       mSubscribableSensorService.onSubscriptionEnabledChanged(this);
     }
   }
@@ -39,6 +57,22 @@ public class SensorServiceSubscription implements expo.interfaces.sensors.Sensor
   public void setUpdateInterval(long updateInterval) {
     assertSubscriptionIsAlive();
     mUpdateInterval = updateInterval;
+    mNextSampleTimestamp = 0;
+    mSubscribableSensorService.onSubscriptionParametersChanged(this);
+  }
+
+  public long getMaxReportLatency() {
+    return mMaxReportLatency;
+  }
+
+  /**
+   * Lets the hardware hold samples for up to `maxReportLatency` milliseconds before reporting them.
+   * Listeners implementing {@link SensorEventBatchListener} then receive them in batches.
+   */
+  public void setMaxReportLatency(long maxReportLatency) {
+    assertSubscriptionIsAlive();
+    mMaxReportLatency = maxReportLatency;
+    mSubscribableSensorService.onSubscriptionParametersChanged(this);
   }
 
   public void stop() {
@@ -55,6 +89,63 @@ public class SensorServiceSubscription implements expo.interfaces.sensors.Sensor
     mHasBeenReleased = true;
   }
 
+  // SubscribableSensorService API
+
+  /**
+   * Returns whether the sample taken at `timestamp` should be delivered to the listener.
+   * Samples are picked on a fixed schedule, with some tolerance for jitter of the sensor clock,
+   * so that the listener gets them at the requested rate rather than at the rate of the sensor.
+   */
+  boolean shouldDeliverSample(long timestamp, long updateInterval) {
+    long intervalNanos = updateInterval * 1000000;
+    if (timestamp < mNextSampleTimestamp - intervalNanos / 4) {
+      return false;
+    }
+
+    mNextSampleTimestamp += intervalNanos;
+    if (mNextSampleTimestamp <= timestamp) {
+      // We've fallen behind (or it's the first sample), start the schedule over from this sample.
+      mNextSampleTimestamp = timestamp + intervalNanos;
+    }
+    return true;
+  }
+
+  boolean isBatching() {
+    return mMaxReportLatency > 0 && mSensorEventListener instanceof SensorEventBatchListener;
+  }
+
+  void addToBatch(SensorEvent sensorEvent) {
+    int valuesPerSample = sensorEvent.values.length;
+    if (mBatchValues == null || mBatchValuesPerSample != valuesPerSample) {
+      dispatchBatch();
+      mBatchValues = new float[INITIAL_BATCH_CAPACITY * valuesPerSample];
+      mBatchTimestamps = new long[INITIAL_BATCH_CAPACITY];
+      mBatchValuesPerSample = valuesPerSample;
+    } else if (mBatchCount == mBatchTimestamps.length) {
+      float[] values = new float[mBatchValues.length * 2];
+      System.arraycopy(mBatchValues, 0, values, 0, mBatchValues.length);
+      mBatchValues = values;
+      long[] timestamps = new long[mBatchTimestamps.length * 2];
+      System.arraycopy(mBatchTimestamps, 0, timestamps, 0, mBatchTimestamps.length);
+      mBatchTimestamps = timestamps;
+    }
+
+    System.arraycopy(sensorEvent.values, 0, mBatchValues, mBatchCount * valuesPerSample, valuesPerSample);
+    mBatchTimestamps[mBatchCount] = sensorEvent.timestamp;
+    mBatchSensor = sensorEvent.sensor;
+    mBatchCount += 1;
+  }
+
+  void dispatchBatch() {
+    if (mBatchCount == 0) {
+      return;
+    }
+
+    int count = mBatchCount;
+    mBatchCount = 0;
+    ((SensorEventBatchListener) mSensorEventListener).onSensorEventsBatch(mBatchSensor, mBatchValues, mBatchTimestamps, mBatchValuesPerSample, count);
+  }
+
   private void assertSubscriptionIsAlive() {
     if (mHasBeenReleased) {
       throw new IllegalStateException("Subscription has been released, cannot call methods on a released subscription.");
@@ -20,7 +20,21 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
   protected static int DEFAULT_UPDATE_INTERVAL = 100;
 
   private int mListenersCount = 0;
-  private Map<SensorServiceSubscription, Long> mSensorEventListenerLastUpdateMap = new WeakHashMap<>();
+  private Set<SensorServiceSubscription> mSubscriptions = Collections.newSetFromMap(new WeakHashMap<SensorServiceSubscription, Boolean>());
+  private boolean mIsBatchDispatchScheduled = false;
+
+  // Dispatches samples collected while handling the events the sensor has reported at once.
+  private final Runnable mDispatchBatchesRunnable = new Runnable() {
+    @Override
+    public void run() {
+      mIsBatchDispatchScheduled = false;
+      for (SensorServiceSubscription subscription : mSubscriptions) {
+        if (subscription != null) {
+          subscription.dispatchBatch();
+        }
+      }
+    }
+  };
 
   SubscribableSensorService(Context reactContext) {
     super(reactContext);
@@ -40,7 +54,7 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
 
   public expo.interfaces.sensors.SensorServiceSubscription createSubscriptionForListener(SensorEventListener2 listener) {
     SensorServiceSubscription sensorServiceSubscription = new SensorServiceSubscription(this, listener);
-    mSensorEventListenerLastUpdateMap.put(sensorServiceSubscription, 0L);
+    mSubscriptions.add(sensorServiceSubscription);
     return sensorServiceSubscription;
   }
 
@@ -56,8 +70,14 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
     updateObserving();
   }
 
+  void onSubscriptionParametersChanged(SensorServiceSubscription sensorServiceSubscription) {
+    if (sensorServiceSubscription.isEnabled()) {
+      updateObserving();
+    }
+  }
+
   void removeSubscription(SensorServiceSubscription sensorServiceSubscription) {
-    mSensorEventListenerLastUpdateMap.remove(sensorServiceSubscription);
+    mSubscriptions.remove(sensorServiceSubscription);
   }
 
   // android.hardware.SensorEventListener2
@@ -65,25 +85,14 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
   @Override
   public void onSensorChanged(SensorEvent sensorEvent) {
     if (sensorEvent.sensor.getType() == getSensorType()) {
-      long currentTime = System.currentTimeMillis();
-      Set<SensorServiceSubscription> listeners = mSensorEventListenerLastUpdateMap.keySet();
-
-      for(SensorServiceSubscription sensorServiceSubscription : listeners) {
-        if (sensorServiceSubscription != null && sensorServiceSubscription.isEnabled()) {
-          long lastUpdate = 0;
-          if (mSensorEventListenerLastUpdateMap.containsKey(sensorServiceSubscription)) {
-            lastUpdate = mSensorEventListenerLastUpdateMap.get(sensorServiceSubscription);
-          }
-
-          long updateInterval = DEFAULT_UPDATE_INTERVAL;
-          if (sensorServiceSubscription.getUpdateInterval() != null) {
-            updateInterval = sensorServiceSubscription.getUpdateInterval();
-          }
-
-
-          if ((currentTime - lastUpdate) > updateInterval) {
+      for (SensorServiceSubscription sensorServiceSubscription : mSubscriptions) {
+        if (sensorServiceSubscription != null && sensorServiceSubscription.isEnabled()
+            && sensorServiceSubscription.shouldDeliverSample(sensorEvent.timestamp, getUpdateInterval(sensorServiceSubscription))) {
+          if (sensorServiceSubscription.isBatching()) {
+            sensorServiceSubscription.addToBatch(sensorEvent);
+            scheduleBatchDispatch();
+          } else {
             sensorServiceSubscription.getSensorEventListener().onSensorChanged(sensorEvent);
-            mSensorEventListenerLastUpdateMap.put(sensorServiceSubscription, currentTime);
           }
         }
       }
@@ -93,7 +102,7 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
   @Override
   public void onAccuracyChanged(Sensor sensor, int accuracy) {
     if (sensor.getType() == getSensorType()) {
-      for (SensorServiceSubscription subscription : mSensorEventListenerLastUpdateMap.keySet()) {
+      for (SensorServiceSubscription subscription : mSubscriptions) {
         if (subscription.isEnabled()) {
           subscription.getSensorEventListener().onAccuracyChanged(sensor, accuracy);
         }
@@ -104,8 +113,9 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
   @Override
   public void onFlushCompleted(Sensor sensor) {
     if (sensor.getType() == getSensorType()) {
-      for (SensorServiceSubscription subscription : mSensorEventListenerLastUpdateMap.keySet()) {
+      for (SensorServiceSubscription subscription : mSubscriptions) {
         if (subscription.isEnabled()) {
+          subscription.dispatchBatch();
           subscription.getSensorEventListener().onFlushCompleted(sensor);
         }
       }
@@ -114,12 +124,42 @@ public abstract class SubscribableSensorService extends BaseSensorService implem
 
   // Private helpers
 
+  private long getUpdateInterval(SensorServiceSubscription sensorServiceSubscription) {
+    if (sensorServiceSubscription.getUpdateInterval() != null) {
+      return sensorServiceSubscription.getUpdateInterval();
+    }
+    return DEFAULT_UPDATE_INTERVAL;
+  }
+
+  // Events of a hardware batch are all delivered within a single message of the sensor thread,
+  // so a message posted behind them runs once the whole batch has been collected.
+  private void scheduleBatchDispatch() {
+    if (!mIsBatchDispatchScheduled) {
+      mIsBatchDispatchScheduled = true;
+      getHandler().post(mDispatchBatchesRunnable);
+    }
+  }
+
   private void updateObserving() {
     // Start/stop observing according to the experience state
     if (mListenersCount > 0 && getExperienceIsForegrounded()) {
-      super.startObserving();
+      // Sample as often as the most demanding subscription needs
+      // and batch only as long as all of them can wait.
+      long samplingPeriod = Long.MAX_VALUE;
+      long maxReportLatency = Long.MAX_VALUE;
+      for (SensorServiceSubscription subscription : mSubscriptions) {
+        if (subscription != null && subscription.isEnabled()) {
+          samplingPeriod = Math.min(samplingPeriod, getUpdateInterval(subscription));
+          maxReportLatency = Math.min(maxReportLatency, subscription.isBatching() ? subscription.getMaxReportLatency() : 0);
+        }
+      }
+      super.startObserving(millisToMicros(samplingPeriod), millisToMicros(maxReportLatency));
     } else {
       super.stopObserving();
     }
   }
+
+  private static int millisToMicros(long millis) {
+    return (int) Math.min(millis * 1000, Integer.MAX_VALUE);
+  }
 }
@@ -8,11 +8,16 @@ import java.util.List;
 
 import expo.core.BasePackage;
 import expo.core.ExportedModule;
-import expo.core.interfaces.InternalModule;
+import expo.core.ExportedModuleDescriptor;
 
 public class SMSPackage extends BasePackage {
   @Override
-  public List<ExportedModule> createExportedModules(Context reactContext) {
-    return Collections.singletonList((ExportedModule) new SMSModule(reactContext));
+  public List<ExportedModuleDescriptor> getExportedModuleDescriptors() {
+    return Collections.<ExportedModuleDescriptor>singletonList(new ExportedModuleDescriptor("ExpoSMS", SMSModule.class) {
+      @Override
+      public ExportedModule create(Context context) {
+        return new SMSModule(context);
+      }
+    });
   }
-}
\ No newline at end of file
+}
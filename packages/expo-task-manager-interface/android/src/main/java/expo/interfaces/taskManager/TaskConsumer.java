@@ -4,8 +4,10 @@ import android.app.job.JobParameters;
 import android.app.job.JobService;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
 
 import java.lang.ref.WeakReference;
+import java.util.List;
 import java.util.Map;
 
 import expo.core.interfaces.DoNotStrip;
@@ -48,6 +50,10 @@ public abstract class TaskConsumer implements TaskConsumerInterface {
     return false;
   }
 
+  public List<Bundle> taskDataFromJournalEvents(List<Bundle> events) {
+    return events;
+  }
+
   public void setOptions(Map<String, Object> options) {
     // nothing
   }
@@ -3,7 +3,9 @@ package expo.interfaces.taskManager;
 import android.app.job.JobParameters;
 import android.app.job.JobService;
 import android.content.Intent;
+import android.os.Bundle;
 
+import java.util.List;
 import java.util.Map;
 
 public interface TaskConsumerInterface {
@@ -37,5 +39,10 @@ public interface TaskConsumerInterface {
    */
   boolean didCancelJob(JobService jobService, JobParameters params);
 
+  /**
+   * Turns events drained from the task's journal into data of task executions, one execution per returned bundle.
+   */
+  List<Bundle> taskDataFromJournalEvents(List<Bundle> events);
+
   void setOptions(Map<String, Object> options);
 }
@@ -13,4 +13,10 @@ public interface TaskManagerUtilsInterface {
   void scheduleJob(Context context, JobInfo jobInfoArg);
 
   void scheduleJob(Context context, TaskInterface task, PersistableBundle extras);
+
+  /**
+   * Appends the event to the task's journal and schedules a job draining it, unless one is already pending,
+   * so events which come before the job starts are delivered together.
+   */
+  void appendToJournal(Context context, TaskInterface task, PersistableBundle event);
 }
@@ -0,0 +1,196 @@
+package expo.modules.taskManager;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import expo.loaders.provider.interfaces.AppRecordInterface;
+
+/**
+ * Headless apps loaded by {@link TaskService} to execute tasks in the background.
+ *
+ * Instead of being invalidated as soon as they finish their tasks, apps are kept warm for an idle period
+ * (configurable with the {@link #IDLE_TIME_META_DATA_KEY} meta-data of the application, in milliseconds),
+ * so that tasks firing shortly after each other don't have to boot the app again.
+ * At most {@link #MAX_WARM_APPS} apps are kept, the least recently used idle one is invalidated to make room.
+ */
+class HeadlessAppPool {
+  private static final String TAG = "HeadlessAppPool";
+
+  static final String IDLE_TIME_META_DATA_KEY = "expo.modules.taskManager.HEADLESS_APP_IDLE_TIME";
+  private static final long DEFAULT_IDLE_TIME_MS = 30000; // 30 seconds
+  private static final int MAX_WARM_APPS = 2;
+
+  interface Listener {
+    /**
+     * Called once the app has been invalidated because it had been idle for too long or had to make room.
+     */
+    void onAppInvalidated(String appId);
+  }
+
+  private static class Entry {
+    final AppRecordInterface appRecord;
+    final long loadStartTime;
+    long bootTime = -1;
+    long lastUsedTime;
+    boolean isBusy = true;
+    Runnable invalidation;
+
+    Entry(AppRecordInterface appRecord) {
+      this.appRecord = appRecord;
+      this.loadStartTime = SystemClock.elapsedRealtime();
+      this.lastUsedTime = loadStartTime;
+    }
+  }
+
+  private final Listener mListener;
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  // { "<appId>": Entry }
+  private final Map<String, Entry> mEntries = new HashMap<>();
+  private long mIdleTime = DEFAULT_IDLE_TIME_MS;
+
+  HeadlessAppPool(Listener listener) {
+    mListener = listener;
+  }
+
+  /**
+   * Reads the idle time from the application's meta-data.
+   */
+  synchronized void configure(Context context) {
+    try {
+      ApplicationInfo applicationInfo = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+      Bundle metaData = applicationInfo.metaData;
+
+      if (metaData != null && metaData.containsKey(IDLE_TIME_META_DATA_KEY)) {
+        mIdleTime = Math.max(0, metaData.getInt(IDLE_TIME_META_DATA_KEY));
+      }
+    } catch (PackageManager.NameNotFoundException e) {
+      Log.w(TAG, "Couldn't read headless app idle time, using the default one.");
+    }
+  }
+
+  synchronized boolean contains(String appId) {
+    return mEntries.containsKey(appId);
+  }
+
+  /**
+   * Adds an app which has just started loading and makes room for it if the pool is full.
+   */
+  synchronized void add(String appId, AppRecordInterface appRecord) {
+    while (mEntries.size() >= MAX_WARM_APPS && evictLeastRecentlyUsedIdleApp()) {
+      // keep evicting
+    }
+    mEntries.put(appId, new Entry(appRecord));
+  }
+
+  /**
+   * Forgets the app without invalidating it, e.g. when it has failed to load.
+   */
+  synchronized void remove(String appId) {
+    Entry entry = mEntries.remove(appId);
+
+    if (entry != null && entry.invalidation != null) {
+      mHandler.removeCallbacks(entry.invalidation);
+    }
+  }
+
+  /**
+   * Records that the app has booted and returns how long that took, in milliseconds,
+   * or -1 if the app isn't in the pool or has booted before.
+   */
+  synchronized long onAppBooted(String appId) {
+    Entry entry = mEntries.get(appId);
+
+    if (entry == null || entry.bootTime >= 0) {
+      return -1;
+    }
+    entry.bootTime = SystemClock.elapsedRealtime() - entry.loadStartTime;
+    Log.i(TAG, "Headless app '" + appId + "' booted in " + entry.bootTime + " ms.");
+    return entry.bootTime;
+  }
+
+  /**
+   * Marks the app as executing tasks, which keeps it alive until {@link #markIdle} is called.
+   */
+  synchronized void markBusy(String appId) {
+    Entry entry = mEntries.get(appId);
+
+    if (entry != null) {
+      entry.isBusy = true;
+      entry.lastUsedTime = SystemClock.elapsedRealtime();
+
+      if (entry.invalidation != null) {
+        mHandler.removeCallbacks(entry.invalidation);
+        entry.invalidation = null;
+      }
+    }
+  }
+
+  /**
+   * Marks the app as having no tasks to execute. It's invalidated unless it gets more of them within the idle time.
+   */
+  synchronized void markIdle(final String appId) {
+    final Entry entry = mEntries.get(appId);
+
+    if (entry == null || !entry.isBusy) {
+      return;
+    }
+
+    entry.isBusy = false;
+    entry.lastUsedTime = SystemClock.elapsedRealtime();
+    entry.invalidation = new Runnable() {
+      @Override
+      public void run() {
+        synchronized (HeadlessAppPool.this) {
+          if (mEntries.get(appId) != entry || entry.isBusy) {
+            return;
+          }
+          invalidate(appId);
+        }
+      }
+    };
+    mHandler.postDelayed(entry.invalidation, mIdleTime);
+  }
+
+  private boolean evictLeastRecentlyUsedIdleApp() {
+    String evictedAppId = null;
+    long evictedLastUsedTime = Long.MAX_VALUE;
+
+    for (Map.Entry<String, Entry> mapEntry : mEntries.entrySet()) {
+      Entry entry = mapEntry.getValue();
+
+      if (!entry.isBusy && entry.lastUsedTime < evictedLastUsedTime) {
+        evictedAppId = mapEntry.getKey();
+        evictedLastUsedTime = entry.lastUsedTime;
+      }
+    }
+
+    if (evictedAppId == null) {
+      // All apps are executing tasks, the pool has to grow for a while.
+      return false;
+    }
+    invalidate(evictedAppId);
+    return true;
+  }
+
+  private void invalidate(String appId) {
+    Entry entry = mEntries.remove(appId);
+
+    if (entry != null) {
+      if (entry.invalidation != null) {
+        mHandler.removeCallbacks(entry.invalidation);
+      }
+      entry.appRecord.invalidate();
+      Log.i(TAG, "Invalidated headless app '" + appId + "'.");
+      mListener.onAppInvalidated(appId);
+    }
+  }
+}
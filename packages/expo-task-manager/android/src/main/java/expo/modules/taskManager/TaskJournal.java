@@ -0,0 +1,500 @@
+package expo.modules.taskManager;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.BaseBundle;
+import android.os.Bundle;
+import android.os.PersistableBundle;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of events waiting to be delivered to a task, e.g. locations or geofencing transitions.
+ * Task consumers append events as they come and the task service drains them in large batches,
+ * committing the cursor once the app has executed the task, so events survive the process being killed
+ * before the app boots and many of them can be delivered in a single task execution.
+ *
+ * The journal is a memory-mapped file with a header, holding the committed cursor and the end of written records,
+ * followed by records framed with their length and CRC32. Consumed space is reclaimed by copying
+ * the remaining records to the front of the file when it runs out of space and they fit into the consumed space,
+ * so the original records stay intact until the copies have been forced to the disk. The header has two slots
+ * of offsets and the index of the active one, so it switches over to the copies with a single write.
+ *
+ * Cursors handed out by {@link #read(int)} are logical offsets, which keep growing as records are appended
+ * and aren't affected by records being moved. The header keeps the logical offset of the front of the file,
+ * so a batch read before the journal got compacted still commits exactly the events it has delivered.
+ */
+class TaskJournal {
+  private static final String TAG = "TaskJournal";
+  private static final String JOURNALS_DIRECTORY = "ExpoTaskJournals";
+
+  private static final int MAGIC = 0x45544a31; // "ETJ1"
+  private static final int HEADER_SIZE = 64; // magic, version, active slot, padding, two slots of offsets
+  private static final int SLOTS_OFFSET = 16;
+  private static final int SLOT_SIZE = 24; // read offset, write offset, logical base offset
+  private static final int RECORD_HEADER_SIZE = 8; // length, crc
+  private static final int VERSION = 3;
+  private static final int INITIAL_SIZE = 64 * 1024;
+  private static final int MAX_SIZE = 16 * 1024 * 1024;
+
+  private static final byte TYPE_INT = 'i';
+  private static final byte TYPE_LONG = 'l';
+  private static final byte TYPE_DOUBLE = 'd';
+  private static final byte TYPE_BOOLEAN = 'b';
+  private static final byte TYPE_STRING = 's';
+  private static final byte TYPE_BUNDLE = 'm';
+  private static final byte TYPE_INT_ARRAY = 'I';
+  private static final byte TYPE_LONG_ARRAY = 'L';
+  private static final byte TYPE_DOUBLE_ARRAY = 'D';
+  private static final byte TYPE_STRING_ARRAY = 'S';
+
+  // { "<appId>/<taskName>": TaskJournal }
+  private static final Map<String, TaskJournal> sJournals = new HashMap<>();
+
+  static class Batch {
+    final List<Bundle> events;
+    // Logical offset to commit once the events have been delivered
+    final long cursor;
+
+    Batch(List<Bundle> events, long cursor) {
+      this.events = events;
+      this.cursor = cursor;
+    }
+  }
+
+  private final String mKey;
+  private final File mFile;
+  private RandomAccessFile mRandomAccessFile;
+  private MappedByteBuffer mBuffer;
+  private boolean mIsDeleted = false;
+
+  static synchronized TaskJournal forTask(Context context, String appId, String taskName) {
+    String key = appId + "/" + taskName;
+    TaskJournal journal = sJournals.get(key);
+
+    if (journal == null) {
+      File directory = new File(context.getNoBackupFilesDir(), JOURNALS_DIRECTORY);
+      journal = new TaskJournal(key, new File(directory, Uri.encode(appId) + "." + Uri.encode(taskName) + ".journal"));
+      sJournals.put(key, journal);
+    }
+    return journal;
+  }
+
+  private TaskJournal(String key, File file) {
+    mKey = key;
+    mFile = file;
+  }
+
+  /**
+   * Appends `event` at the end of the journal.
+   */
+  synchronized void append(PersistableBundle event) throws IOException {
+    byte[] payload = encode(event);
+    int recordSize = RECORD_HEADER_SIZE + payload.length;
+    MappedByteBuffer buffer = getBuffer();
+
+    if (getWriteOffset() + recordSize > buffer.capacity()) {
+      compact();
+    }
+    if (getWriteOffset() + recordSize > buffer.capacity()) {
+      grow(getWriteOffset() + recordSize);
+      buffer = mBuffer;
+    }
+
+    long writeOffset = getWriteOffset();
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+
+    buffer.position((int) writeOffset);
+    buffer.putInt(payload.length);
+    buffer.putInt((int) crc.getValue());
+    buffer.put(payload);
+
+    // The record becomes visible to readers only once the whole of it has been written.
+    setWriteOffset(writeOffset + recordSize);
+  }
+
+  /**
+   * Reads up to `maxEvents` events following the committed cursor. They stay in the journal until
+   * {@link #commit(long)} is called with the batch's cursor.
+   */
+  synchronized Batch read(int maxEvents) throws IOException {
+    MappedByteBuffer buffer = getBuffer();
+    List<Bundle> events = new ArrayList<>();
+    long offset = getReadOffset();
+    long writeOffset = getWriteOffset();
+
+    while (offset < writeOffset && events.size() < maxEvents) {
+      buffer.position((int) offset);
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+
+      if (length < 0 || offset + RECORD_HEADER_SIZE + length > writeOffset) {
+        discardFrom(offset, "invalid record length");
+        break;
+      }
+
+      byte[] payload = new byte[length];
+      buffer.get(payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+
+      if ((int) crc.getValue() != checksum) {
+        discardFrom(offset, "checksum mismatch");
+        break;
+      }
+
+      events.add(decode(payload));
+      offset += RECORD_HEADER_SIZE + length;
+    }
+    return new Batch(events, getBaseOffset() + offset);
+  }
+
+  /**
+   * Marks events up to `cursor` as delivered.
+   */
+  synchronized void commit(long cursor) throws IOException {
+    getBuffer();
+    long offset = cursor - getBaseOffset();
+    if (offset < getReadOffset() || offset > getWriteOffset()) {
+      // The events have already been committed, or discarded in the meantime.
+      return;
+    }
+    if (offset == getWriteOffset()) {
+      // Everything has been delivered, start over from the beginning of the file.
+      switchHeader(HEADER_SIZE, HEADER_SIZE, getBaseOffset() + offset - HEADER_SIZE);
+    } else {
+      setReadOffset(offset);
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    try {
+      getBuffer();
+      return getReadOffset() >= getWriteOffset();
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Removes the journal file, e.g. when the task has been unregistered. The journal can't be used afterwards,
+   * {@link #forTask} returns a new one.
+   */
+  synchronized void delete() {
+    mIsDeleted = true;
+    close();
+    if (mFile.exists() && !mFile.delete()) {
+      Log.w(TAG, "Couldn't delete journal " + mFile + ".");
+    }
+    // Only once the file is gone, so that a new journal of the task doesn't open it.
+    synchronized (TaskJournal.class) {
+      if (sJournals.get(mKey) == this) {
+        sJournals.remove(mKey);
+      }
+    }
+  }
+
+  //region file
+
+  private MappedByteBuffer getBuffer() throws IOException {
+    if (mBuffer != null) {
+      return mBuffer;
+    }
+    if (mIsDeleted) {
+      // Don't bring the file back for whoever still holds the deleted journal.
+      throw new IOException("Journal " + mFile + " has been deleted.");
+    }
+
+    File directory = mFile.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Couldn't create directory " + directory + ".");
+    }
+
+    mRandomAccessFile = new RandomAccessFile(mFile, "rw");
+    long size = mRandomAccessFile.length();
+    boolean isNew = size < HEADER_SIZE;
+
+    if (isNew) {
+      size = INITIAL_SIZE;
+      mRandomAccessFile.setLength(size);
+    }
+    mBuffer = mRandomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+    if (isNew || mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != VERSION || !hasValidOffsets()) {
+      if (!isNew) {
+        Log.w(TAG, "Journal " + mFile + " is corrupted, its events are lost.");
+      }
+      mBuffer.putInt(0, MAGIC);
+      mBuffer.putInt(4, VERSION);
+      mBuffer.putInt(8, 0);
+      switchHeader(HEADER_SIZE, HEADER_SIZE, 0);
+    }
+    return mBuffer;
+  }
+
+  private boolean hasValidOffsets() {
+    int activeSlot = mBuffer.getInt(8);
+    if (activeSlot != 0 && activeSlot != 1) {
+      return false;
+    }
+    long readOffset = getReadOffset();
+    long writeOffset = getWriteOffset();
+    return readOffset >= HEADER_SIZE && readOffset <= writeOffset && writeOffset <= mBuffer.capacity()
+        && getBaseOffset() >= 0;
+  }
+
+  private void close() {
+    mBuffer = null;
+    if (mRandomAccessFile != null) {
+      try {
+        mRandomAccessFile.close();
+      } catch (IOException e) {
+        // nothing to do
+      }
+      mRandomAccessFile = null;
+    }
+  }
+
+  /**
+   * Moves unread records to the front of the file, if they fit into the space of the consumed ones.
+   */
+  private void compact() {
+    long readOffset = getReadOffset();
+    long writeOffset = getWriteOffset();
+    int length = (int) (writeOffset - readOffset);
+    if (readOffset == HEADER_SIZE || HEADER_SIZE + length > readOffset) {
+      // Copying the records would overwrite them before the header points to the copies, let the file grow instead.
+      return;
+    }
+
+    byte[] records = new byte[length];
+    mBuffer.position((int) readOffset);
+    mBuffer.get(records);
+    mBuffer.position(HEADER_SIZE);
+    mBuffer.put(records);
+    mBuffer.force();
+
+    switchHeader(HEADER_SIZE, HEADER_SIZE + length, getBaseOffset() + readOffset - HEADER_SIZE);
+  }
+
+  /**
+   * Writes the offsets into the inactive slot of the header and makes it the active one. Everything written
+   * before is forced to the disk first, so if the process or the device dies in between, the journal
+   * is either in its previous state or in the new one.
+   */
+  private void switchHeader(long readOffset, long writeOffset, long baseOffset) {
+    int inactiveSlot = 1 - mBuffer.getInt(8);
+    int slotOffset = SLOTS_OFFSET + inactiveSlot * SLOT_SIZE;
+    mBuffer.putLong(slotOffset, readOffset);
+    mBuffer.putLong(slotOffset + 8, writeOffset);
+    mBuffer.putLong(slotOffset + 16, baseOffset);
+    mBuffer.force();
+
+    mBuffer.putInt(8, inactiveSlot);
+    mBuffer.force();
+  }
+
+  private void grow(long minSize) throws IOException {
+    long size = mBuffer.capacity();
+    while (size < minSize) {
+      size *= 2;
+    }
+    if (size > MAX_SIZE) {
+      throw new IOException("Journal " + mFile + " is full.");
+    }
+
+    mBuffer.force();
+    mRandomAccessFile.setLength(size);
+    mBuffer = mRandomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  private void discardFrom(long offset, String reason) {
+    Log.w(TAG, "Discarding events at the end of journal " + mFile + ": " + reason + ".");
+    setWriteOffset(offset);
+  }
+
+  private int getSlotOffset() {
+    return SLOTS_OFFSET + mBuffer.getInt(8) * SLOT_SIZE;
+  }
+
+  // Changes of a single offset are written into the active slot, they are atomic on their own.
+
+  private long getReadOffset() {
+    return mBuffer.getLong(getSlotOffset());
+  }
+
+  private void setReadOffset(long offset) {
+    mBuffer.putLong(getSlotOffset(), offset);
+  }
+
+  private long getWriteOffset() {
+    return mBuffer.getLong(getSlotOffset() + 8);
+  }
+
+  private void setWriteOffset(long offset) {
+    mBuffer.putLong(getSlotOffset() + 8, offset);
+  }
+
+  // Logical offset of the record at HEADER_SIZE
+  private long getBaseOffset() {
+    return mBuffer.getLong(getSlotOffset() + 16);
+  }
+
+  //endregion
+  //region encoding
+
+  private static byte[] encode(PersistableBundle bundle) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    DataOutputStream output = new DataOutputStream(bytes);
+    writeBundle(output, bundle);
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void writeBundle(DataOutputStream output, BaseBundle bundle) throws IOException {
+    List<String> keys = new ArrayList<>(bundle.keySet());
+    output.writeInt(keys.size());
+
+    for (String key : keys) {
+      Object value = bundle.get(key);
+      output.writeUTF(key);
+
+      if (value instanceof Integer) {
+        output.writeByte(TYPE_INT);
+        output.writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        output.writeByte(TYPE_LONG);
+        output.writeLong((Long) value);
+      } else if (value instanceof Double) {
+        output.writeByte(TYPE_DOUBLE);
+        output.writeDouble((Double) value);
+      } else if (value instanceof Boolean) {
+        output.writeByte(TYPE_BOOLEAN);
+        output.writeBoolean((Boolean) value);
+      } else if (value instanceof String) {
+        output.writeByte(TYPE_STRING);
+        output.writeUTF((String) value);
+      } else if (value instanceof PersistableBundle) {
+        output.writeByte(TYPE_BUNDLE);
+        writeBundle(output, (PersistableBundle) value);
+      } else if (value instanceof int[]) {
+        int[] array = (int[]) value;
+        output.writeByte(TYPE_INT_ARRAY);
+        output.writeInt(array.length);
+        for (int item : array) {
+          output.writeInt(item);
+        }
+      } else if (value instanceof long[]) {
+        long[] array = (long[]) value;
+        output.writeByte(TYPE_LONG_ARRAY);
+        output.writeInt(array.length);
+        for (long item : array) {
+          output.writeLong(item);
+        }
+      } else if (value instanceof double[]) {
+        double[] array = (double[]) value;
+        output.writeByte(TYPE_DOUBLE_ARRAY);
+        output.writeInt(array.length);
+        for (double item : array) {
+          output.writeDouble(item);
+        }
+      } else if (value instanceof String[]) {
+        String[] array = (String[]) value;
+        output.writeByte(TYPE_STRING_ARRAY);
+        output.writeInt(array.length);
+        for (String item : array) {
+          output.writeUTF(item);
+        }
+      } else {
+        throw new IOException("Unsupported type of value for key '" + key + "'.");
+      }
+    }
+  }
+
+  private static Bundle decode(byte[] payload) throws IOException {
+    return readBundle(new DataInputStream(new ByteArrayInputStream(payload)));
+  }
+
+  private static Bundle readBundle(DataInputStream input) throws IOException {
+    Bundle bundle = new Bundle();
+    int size = input.readInt();
+
+    for (int i = 0; i < size; i++) {
+      String key = input.readUTF();
+      byte type = input.readByte();
+
+      switch (type) {
+        case TYPE_INT:
+          bundle.putInt(key, input.readInt());
+          break;
+        case TYPE_LONG:
+          bundle.putLong(key, input.readLong());
+          break;
+        case TYPE_DOUBLE:
+          bundle.putDouble(key, input.readDouble());
+          break;
+        case TYPE_BOOLEAN:
+          bundle.putBoolean(key, input.readBoolean());
+          break;
+        case TYPE_STRING:
+          bundle.putString(key, input.readUTF());
+          break;
+        case TYPE_BUNDLE:
+          bundle.putBundle(key, readBundle(input));
+          break;
+        case TYPE_INT_ARRAY: {
+          int[] array = new int[input.readInt()];
+          for (int j = 0; j < array.length; j++) {
+            array[j] = input.readInt();
+          }
+          bundle.putIntArray(key, array);
+          break;
+        }
+        case TYPE_LONG_ARRAY: {
+          long[] array = new long[input.readInt()];
+          for (int j = 0; j < array.length; j++) {
+            array[j] = input.readLong();
+          }
+          bundle.putLongArray(key, array);
+          break;
+        }
+        case TYPE_DOUBLE_ARRAY: {
+          double[] array = new double[input.readInt()];
+          for (int j = 0; j < array.length; j++) {
+            array[j] = input.readDouble();
+          }
+          bundle.putDoubleArray(key, array);
+          break;
+        }
+        case TYPE_STRING_ARRAY: {
+          String[] array = new String[input.readInt()];
+          for (int j = 0; j < array.length; j++) {
+            array[j] = input.readUTF();
+          }
+          bundle.putStringArray(key, array);
+          break;
+        }
+        default:
+          throw new IOException("Unknown type of value for key '" + key + "'.");
+      }
+    }
+    return bundle;
+  }
+
+  //endregion
+}
@@ -12,16 +12,23 @@ import android.os.Parcelable;
 import android.os.PersistableBundle;
 import android.util.Log;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import expo.interfaces.taskManager.TaskManagerUtilsInterface;
 import expo.interfaces.taskManager.TaskInterface;
 
 public class TaskManagerUtils implements TaskManagerUtilsInterface {
+  private static final String TAG = "TaskManagerUtils";
   private static final int DEFAULT_OVERRIDE_DEADLINE = 60 * 1000; // 1 minute
 
+  // Extras key marking jobs that drain the task's journal instead of carrying their data.
+  static final String JOURNAL_JOB_KEY = "journal";
+
   // make intent and job ids locally-unique
   private static Integer sCurrentIntentId = 2137;
   private static Integer sCurrentJobId = 2137;
@@ -29,6 +36,9 @@ public class TaskManagerUtils implements TaskManagerUtilsInterface {
   // Set of job IDs that are scheduled but not started yet.
   private static final List<Integer> sPendingJobIds = new ArrayList<>();
 
+  // Keys of tasks which have a journal job scheduled or running in this process.
+  private static final Set<String> sPendingJournalJobs = new HashSet<>();
+
   public PendingIntent createTaskIntent(Context context, TaskInterface task) {
     Integer intentId = sCurrentIntentId++;
     String appId = task.getAppId();
@@ -71,6 +81,32 @@ public class TaskManagerUtils implements TaskManagerUtilsInterface {
     scheduleJob(context, jobInfo);
   }
 
+  public void appendToJournal(Context context, TaskInterface task, PersistableBundle event) {
+    try {
+      TaskJournal.forTask(context, task.getAppId(), task.getName()).append(event);
+    } catch (IOException e) {
+      Log.e(TAG, "Couldn't append event to the journal of task '" + task.getName() + "'.", e);
+      return;
+    }
+    scheduleJournalJob(context, task);
+  }
+
+  /**
+   * Schedules a job draining the task's journal, unless there already is one which hasn't finished yet.
+   * Pending journal jobs are tracked in process, so appending events doesn't have to ask the job scheduler.
+   */
+  void scheduleJournalJob(Context context, TaskInterface task) {
+    synchronized (sPendingJournalJobs) {
+      if (!sPendingJournalJobs.add(journalJobKey(task.getAppId(), task.getName()))) {
+        return;
+      }
+    }
+
+    PersistableBundle extras = createExtrasForTask(task, new PersistableBundle());
+    extras.putInt(JOURNAL_JOB_KEY, 1);
+    scheduleJob(context, createJobInfo(context, sCurrentJobId++, extras));
+  }
+
   @SuppressWarnings("unchecked")
   public static Bundle mapToBundle(Map<String, Object> map) {
     Bundle bundle = new Bundle();
@@ -155,8 +191,28 @@ public class TaskManagerUtils implements TaskManagerUtilsInterface {
     sPendingJobIds.remove((Integer) jobId);
   }
 
+  /**
+   * Called when the journal job of the task finishes, returns whether it has to be rescheduled.
+   * The journal is checked under the same lock {@link #scheduleJournalJob} takes, so events appended
+   * in the meantime either get drained by the rescheduled job or schedule a new one.
+   */
+  static boolean finishJournalJob(String appId, String taskName, TaskJournal journal) {
+    synchronized (sPendingJournalJobs) {
+      boolean needsReschedule = journal != null && !journal.isEmpty();
+
+      if (!needsReschedule) {
+        sPendingJournalJobs.remove(journalJobKey(appId, taskName));
+      }
+      return needsReschedule;
+    }
+  }
+
   //region private
 
+  private static String journalJobKey(String appId, String taskName) {
+    return appId + "/" + taskName;
+  }
+
   private JobInfo createJobInfo(Context context, int jobId, PersistableBundle extras) {
     return new JobInfo.Builder(jobId, new ComponentName(context, TaskJobService.class))
         .setExtras(extras)
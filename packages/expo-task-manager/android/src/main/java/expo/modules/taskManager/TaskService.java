@@ -10,12 +10,15 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.PersistableBundle;
+import android.os.SystemClock;
 import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -25,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import expo.core.interfaces.SingletonModule;
 import expo.interfaces.taskManager.TaskExecutionCallback;
@@ -48,13 +52,20 @@ import expo.modules.taskManager.exceptions.TaskNotFoundException;
 public class TaskService implements SingletonModule, TaskServiceInterface {
   private static final String TAG = "TaskService";
   private static final String SHARED_PREFERENCES_NAME = "TaskManagerModule";
+  private static final String MIGRATION_PREFERENCES_NAME = "TaskManagerModule.migration";
+  private static final String MIGRATED_KEY = "tasksMigrated";
+  private static final String TASK_STORE_DIRECTORY_NAME = "ExpoTaskStore";
   private static final int MAX_TASK_EXECUTION_TIME_MS = 15000; // 15 seconds
+  private static final int MAX_JOURNAL_BATCH_SIZE = 500;
 
   private WeakReference<Context> mContextRef;
 
   // { "<appId>": { "<taskName>": TaskInterface } }
   private static Map<String, Map<String, TaskInterface>> sTasksTable = null;
 
+  // Persisted registered tasks, restored into the above table.
+  private static TaskStore sTaskStore = null;
+
   // Map with task managers of running (foregrounded) apps. { "<appId>": WeakReference(TaskManagerInterface) }
   private static final Map<String, WeakReference<TaskManagerInterface>> sTaskManagers = new HashMap<>();
 
@@ -67,8 +78,16 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
   // { "<appId>": List(eventBodies...) }
   private static final Map<String, List<Bundle>> sEventsQueues = new HashMap<>();
 
-  // { "<appId>": AppRecordInterface }
-  private static final Map<String, AppRecordInterface> sAppRecords = new HashMap<>();
+  // Headless apps, kept warm for a while after executing their tasks.
+  private static final HeadlessAppPool sHeadlessAppPool = new HeadlessAppPool(new HeadlessAppPool.Listener() {
+    @Override
+    public void onAppInvalidated(String appId) {
+      sHeadlessTaskManagers.remove(appId);
+    }
+  });
+
+  // Timings of events that haven't finished yet. Schema: { "<eventId>": EventTiming }
+  private static final Map<String, EventTiming> sEventTimings = new HashMap<>();
 
   // Map of callbacks for task execution events. Schema: { "<eventId>": TaskExecutionCallback }
   private static final Map<String, TaskExecutionCallback> sTaskCallbacks = new HashMap<>();
@@ -79,6 +98,9 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
 
     if (sTasksTable == null) {
       sTasksTable = new HashMap<>();
+      sTaskStore = new TaskStore(new File(context.getNoBackupFilesDir(), TASK_STORE_DIRECTORY_NAME));
+      sHeadlessAppPool.configure(context);
+      migrateTasksFromSharedPreferences();
       restoreTasks();
     }
   }
@@ -106,8 +128,11 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
       task.getConsumer().setOptions(options);
     } else {
       internalRegisterTask(taskName, appId, appUrl, consumerClass, options);
+      task = getTask(taskName, appId);
+    }
+    if (task != null) {
+      saveTask(task);
     }
-    saveTasksForAppWithId(appId);
   }
 
   @Override
@@ -134,7 +159,8 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     Log.i(TAG, "Unregistering task '" + taskName + "' for app '" + appId + "'.");
 
     task.getConsumer().didUnregister();
-    saveTasksForAppWithId(appId);
+    deleteJournal(task);
+    sTaskStore.removeTask(appId, taskName);
   }
 
   @Override
@@ -146,10 +172,11 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
 
       for (TaskInterface task : appTasks.values()) {
         task.getConsumer().didUnregister();
+        deleteJournal(task);
       }
 
       appTasks.clear();
-      removeAppFromConfig(appId);
+      sTaskStore.removeApp(appId);
     }
   }
 
@@ -192,25 +219,30 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
   public void notifyTaskFinished(String taskName, final String appId, Map<String, Object> response) {
     String eventId = (String) response.get("eventId");
     List<String> appEvents = sEvents.get(appId);
+    EventTiming timing = sEventTimings.remove(eventId);
 
     Log.i(TAG, "Finished task '" + taskName + "' with eventId '" + eventId + "'.");
 
+    if (timing != null) {
+      long startTime = timing.dispatchTime >= 0 ? timing.dispatchTime : timing.queueTime;
+      long bootTime = startTime - timing.queueTime;
+      long executionTime = SystemClock.elapsedRealtime() - startTime;
+
+      Log.i(TAG, "Task '" + taskName + "' waited " + bootTime + " ms for the app to boot and executed in " + executionTime + " ms.");
+
+      response = new HashMap<>(response);
+      response.put("bootTime", bootTime);
+      response.put("executionTime", executionTime);
+    }
+
     if (appEvents != null) {
       appEvents.remove(eventId);
 
       if (appEvents.size() == 0) {
         sEvents.remove(appId);
 
-        // Invalidate app record but after 2 seconds delay so we can still take batched events.
-        Handler handler = new Handler();
-        handler.postDelayed(new Runnable() {
-          @Override
-          public void run() {
-            if (!sEvents.containsKey(appId)) {
-              invalidateAppRecord(appId);
-            }
-          }
-        }, 2000);
+        // Keep the headless app warm for a while, it may get more events soon.
+        sHeadlessAppPool.markIdle(appId);
       }
     }
 
@@ -233,11 +265,23 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     // Set task manager in appropriate map.
     taskManagers.put(appId, new WeakReference<>(taskManager));
 
+    if (isHeadless) {
+      sHeadlessAppPool.onAppBooted(appId);
+    }
+
     // Execute events waiting for the task manager.
     List<Bundle> eventsQueue = sEventsQueues.get(appId);
 
     if (eventsQueue != null) {
+      long dispatchTime = SystemClock.elapsedRealtime();
+
       for (Bundle body : eventsQueue) {
+        Bundle executionInfo = body.getBundle("executionInfo");
+        EventTiming timing = executionInfo != null ? sEventTimings.get(executionInfo.getString("eventId")) : null;
+
+        if (timing != null) {
+          timing.dispatchTime = dispatchTime;
+        }
         taskManager.executeTaskWithBody(body);
       }
     }
@@ -246,8 +290,8 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     sEventsQueues.remove(appId);
 
     if (!isHeadless) {
-      // Maybe update app url in user defaults. It might change only in non-headless mode.
-      maybeUpdateAppUrlForAppId(appUrl, appId);
+      // Maybe update app url in the task store. It might change only in non-headless mode.
+      sTaskStore.updateAppUrl(appId, appUrl);
     }
   }
 
@@ -295,11 +339,19 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
 
     if (consumer == null) {
       Log.w(TAG, "Task or consumer not found.");
+      if (extras.getInt(TaskManagerUtils.JOURNAL_JOB_KEY) == 1) {
+        TaskManagerUtils.finishJournalJob(appId, taskName, null);
+      }
       return false;
     }
 
     Log.i(TAG, "Handling TaskService job with task name '" + taskName + "' for app with ID '" + appId + "'.");
 
+    if (extras.getInt(TaskManagerUtils.JOURNAL_JOB_KEY) == 1) {
+      new JournalJob(jobService, params, getTask(taskName, appId)).start();
+      return true;
+    }
+
     // executes task
     boolean isAsyncJob = consumer.didExecuteJob(jobService, params);
 
@@ -349,6 +401,12 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
       sTaskCallbacks.put(eventId, callback);
     }
 
+    EventTiming timing = new EventTiming();
+    sEventTimings.put(eventId, timing);
+
+    // Don't let the headless app be invalidated while it has events to execute.
+    sHeadlessAppPool.markBusy(appId);
+
     if (appEvents == null) {
       appEvents = new ArrayList<>();
       appEvents.add(eventId);
@@ -358,6 +416,7 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     }
 
     if (taskManager != null) {
+      timing.dispatchTime = timing.queueTime;
       taskManager.executeTaskWithBody(body);
       return;
     }
@@ -369,7 +428,7 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     }
     sEventsQueues.get(appId).add(body);
 
-    if (!sAppRecords.containsKey(appId)) {
+    if (!sHeadlessAppPool.contains(appId)) {
       // No app record yet - let's spin it up!
 
       if (!loadApp(appId, task.getAppUrl())) {
@@ -380,6 +439,7 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
           Log.e(TAG, "Error occurred while unregistering invalid task.", e);
         }
         appEvents.remove(eventId);
+        sEventTimings.remove(eventId);
         sEventsQueues.remove(appId);
       }
     }
@@ -454,108 +514,99 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     return task != null ? task.getConsumer() : null;
   }
 
-  private SharedPreferences getSharedPreferences() {
-    Context context = mContextRef.get();
-    return context != null ? context.getSharedPreferences(SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE) : null;
-  }
-
-  private void maybeUpdateAppUrlForAppId(String appUrl, String appId) {
-    SharedPreferences preferences = getSharedPreferences();
-    Map<String, Object> appConfig = preferences != null ? jsonToMap(preferences.getString(appId, "")) : null;
-
-    if (appConfig != null && appConfig.size() > 0) {
-      String oldAppUrl = (String) appConfig.get("appUrl");
-
-      if (oldAppUrl == null || !oldAppUrl.equals(appUrl)) {
-        appConfig.put("appUrl", appUrl);
-
-        preferences
-            .edit()
-            .putString(appId, new JSONObject(appConfig).toString())
-            .apply();
+  private void restoreTasks() {
+    for (TaskStore.Record record : sTaskStore.readAll()) {
+      if (!restoreTask(record)) {
+        // Unregister the task that couldn't be restored.
+        sTaskStore.removeTask(record.appId, record.taskName);
       }
     }
   }
 
-  @SuppressWarnings("unchecked")
-  private void restoreTasks() {
-    SharedPreferences preferences = getSharedPreferences();
-    Map<String, ?> config = preferences.getAll();
-
-    for (Map.Entry<String, ?> entry : config.entrySet()) {
-      Map<String, Object> appConfig = jsonToMap(entry.getValue().toString());
-      Map<String, Object> tasksConfig = (HashMap<String, Object>) appConfig.get("tasks");
-      String appUrl = (String) appConfig.get("appUrl");
+  private boolean restoreTask(TaskStore.Record record) {
+    try {
+      Class consumerClass = Class.forName(record.consumerClass);
+      int currentConsumerVersion = getConsumerVersion(consumerClass);
 
-      if (appUrl != null && tasksConfig != null && tasksConfig.size() > 0) {
-        for (String taskName : tasksConfig.keySet()) {
-          Map<String, Object> taskConfig = (HashMap<String, Object>) tasksConfig.get(taskName);
-          String consumerClassString = (String) taskConfig.get("consumerClass");
-
-          try {
-            Class consumerClass = Class.forName(consumerClassString);
-            int currentConsumerVersion = getConsumerVersion(consumerClass);
-            int previousConsumerVersion = (Integer) taskConfig.get("consumerVersion");
-
-            // Check whether the current consumer class is compatible with the saved version
-            if (currentConsumerVersion == previousConsumerVersion) {
-              Map<String, Object> options = (HashMap<String, Object>) taskConfig.get("options");
-
-              try {
-                // register the task using internal method which doesn't change shared preferences.
-                internalRegisterTask(taskName, entry.getKey(), appUrl, consumerClass, options);
-              } catch (TaskRegisteringFailedException e) {
-                Log.e(TAG, e.getMessage());
-              }
-            } else {
-              Log.w(TAG, "Task consumer '" + consumerClassString + "' has version '" + currentConsumerVersion + "' that is not compatible with the saved version '" + previousConsumerVersion + "'.");
-            }
-          } catch (ClassNotFoundException e) {
-            Log.e(TAG, e.getMessage());
-            e.printStackTrace();
-            // nothing, just skip it.
-          }
-        }
+      // Check whether the current consumer class is compatible with the saved version
+      if (currentConsumerVersion != record.consumerVersion) {
+        Log.w(TAG, "Task consumer '" + record.consumerClass + "' has version '" + currentConsumerVersion + "' that is not compatible with the saved version '" + record.consumerVersion + "'.");
+        return false;
       }
 
-      // Update tasks for the app to unregister tasks that couldn't be restored.
-      saveTasksForAppWithId(entry.getKey());
+      // register the task using internal method which doesn't change the task store.
+      internalRegisterTask(record.taskName, record.appId, record.appUrl, consumerClass, record.options);
+      return getTask(record.taskName, record.appId) != null;
+    } catch (ClassNotFoundException | TaskRegisteringFailedException e) {
+      Log.e(TAG, "Couldn't restore task '" + record.taskName + "' for app '" + record.appId + "'.", e);
+      return false;
     }
   }
 
-  private void saveTasksForAppWithId(String appId) {
-    SharedPreferences preferences = getSharedPreferences();
-    Map<String, TaskInterface> appRow = sTasksTable.get(appId);
+  private void saveTask(TaskInterface task) {
+    Class consumerClass = task.getConsumer().getClass();
 
-    if (preferences == null) {
+    sTaskStore.saveTask(
+        task.getAppId(),
+        task.getAppUrl(),
+        task.getName(),
+        unversionedClassNameForClass(consumerClass),
+        getConsumerVersion(consumerClass),
+        task.getOptions()
+    );
+  }
+
+  /**
+   *  Copies tasks saved in shared preferences, where they used to be kept as JSON, to the task store.
+   *  The preferences are left as they are - versioned task services of older SDKs still keep their tasks there.
+   */
+  @SuppressWarnings("unchecked")
+  private void migrateTasksFromSharedPreferences() {
+    Context context = mContextRef.get();
+
+    if (context == null) {
       return;
     }
-    if (appRow == null || appRow.size() == 0) {
-      preferences.edit().remove(appId).apply();
+
+    SharedPreferences migrationPreferences = context.getSharedPreferences(MIGRATION_PREFERENCES_NAME, Context.MODE_PRIVATE);
+
+    if (migrationPreferences.getBoolean(MIGRATED_KEY, false)) {
       return;
     }
 
-    Map<String, Object> appConfig = new HashMap<>();
-    Map<String, Object> tasks = new HashMap<>();
-    String appUrl = null;
+    Map<String, ?> config = context.getSharedPreferences(SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE).getAll();
 
-    for (TaskInterface task : appRow.values()) {
-      Map<String, Object> taskConfig = exportTaskToMap(task);
-      tasks.put(task.getName(), taskConfig);
-      appUrl = task.getAppUrl();
-    }
+    Log.i(TAG, "Migrating tasks of " + config.size() + " apps from shared preferences to the task store.");
+    boolean allTasksSaved = true;
+
+    for (Map.Entry<String, ?> entry : config.entrySet()) {
+      Map<String, Object> appConfig = jsonToMap(entry.getValue().toString());
+      Map<String, Object> tasksConfig = (Map<String, Object>) appConfig.get("tasks");
+      String appUrl = (String) appConfig.get("appUrl");
 
-    appConfig.put("appUrl", appUrl);
-    appConfig.put("tasks", tasks);
+      if (appUrl == null || tasksConfig == null) {
+        continue;
+      }
 
-    preferences
-        .edit()
-        .putString(appId, new JSONObject(appConfig).toString())
-        .apply();
-  }
+      for (String taskName : tasksConfig.keySet()) {
+        Map<String, Object> taskConfig = (Map<String, Object>) tasksConfig.get(taskName);
+        String consumerClass = (String) taskConfig.get("consumerClass");
+        Object consumerVersion = taskConfig.get("consumerVersion");
+
+        if (consumerClass != null && consumerVersion instanceof Integer) {
+          allTasksSaved &= sTaskStore.saveTask(entry.getKey(), appUrl, taskName, consumerClass, (Integer) consumerVersion, (Map<String, Object>) taskConfig.get("options"));
+        }
+      }
+    }
+
+    if (!allTasksSaved) {
+      // Saving tasks again on the next launch just rewrites their records.
+      Log.w(TAG, "Couldn't migrate all tasks, will try again on the next launch.");
+      return;
+    }
 
-  private void removeAppFromConfig(String appId) {
-    getSharedPreferences().edit().remove(appId).apply();
+    // Commit synchronously, so tasks unregistered from now on aren't brought back by migrating them again.
+    migrationPreferences.edit().putBoolean(MIGRATED_KEY, true).commit();
   }
 
   /**
@@ -571,19 +622,6 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     return weakRef == null ? null : weakRef.get();
   }
 
-  private Map<String, Object> exportTaskToMap(TaskInterface task) {
-    Map<String, Object> map = new HashMap<>();
-    Class consumerClass = task.getConsumer().getClass();
-    String consumerClassName = unversionedClassNameForClass(consumerClass);
-
-    map.put("name", task.getName());
-    map.put("consumerClass", consumerClassName);
-    map.put("consumerVersion", getConsumerVersion(consumerClass));
-    map.put("options", task.getOptions());
-
-    return map;
-  }
-
   private AppLoaderInterface createAppLoader() {
     // for now only react-native apps in Expo are supported
     Context context = mContextRef.get();
@@ -615,9 +653,15 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
           Log.e(TAG, exception.getMessage());
         }
         if (!success) {
-          sEvents.remove(appId);
+          List<String> appEvents = sEvents.remove(appId);
+
+          if (appEvents != null) {
+            for (String eventId : appEvents) {
+              sEventTimings.remove(eventId);
+            }
+          }
           sEventsQueues.remove(appId);
-          sAppRecords.remove(appId);
+          sHeadlessAppPool.remove(appId);
 
           // Host unreachable? Unregister all tasks for that app.
           unregisterAllTasksForAppId(appId);
@@ -625,18 +669,15 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
       }
     });
 
-    sAppRecords.put(appId, appRecord);
+    sHeadlessAppPool.add(appId, appRecord);
     return true;
   }
 
-  private void invalidateAppRecord(String appId) {
-    AppRecordInterface appRecord = sAppRecords.get(appId);
+  private void deleteJournal(TaskInterface task) {
+    Context context = mContextRef.get();
 
-    if (appRecord != null) {
-      appRecord.invalidate();
-      sAppRecords.remove(appId);
-      sHeadlessTaskManagers.remove(appId);
-      Log.i(TAG, "Invalidated headless app '" + appId + "'.");
+    if (context != null) {
+      TaskJournal.forTask(context, task.getAppId(), task.getName()).delete();
     }
   }
 
@@ -703,6 +744,9 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
     if (json instanceof JSONArray) {
       return jsonToList((JSONArray) json);
     }
+    if (json == JSONObject.NULL) {
+      return null;
+    }
     return json;
   }
 
@@ -746,4 +790,98 @@ public class TaskService implements SingletonModule, TaskServiceInterface {
   }
 
   //endregion
+
+  private static class EventTiming {
+    // When the event has been queued and dispatched to the task manager (-1 until then), in milliseconds since boot.
+    final long queueTime = SystemClock.elapsedRealtime();
+    long dispatchTime = -1;
+  }
+
+  /**
+   * Drains the task's journal in batches of events, executing the task with each batch and committing it
+   * once the app has finished the executions, until the journal is empty or the job runs out of time.
+   */
+  private class JournalJob {
+    private final JobService mJobService;
+    private final JobParameters mParams;
+    private final TaskInterface mTask;
+    private final TaskJournal mJournal;
+    private boolean mIsFinished = false;
+
+    JournalJob(JobService jobService, JobParameters params, TaskInterface task) {
+      mJobService = jobService;
+      mParams = params;
+      mTask = task;
+      mJournal = TaskJournal.forTask(jobService.getApplicationContext(), task.getAppId(), task.getName());
+    }
+
+    void start() {
+      drainNextBatch();
+
+      new Handler().postDelayed(new Runnable() {
+        @Override
+        public void run() {
+          finish();
+        }
+      }, MAX_TASK_EXECUTION_TIME_MS);
+    }
+
+    private synchronized void drainNextBatch() {
+      if (mIsFinished) {
+        return;
+      }
+
+      final TaskJournal.Batch batch;
+      try {
+        batch = mJournal.read(MAX_JOURNAL_BATCH_SIZE);
+      } catch (IOException e) {
+        Log.e(TAG, "Couldn't read the journal of task '" + mTask.getName() + "'.", e);
+        finish();
+        return;
+      }
+
+      List<Bundle> executionsData = batch.events.isEmpty() ? batch.events : mTask.getConsumer().taskDataFromJournalEvents(batch.events);
+
+      if (executionsData.isEmpty()) {
+        commit(batch.cursor);
+        finish();
+        return;
+      }
+
+      Log.i(TAG, "Executing task '" + mTask.getName() + "' with " + batch.events.size() + " journal events.");
+
+      final AtomicInteger pendingExecutions = new AtomicInteger(executionsData.size());
+
+      for (Bundle data : executionsData) {
+        executeTask(mTask, data, null, new TaskExecutionCallback() {
+          @Override
+          public void onFinished(Map<String, Object> response) {
+            if (pendingExecutions.decrementAndGet() == 0) {
+              commit(batch.cursor);
+              drainNextBatch();
+            }
+          }
+        });
+      }
+    }
+
+    private void commit(long cursor) {
+      try {
+        mJournal.commit(cursor);
+      } catch (IOException e) {
+        Log.e(TAG, "Couldn't commit the journal of task '" + mTask.getName() + "'.", e);
+      }
+    }
+
+    private synchronized void finish() {
+      if (mIsFinished) {
+        return;
+      }
+      mIsFinished = true;
+
+      // Let the system reschedule the job if events have been appended since the last batch
+      // or the job has run out of time before draining all of them.
+      mJobService.jobFinished(mParams, TaskManagerUtils.finishJournalJob(mTask.getAppId(), mTask.getName(), mJournal));
+    }
+  }
 }
@@ -0,0 +1,382 @@
+package expo.modules.taskManager;
+
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists registered tasks so that {@link TaskService} can restore them in future sessions.
+ *
+ * Every task is stored in its own small binary record, in a directory per app which also holds the app URL,
+ * so registering or unregistering a task rewrites only that task's record.
+ */
+class TaskStore {
+  private static final String TAG = "TaskStore";
+
+  private static final int MAGIC = 0x45545331; // "ETS1"
+  private static final int VERSION = 1;
+  private static final String TASK_FILE_EXTENSION = ".task";
+  private static final String APP_URL_FILE_NAME = "appUrl";
+
+  private static final byte TYPE_NULL = 'n';
+  private static final byte TYPE_INT = 'i';
+  private static final byte TYPE_LONG = 'l';
+  private static final byte TYPE_DOUBLE = 'd';
+  private static final byte TYPE_BOOLEAN = 'b';
+  private static final byte TYPE_STRING = 's';
+  private static final byte TYPE_MAP = 'm';
+  private static final byte TYPE_LIST = 'a';
+
+  static class Record {
+    final String appId;
+    final String appUrl;
+    final String taskName;
+    final String consumerClass;
+    final int consumerVersion;
+    final Map<String, Object> options;
+
+    Record(String appId, String appUrl, String taskName, String consumerClass, int consumerVersion, Map<String, Object> options) {
+      this.appId = appId;
+      this.appUrl = appUrl;
+      this.taskName = taskName;
+      this.consumerClass = consumerClass;
+      this.consumerVersion = consumerVersion;
+      this.options = options;
+    }
+  }
+
+  private final File mDirectory;
+
+  TaskStore(File directory) {
+    mDirectory = directory;
+  }
+
+  /**
+   * Reads records of all stored tasks. Unreadable records are removed.
+   */
+  synchronized List<Record> readAll() {
+    List<Record> records = new ArrayList<>();
+    File[] appDirectories = mDirectory.listFiles();
+
+    if (appDirectories == null) {
+      return records;
+    }
+
+    for (File appDirectory : appDirectories) {
+      String appId = Uri.decode(appDirectory.getName());
+      String appUrl = readAppUrl(appDirectory);
+      File[] taskFiles = appDirectory.listFiles();
+
+      if (appUrl == null || taskFiles == null) {
+        deleteDirectory(appDirectory);
+        continue;
+      }
+
+      for (File taskFile : taskFiles) {
+        if (!taskFile.getName().endsWith(TASK_FILE_EXTENSION)) {
+          continue;
+        }
+        try {
+          records.add(readRecord(taskFile, appId, appUrl));
+        } catch (IOException e) {
+          Log.e(TAG, "Couldn't read task record " + taskFile + ", removing it.", e);
+          deleteFile(taskFile);
+        }
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Writes the task's record, returns whether it has been saved.
+   */
+  synchronized boolean saveTask(String appId, String appUrl, String taskName, String consumerClass, int consumerVersion, Map<String, Object> options) {
+    File appDirectory = getAppDirectory(appId);
+
+    try {
+      if (!appDirectory.isDirectory() && !appDirectory.mkdirs()) {
+        throw new IOException("Couldn't create directory " + appDirectory + ".");
+      }
+      writeAppUrl(appDirectory, appUrl);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+      DataOutputStream output = new DataOutputStream(bytes);
+      byte[] optionsData = encodeOptions(options);
+
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeUTF(taskName);
+      output.writeUTF(consumerClass);
+      output.writeInt(consumerVersion);
+      output.writeInt(optionsData.length);
+      output.write(optionsData);
+      output.flush();
+
+      writeAtomically(getTaskFile(appDirectory, taskName), bytes.toByteArray());
+      return true;
+    } catch (IOException e) {
+      Log.e(TAG, "Couldn't save task '" + taskName + "' for app '" + appId + "'.", e);
+      return false;
+    }
+  }
+
+  synchronized void removeTask(String appId, String taskName) {
+    File appDirectory = getAppDirectory(appId);
+    deleteFile(getTaskFile(appDirectory, taskName));
+
+    String[] remainingFiles = appDirectory.list();
+    if (remainingFiles != null) {
+      for (String fileName : remainingFiles) {
+        if (fileName.endsWith(TASK_FILE_EXTENSION)) {
+          return;
+        }
+      }
+    }
+    // That was the last task of the app.
+    deleteDirectory(appDirectory);
+  }
+
+  synchronized void removeApp(String appId) {
+    deleteDirectory(getAppDirectory(appId));
+  }
+
+  /**
+   * Updates URL of the app, if it has any stored tasks.
+   */
+  synchronized void updateAppUrl(String appId, String appUrl) {
+    File appDirectory = getAppDirectory(appId);
+
+    if (appUrl == null || !appDirectory.isDirectory() || appUrl.equals(readAppUrl(appDirectory))) {
+      return;
+    }
+    try {
+      writeAppUrl(appDirectory, appUrl);
+    } catch (IOException e) {
+      Log.e(TAG, "Couldn't update URL of app '" + appId + "'.", e);
+    }
+  }
+
+  //region files
+
+  private File getAppDirectory(String appId) {
+    return new File(mDirectory, Uri.encode(appId));
+  }
+
+  private static File getTaskFile(File appDirectory, String taskName) {
+    return new File(appDirectory, Uri.encode(taskName) + TASK_FILE_EXTENSION);
+  }
+
+  private static Record readRecord(File taskFile, String appId, String appUrl) throws IOException {
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(readFile(taskFile)));
+
+    if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+      throw new IOException("Unknown format of task record.");
+    }
+
+    String taskName = input.readUTF();
+    String consumerClass = input.readUTF();
+    int consumerVersion = input.readInt();
+    byte[] optionsData = new byte[input.readInt()];
+    input.readFully(optionsData);
+
+    return new Record(appId, appUrl, taskName, consumerClass, consumerVersion, decodeOptions(optionsData));
+  }
+
+  private static String readAppUrl(File appDirectory) {
+    File file = new File(appDirectory, APP_URL_FILE_NAME);
+
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      return new String(readFile(file), "UTF-8");
+    } catch (IOException e) {
+      Log.e(TAG, "Couldn't read app URL from " + file + ".", e);
+      return null;
+    }
+  }
+
+  private static void writeAppUrl(File appDirectory, String appUrl) throws IOException {
+    if (appUrl != null && !appUrl.equals(readAppUrl(appDirectory))) {
+      writeAtomically(new File(appDirectory, APP_URL_FILE_NAME), appUrl.getBytes("UTF-8"));
+    }
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    byte[] bytes = new byte[(int) file.length()];
+    InputStream input = new FileInputStream(file);
+
+    try {
+      int offset = 0;
+      int count;
+      while (offset < bytes.length && (count = input.read(bytes, offset, bytes.length - offset)) != -1) {
+        offset += count;
+      }
+      if (offset < bytes.length) {
+        throw new IOException("Unexpected end of " + file + ".");
+      }
+    } finally {
+      input.close();
+    }
+    return bytes;
+  }
+
+  // Writes a temporary file first, so that a process death in the middle never leaves a truncated record behind.
+  private static void writeAtomically(File file, byte[] bytes) throws IOException {
+    File tempFile = new File(file.getPath() + ".tmp");
+    FileOutputStream output = new FileOutputStream(tempFile);
+
+    try {
+      output.write(bytes);
+      output.getFD().sync();
+    } finally {
+      output.close();
+    }
+    if (!tempFile.renameTo(file)) {
+      throw new IOException("Couldn't rename " + tempFile + " to " + file + ".");
+    }
+  }
+
+  private static void deleteFile(File file) {
+    if (file.exists() && !file.delete()) {
+      Log.w(TAG, "Couldn't delete " + file + ".");
+    }
+  }
+
+  private static void deleteDirectory(File directory) {
+    File[] files = directory.listFiles();
+
+    if (files != null) {
+      for (File file : files) {
+        deleteFile(file);
+      }
+    }
+    deleteFile(directory);
+  }
+
+  //endregion
+  //region options encoding
+
+  private static byte[] encodeOptions(Map<String, Object> options) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    DataOutputStream output = new DataOutputStream(bytes);
+    writeValue(output, options != null ? options : new HashMap<String, Object>());
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> decodeOptions(byte[] data) throws IOException {
+    Object options = readValue(new DataInputStream(new ByteArrayInputStream(data)));
+
+    if (!(options instanceof Map)) {
+      throw new IOException("Task options aren't a map.");
+    }
+    return (Map<String, Object>) options;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void writeValue(DataOutputStream output, Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(TYPE_NULL);
+    } else if (value instanceof Integer) {
+      output.writeByte(TYPE_INT);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(TYPE_LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Number) {
+      output.writeByte(TYPE_DOUBLE);
+      output.writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof Boolean) {
+      output.writeByte(TYPE_BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof String) {
+      output.writeByte(TYPE_STRING);
+      writeString(output, (String) value);
+    } else if (value instanceof Map) {
+      Map<String, Object> map = (Map<String, Object>) value;
+      output.writeByte(TYPE_MAP);
+      output.writeInt(map.size());
+      for (Map.Entry<String, Object> entry : map.entrySet()) {
+        writeString(output, entry.getKey());
+        writeValue(output, entry.getValue());
+      }
+    } else if (value instanceof List) {
+      List<Object> list = (List<Object>) value;
+      output.writeByte(TYPE_LIST);
+      output.writeInt(list.size());
+      for (Object item : list) {
+        writeValue(output, item);
+      }
+    } else {
+      throw new IOException("Unsupported type of task option: " + value.getClass().getName() + ".");
+    }
+  }
+
+  private static Object readValue(DataInputStream input) throws IOException {
+    byte type = input.readByte();
+
+    switch (type) {
+      case TYPE_NULL:
+        return null;
+      case TYPE_INT:
+        return input.readInt();
+      case TYPE_LONG:
+        return input.readLong();
+      case TYPE_DOUBLE:
+        return input.readDouble();
+      case TYPE_BOOLEAN:
+        return input.readBoolean();
+      case TYPE_STRING:
+        return readString(input);
+      case TYPE_MAP: {
+        int size = input.readInt();
+        Map<String, Object> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+          String key = readString(input);
+          map.put(key, readValue(input));
+        }
+        return map;
+      }
+      case TYPE_LIST: {
+        int size = input.readInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(input));
+        }
+        return list;
+      }
+      default:
+        throw new IOException("Unknown type of task option: " + type + ".");
+    }
+  }
+
+  // Unlike writeUTF, isn't limited to 64 KiB.
+  private static void writeString(DataOutputStream output, String string) throws IOException {
+    byte[] bytes = string.getBytes("UTF-8");
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  //endregion
+}